@@ -36,6 +36,7 @@ import javax.annotation.Nullable;
 public abstract class AsyncCommand extends Command implements PluginIdentifiableCommand {
     private Plugin owner;
     private TabCompleter completer;
+    private String poolName;
 
     /**
      * Create a new command for the associated plugin
@@ -48,6 +49,19 @@ public abstract class AsyncCommand extends Command implements PluginIdentifiable
         this.owner = owner;
     }
 
+    /**
+     * Create a new command for the associated plugin, executed on a named pool
+     * 
+     * @param commandName The name of the command the user will execute
+     * @param owner       The plugin that owns this command.
+     * @param poolName    The name of a pool registered with
+     *                    {@link StickyAPI#getExecutors()} to execute the command on
+     */
+    public AsyncCommand(String commandName, Plugin owner, String poolName) {
+        this(commandName, owner);
+        this.poolName = poolName;
+    }
+
     /**
      * Execute the command itself (part of the derived class)
      * 
@@ -105,7 +119,7 @@ public abstract class AsyncCommand extends Command implements PluginIdentifiable
             }
         });
 
-        StickyAPI.getPool().execute(t);
+        StickyAPI.getPool(poolName).execute(t);
 
         return true; // we always return true, we don't care what bukkit thinks
     }
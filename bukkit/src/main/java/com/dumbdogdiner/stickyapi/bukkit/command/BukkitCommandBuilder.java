@@ -4,29 +4,36 @@
  */
 package com.dumbdogdiner.stickyapi.bukkit.command;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.FutureTask;
 
 import com.dumbdogdiner.stickyapi.StickyAPI;
+import com.dumbdogdiner.stickyapi.bukkit.util.PlayerNameTracker;
 import com.dumbdogdiner.stickyapi.bukkit.util.SoundUtil;
 import com.dumbdogdiner.stickyapi.common.arguments.Arguments;
+import com.dumbdogdiner.stickyapi.common.arguments.CommandLine;
 import com.dumbdogdiner.stickyapi.common.command.CommandBuilder;
+import com.dumbdogdiner.stickyapi.common.command.CommandCompleter;
+import com.dumbdogdiner.stickyapi.common.command.CommandVariables;
+import com.dumbdogdiner.stickyapi.common.command.CooldownTracker;
+import com.dumbdogdiner.stickyapi.common.command.DispatchTree;
 import com.dumbdogdiner.stickyapi.common.command.ExitCode;
 import com.dumbdogdiner.stickyapi.common.ServerVersion;
 import com.dumbdogdiner.stickyapi.common.util.NotificationType;
 import com.dumbdogdiner.stickyapi.common.util.reflection.ReflectionUtil;
-import com.dumbdogdiner.stickyapi.common.util.StringUtil;
-import com.google.common.collect.ImmutableList;
+import com.dumbdogdiner.stickyapi.common.util.Tracer;
 
+import org.bukkit.block.Block;
+import org.bukkit.command.BlockCommandSender;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandMap;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
@@ -39,8 +46,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
 
-    // Hmm...
-    HashMap<CommandSender, Long> cooldownSenders = new HashMap<>();
+    CooldownTracker cooldowns = new CooldownTracker();
 
     Executor executor;
     TabExecutor tabExecutor;
@@ -77,73 +83,89 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
         this.owner = owner;
     }
 
-    private void performAsynchronousExecution(CommandSender sender, org.bukkit.command.Command command, String label,
-            List<String> args) {
-        StickyAPI.getPool().execute(new FutureTask<Void>(() -> {
-            performExecution(sender, command, label, args);
-            return null;
-        }));
+    /**
+     * Run the command resolved from the given arguments, on its pool if it runs
+     * asynchronously.
+     */
+    private static void dispatch(DispatchTree.Node<BukkitCommandBuilder> node, CommandSender sender,
+            org.bukkit.command.Command command, String label, List<String> args) {
+        if (node.isIllegal()) {
+            throw new RuntimeException("Attempted to asynchronously execute a synchronous sub-command!");
+        }
+        BukkitCommandBuilder target = node.getCommand();
+        List<String> targetArgs = node.arguments(args);
+        long dispatchedAt = System.nanoTime();
+        if (node.isAsynchronous()) {
+            StickyAPI.getPool(node.getPoolName()).execute(new FutureTask<Void>(() -> {
+                target.performExecution(node, sender, command, label, targetArgs, dispatchedAt);
+                return null;
+            }));
+        } else {
+            target.performExecution(node, sender, command, label, targetArgs, dispatchedAt);
+        }
     }
 
     /**
-     * Execute this command. Checks for existing sub-commands, and runs the error
-     * handler if anything goes wrong.
+     * Execute this command, and run the error handler if anything goes wrong.
+     * Each execution is recorded as a {@link Tracer} span, and its allocations
+     * and CPU time are added to the
+     * {@link com.dumbdogdiner.stickyapi.common.command.CommandProfiler}, while
+     * its wait, latency and exit code are added to the
+     * {@link com.dumbdogdiner.stickyapi.common.command.CommandMetrics}, both
+     * under the command's full path.
      */
-    private void performExecution(CommandSender sender, org.bukkit.command.Command command, String label,
-            List<String> args) {
-        // look for subcommands
-        if (args.size() > 0 && getSubCommands().containsKey(args.get(0))) {
-            BukkitCommandBuilder subCommand = (BukkitCommandBuilder) getSubCommands().get(args.get(0));
-            if (!getSynchronous() && subCommand.getSynchronous()) {
-                throw new RuntimeException("Attempted to asynchronously execute a synchronous sub-command!");
-            }
-
-            // We can't modify List, so we need to make a clone of it, because java is
-            // special.
-            ArrayList<String> argsClone = new ArrayList<String>(args);
-            argsClone.remove(0);
-
-            // spawn async command from sync
-            if (getSynchronous() && !subCommand.getSynchronous()) {
-                subCommand.performAsynchronousExecution(sender, command, label, argsClone);
-            } else {
-                subCommand.performExecution(sender, command, label, argsClone);
-            }
+    private void performExecution(DispatchTree.Node<BukkitCommandBuilder> node, CommandSender sender,
+            org.bukkit.command.Command command, String label, List<String> args, long dispatchedAt) {
+        long start = System.nanoTime();
+        try (Tracer.Span span = Tracer.span("command", node.getPath(), label)) {
+            ExitCode exitCode = StickyAPI.getCommandProfiler().measure(node.getPath(),
+                    () -> executeCommand(node, sender, command, label, args));
+            StickyAPI.getCommandMetrics().record(node.getPath(), start - dispatchedAt, System.nanoTime() - start,
+                    exitCode != null ? exitCode : ExitCode.EXIT_ERROR);
+        }
+    }
 
-            return;
+    /**
+     * Get the key a sender's cooldowns and rate limits are kept under. Senders
+     * which aren't entities each get a key of their own, and command blocks are
+     * told apart by where they are.
+     */
+    private static UUID senderId(CommandSender sender) {
+        if (sender instanceof Entity) {
+            return ((Entity) sender).getUniqueId();
         }
+        if (sender instanceof BlockCommandSender) {
+            Block block = ((BlockCommandSender) sender).getBlock();
+            return CooldownTracker.senderKey("block",
+                    block.getWorld().getName() + ' ' + block.getX() + ' ' + block.getY() + ' ' + block.getZ());
+        }
+        return CooldownTracker.senderKey(sender.getClass().getName(), sender.getName());
+    }
 
+    /**
+     * Check the sender may run this command and run it. Its settings are read
+     * from the node it was resolved to, which holds them as they were when the
+     * command was built.
+     */
+    private ExitCode executeCommand(DispatchTree.Node<BukkitCommandBuilder> node, CommandSender sender,
+            org.bukkit.command.Command command, String label, List<String> args) {
         ExitCode exitCode;
-        Arguments a = new Arguments(args);
-        var variables = new HashMap<String, String>();
-        variables.put("command", command.getName());
-        variables.put("sender", sender.getName());
-        variables.put("player", sender.getName());
-        variables.put("uuid", (sender instanceof Player) ? ((Player) sender).getUniqueId().toString() : "");
-        variables.put("cooldown", getCooldown().toString());
-        variables.put("cooldown_remaining",
-                cooldownSenders.containsKey(sender)
-                        ? String.valueOf(getCooldown() - (System.currentTimeMillis() - cooldownSenders.get(sender)))
-                        : "0");
+        // Commands with a schema accept quoted arguments, so split the words again
+        Arguments a = node.getArgumentSchema() != null
+                ? node.getArgumentSchema().parse(CommandLine.parseWords(args))
+                : new Arguments(args);
+        UUID senderId = senderId(sender);
+        // Variables are only turned into strings if the executor or error handler reads them
+        var variables = new LazyVariables(new CommandVariables(getSharedVariables(command.getName()),
+                sender.getName(), (sender instanceof Player) ? senderId : null, "",
+                cooldowns.getRemaining(senderId)));
         try {
-            if (cooldownSenders.containsKey(sender)
-                    && ((System.currentTimeMillis() - cooldownSenders.get(sender)) < getCooldown())) {
-                exitCode = ExitCode.EXIT_COOLDOWN;
-            } else {
-
-                // Add our sender and their command execution time to our hashmap of coolness
-                cooldownSenders.put(sender, System.currentTimeMillis());
-
-                // If the user does not have permission to execute the sub command, don't let
-                // them execute and return permission denied
-                if (this.getPermission() != null && !sender.hasPermission(this.getPermission())) {
-                    exitCode = ExitCode.EXIT_PERMISSION_DENIED;
-                } else if (this.getRequiresPlayer() && !(sender instanceof Player)) {
-                    exitCode = ExitCode.EXIT_MUST_BE_PLAYER;
-                } else {
-                    exitCode = executor.apply(sender, a, variables);
-                }
-            }
+            // Rate limits and the cooldown are only used up once the sender has
+            // permission to run the command
+            ExitCode denied = checkAccess(senderId,
+                    node.getPermission() == null || sender.hasPermission(node.getPermission()),
+                    sender instanceof Player, node.isRequiresPlayer(), cooldowns, node.getCooldown());
+            exitCode = denied != null ? denied : executor.apply(sender, a, variables);
         } catch (Exception e) {
             exitCode = ExitCode.EXIT_ERROR;
             e.printStackTrace();
@@ -153,13 +175,14 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
         if (exitCode != ExitCode.EXIT_SUCCESS) {
             if (exitCode == ExitCode.EXIT_INFO) {
                 _playSound(sender, NotificationType.INFO);
-                return;
+                return exitCode;
             }
             errorHandler.apply(exitCode, sender, a, variables);
             _playSound(sender, NotificationType.ERROR);
         } else {
             _playSound(sender, NotificationType.SUCCESS);
         }
+        return exitCode;
     }
 
     /**
@@ -195,6 +218,32 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
         return this;
     }
 
+    /**
+     * Add a sub-command which lists the slowest commands, with their median and
+     * 99th percentile latencies, from {@link StickyAPI#getCommandMetrics()}.
+     * It takes an optional number of commands to list, which defaults to 10, and
+     * hands any errors to this command's error handler.
+     *
+     * @param name       of the sub-command
+     * @param permission needed to run the sub-command
+     * @return {@link CommandBuilder}
+     * @since 3.1
+     */
+    public BukkitCommandBuilder metricsSubCommand(@NotNull String name, @NotNull String permission) {
+        BukkitCommandBuilder metrics = new BukkitCommandBuilder(name).permission(permission)
+                .description("Show how long commands take to run").onExecute((sender, args, vars) -> {
+                    for (String line : StickyAPI.getCommandMetrics().report(args)) {
+                        sender.sendMessage(line);
+                    }
+                    return ExitCode.EXIT_SUCCESS;
+                }).onError((exitCode, sender, args, vars) -> {
+                    if (errorHandler != null) {
+                        errorHandler.apply(exitCode, sender, args, vars);
+                    }
+                });
+        return subCommand(metrics);
+    }
+
     /**
      * Build the command!
      * 
@@ -208,7 +257,9 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
             this.synchronous(false);
         }
 
-        BukkitCommandBuilder that = this;
+        PlayerNameTracker.track(plugin);
+        CommandCompleter completer = new CommandCompleter(this, StickyAPI.getPlayerNames());
+        DispatchTree<BukkitCommandBuilder> dispatchTree = DispatchTree.compile(this);
 
         // Execute the command by creating a new CommandExecutor and passing the
         // arguments to our executor
@@ -216,11 +267,7 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
             @Override
             public boolean onCommand(CommandSender sender, org.bukkit.command.Command command, String label,
                     String[] args) {
-                if (that.getSynchronous()) {
-                    performExecution(sender, command, label, Arrays.asList(args));
-                } else {
-                    performAsynchronousExecution(sender, command, label, Arrays.asList(args));
-                }
+                dispatch(dispatchTree.resolve(args), sender, command, label, Arrays.asList(args));
                 return true;
             }
         });
@@ -229,25 +276,16 @@ public class BukkitCommandBuilder extends CommandBuilder<BukkitCommandBuilder> {
             @Override
             public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
                 if (tabExecutor == null) {
-                    if (args.length == 0) {
-                        return ImmutableList.of();
-                    }
-
-                    String lastWord = args[args.length - 1];
-
-                    Player senderPlayer = sender instanceof Player ? (Player) sender : null;
-
-                    ArrayList<String> matchedPlayers = new ArrayList<String>();
-                    for (Player player : sender.getServer().getOnlinePlayers()) {
-                        String name = player.getName();
-                        if ((senderPlayer == null || senderPlayer.canSee(player))
-                                && StringUtil.startsWithIgnoreCase(name, lastWord)) {
-                            matchedPlayers.add(name);
-                        }
+                    List<String> completions = completer.complete(Arrays.asList(args));
+                    if (sender instanceof Player) {
+                        // Don't reveal players the sender can't see
+                        Player senderPlayer = (Player) sender;
+                        completions.removeIf(name -> {
+                            Player player = sender.getServer().getPlayerExact(name);
+                            return player != null && !senderPlayer.canSee(player);
+                        });
                     }
-
-                    Collections.sort(matchedPlayers, String.CASE_INSENSITIVE_ORDER);
-                    return matchedPlayers;
+                    return completions;
                 } else {
                     return tabExecutor.apply(sender, alias, new Arguments(Arrays.asList(args)));
                 }
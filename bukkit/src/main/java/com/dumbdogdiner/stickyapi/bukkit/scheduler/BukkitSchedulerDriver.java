@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bukkit.scheduler;
+
+import com.dumbdogdiner.stickyapi.common.scheduler.Scheduler;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Runs a {@link Scheduler}'s synchronous tasks on the server's main thread,
+ * once every tick.
+ * 
+ * @since 3.1
+ */
+public class BukkitSchedulerDriver {
+    @Getter
+    private final Scheduler scheduler;
+
+    private BukkitTask task;
+
+    /**
+     * Create a new driver for the given scheduler.
+     * 
+     * @param scheduler to drive
+     */
+    public BukkitSchedulerDriver(@NotNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Start running the scheduler every tick. The task is cancelled automatically
+     * by Bukkit when the plugin is disabled.
+     * 
+     * @param plugin to run the task for
+     * @return {@link BukkitSchedulerDriver}
+     */
+    public synchronized BukkitSchedulerDriver start(@NotNull Plugin plugin) {
+        if (task != null) {
+            throw new IllegalStateException("This driver has already been started");
+        }
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, scheduler::schedule, 0L, 1L);
+        return this;
+    }
+
+    /**
+     * Stop running the scheduler.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Check if this driver is running.
+     * 
+     * @return {@link Boolean}
+     */
+    public synchronized boolean isRunning() {
+        return task != null && !task.isCancelled();
+    }
+}
@@ -0,0 +1,8 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+/**
+ * Classes dedicated to driving the common scheduler from Bukkit
+ */
+package com.dumbdogdiner.stickyapi.bukkit.scheduler;
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bukkit.util;
+
+import com.dumbdogdiner.stickyapi.StickyAPI;
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps {@link StickyAPI#getPlayerNames()} up to date as players join and
+ * leave, so tab completion doesn't have to scan every online player.
+ * 
+ * @since 3.1
+ */
+public class PlayerNameTracker implements Listener {
+    private static PlayerNameTracker tracker;
+
+    private final Plugin plugin;
+    private final PrefixTrie names;
+
+    private PlayerNameTracker(Plugin plugin, PrefixTrie names) {
+        this.plugin = plugin;
+        this.names = names;
+    }
+
+    /**
+     * Start tracking player names, if they aren't tracked already. Tracking stops
+     * when the given plugin is disabled, until this is called again.
+     * 
+     * @param plugin The plugin to register the listener for
+     */
+    public static synchronized void track(@NotNull Plugin plugin) {
+        if (tracker != null) {
+            return;
+        }
+        tracker = new PlayerNameTracker(plugin, StickyAPI.getPlayerNames());
+        tracker.names.clear();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            tracker.names.add(player.getName());
+        }
+        plugin.getServer().getPluginManager().registerEvents(tracker, plugin);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        names.add(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        names.remove(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() != plugin) {
+            return;
+        }
+        synchronized (PlayerNameTracker.class) {
+            HandlerList.unregisterAll(this);
+            if (tracker == this) {
+                tracker = null;
+            }
+        }
+    }
+}
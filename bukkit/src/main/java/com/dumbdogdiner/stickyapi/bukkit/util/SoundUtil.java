@@ -4,6 +4,10 @@
  */
 package com.dumbdogdiner.stickyapi.bukkit.util;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 import com.dumbdogdiner.stickyapi.StickyAPI;
 import com.dumbdogdiner.stickyapi.common.util.NotificationType;
 
@@ -12,6 +16,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import lombok.Getter;
+import lombok.Setter;
+
 /**
  * Handles the playing of cute fox noises for notification purposes.
  */
@@ -19,6 +26,14 @@ public class SoundUtil {
     private SoundUtil() {
     }
 
+    /**
+     * The name of the pool (registered with {@link StickyAPI#getExecutors()}) to
+     * play sounds on, or null to use the global pool.
+     */
+    @Getter
+    @Setter
+    private static String poolName;
+
     /**
      * Check if the parsed sender can receive sounds. Returns true if valid.
      * 
@@ -31,22 +46,23 @@ public class SoundUtil {
 
     /**
      * Queue a specific sound to be run at a later date.
+     * <p>
+     * Delayed sounds are handed to the pool once the delay has elapsed, rather
+     * than sleeping inside it. The pool is looked up at that point, so a sound
+     * still plays if the pool is switched while it waits.
      * 
      * @param player The player to play the sound to
      * @param sound  The sound to play
      * @param volume The volume of the sound
      * @param pitch  The pitch of the sound
-     * @param delay  T
+     * @param delay  The delay in milliseconds before the sound is played
      */
     public static void queueSound(@NotNull Player player, @NotNull Sound sound, float volume, float pitch, long delay) {
-        StickyAPI.getPool().submit(() -> {
-            try {
-                Thread.sleep(delay);
-                player.playSound(player.getLocation(), sound, volume, pitch);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        });
+        Executor executor = delay > 0
+                ? CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS,
+                        task -> StickyAPI.getPool(poolName).execute(task))
+                : StickyAPI.getPool(poolName);
+        executor.execute(() -> player.playSound(player.getLocation(), sound, volume, pitch));
     }
 
     /**
@@ -10,8 +10,13 @@ import java.io.InputStream;
 
 import javax.annotation.Nullable;
 
+import com.dumbdogdiner.stickyapi.StickyAPI;
 import com.dumbdogdiner.stickyapi.common.config.providers.YamlProvider;
 import com.dumbdogdiner.stickyapi.common.translation.LocaleProvider;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
@@ -93,4 +98,33 @@ public class StartupUtil {
 
         return localeProvider;
     }
+
+    /**
+     * Shut down the plugin's named pools (see
+     * {@link com.dumbdogdiner.stickyapi.common.scheduler.PoolBuilder#owner(String)})
+     * automatically when it is disabled. Pools should be owned by the plugin's
+     * name.
+     * 
+     * @param plugin The plugin's main class
+     */
+    public static void setupExecutors(@NotNull JavaPlugin plugin) {
+        plugin.getServer().getPluginManager().registerEvents(new Listener() {
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onPluginDisable(PluginDisableEvent event) {
+                if (event.getPlugin() == plugin) {
+                    shutdownExecutors(plugin);
+                }
+            }
+        }, plugin);
+    }
+
+    /**
+     * Shut down the named pools owned by the plugin.
+     * 
+     * @param plugin The plugin's main class
+     * @return The number of pools that were shut down
+     */
+    public static int shutdownExecutors(@NotNull JavaPlugin plugin) {
+        return StickyAPI.getExecutors().shutdown(plugin.getName());
+    }
 }
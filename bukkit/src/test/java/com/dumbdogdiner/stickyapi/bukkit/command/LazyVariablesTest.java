@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bukkit.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.UUID;
+
+import com.dumbdogdiner.stickyapi.common.command.CommandVariables;
+
+import org.junit.jupiter.api.Test;
+
+public class LazyVariablesTest {
+    private final UUID uuid = UUID.randomUUID();
+
+    private LazyVariables variables() {
+        return new LazyVariables(new CommandVariables(new CommandVariables.Shared("ban", 5000L), "Notch", uuid,
+                "", 1234L));
+    }
+
+    @Test
+    public void testMapContract() {
+        HashMap<String, String> expected = new HashMap<>();
+        expected.put("command", "ban");
+        expected.put("sender", "Notch");
+        expected.put("player", "Notch");
+        expected.put("uuid", uuid.toString());
+        expected.put("cooldown", "5000");
+        expected.put("cooldown_remaining", "1234");
+
+        LazyVariables variables = variables();
+        assertEquals(6, variables.size());
+        assertEquals(expected, variables);
+        assertEquals(variables, expected);
+        assertEquals(expected.hashCode(), variables().hashCode());
+        assertEquals(expected.toString(), variables().toString());
+        assertEquals(expected.keySet(), variables().keySet());
+        assertTrue(variables().containsValue("1234"));
+        assertEquals(expected, Map.copyOf(variables()));
+    }
+
+    @Test
+    public void testWrites() {
+        LazyVariables variables = variables();
+        assertEquals("fallback", variables.getOrDefault("unknown", "fallback"));
+        assertEquals("Notch", variables.put("player", "jeb_"));
+        assertEquals("jeb_", variables.get("player"));
+        assertEquals("5000", variables.remove("cooldown"));
+        assertFalse(variables.containsKey("cooldown"));
+        variables.put("extra", "value");
+        assertEquals(6, variables.size());
+
+        variables = variables();
+        variables.clear();
+        assertTrue(variables.isEmpty());
+        assertNull(variables.get("sender"));
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        LazyVariables variables = variables();
+        variables.put("player", "jeb_");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(variables);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object copy = in.readObject();
+            assertEquals(HashMap.class, copy.getClass());
+            assertEquals(6, ((Map<?, ?>) copy).size());
+            assertEquals("jeb_", ((Map<?, ?>) copy).get("player"));
+            assertEquals(variables, copy);
+        }
+    }
+}
@@ -4,28 +4,32 @@
  */
 package com.dumbdogdiner.stickyapi.bungeecord.command;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.FutureTask;
 
 import com.dumbdogdiner.stickyapi.StickyAPI;
 import com.dumbdogdiner.stickyapi.bungeecord.packet.PacketRegistration;
+import com.dumbdogdiner.stickyapi.bungeecord.util.PlayerNameTracker;
 import com.dumbdogdiner.stickyapi.bungeecord.util.SoundUtil;
 import com.dumbdogdiner.stickyapi.common.arguments.Arguments;
+import com.dumbdogdiner.stickyapi.common.arguments.CommandLine;
 import com.dumbdogdiner.stickyapi.common.command.ExitCode;
 import com.dumbdogdiner.stickyapi.common.command.CommandBuilder;
+import com.dumbdogdiner.stickyapi.common.command.CommandCompleter;
+import com.dumbdogdiner.stickyapi.common.command.CommandVariables;
+import com.dumbdogdiner.stickyapi.common.command.CooldownTracker;
+import com.dumbdogdiner.stickyapi.common.command.DispatchTree;
 import com.dumbdogdiner.stickyapi.common.util.NotificationType;
-import com.dumbdogdiner.stickyapi.common.util.StringUtil;
-import com.google.common.collect.ImmutableList;
+import com.dumbdogdiner.stickyapi.common.util.Tracer;
 
 import org.jetbrains.annotations.NotNull;
 
 import net.md_5.bungee.api.CommandSender;
 import net.md_5.bungee.api.ProxyServer;
+import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.plugin.Command;
 import net.md_5.bungee.api.plugin.Plugin;
@@ -33,8 +37,7 @@ import net.md_5.bungee.api.plugin.Plugin;
 @SuppressWarnings("deprecation") // PacketRegistration is deprecated
 public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
 
-    // Hmm...
-    HashMap<CommandSender, Long> cooldownSenders = new HashMap<>();
+    CooldownTracker cooldowns = new CooldownTracker();
 
     Executor executor;
     TabExecutor tabExecutor;
@@ -91,73 +94,74 @@ public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
         super(name);
     }
 
-    private void performAsynchronousExecution(CommandSender sender, BungeeCommandBuilder builder, String label,
-            List<String> args) {
-        StickyAPI.getPool().execute(new FutureTask<Void>(() -> {
-            performExecution(sender, builder, label, args);
-            return null;
-        }));
+    /**
+     * Run the command resolved from the given arguments, on its pool if it runs
+     * asynchronously.
+     */
+    private static void dispatch(DispatchTree.Node<BungeeCommandBuilder> node, CommandSender sender,
+            BungeeCommandBuilder builder, String label, List<String> args) {
+        if (node.isIllegal()) {
+            throw new RuntimeException("Attempted to asynchronously execute a synchronous sub-command!");
+        }
+        BungeeCommandBuilder target = node.getCommand();
+        List<String> targetArgs = node.arguments(args);
+        long dispatchedAt = System.nanoTime();
+        if (node.isAsynchronous()) {
+            StickyAPI.getPool(node.getPoolName()).execute(new FutureTask<Void>(() -> {
+                target.performExecution(node, sender, builder, label, targetArgs, dispatchedAt);
+                return null;
+            }));
+        } else {
+            target.performExecution(node, sender, builder, label, targetArgs, dispatchedAt);
+        }
     }
 
     /**
-     * Execute this command. Checks for existing sub-commands, and runs the error
-     * handler if anything goes wrong.
+     * Execute this command, and run the error handler if anything goes wrong.
+     * Each execution is recorded as a {@link Tracer} span, and its allocations
+     * and CPU time are added to the
+     * {@link com.dumbdogdiner.stickyapi.common.command.CommandProfiler}, while
+     * its wait, latency and exit code are added to the
+     * {@link com.dumbdogdiner.stickyapi.common.command.CommandMetrics}, both
+     * under the command's full path.
      */
-    private void performExecution(CommandSender sender, BungeeCommandBuilder builder, String label, List<String> args) {
-        // look for subcommands
-        if (args.size() > 0 && getSubCommands().containsKey(args.get(0))) {
-            BungeeCommandBuilder subCommand = (BungeeCommandBuilder) getSubCommands().get(args.get(0));
-            if (!getSynchronous() && subCommand.getSynchronous()) {
-                throw new RuntimeException("Attempted to asynchronously execute a synchronous sub-command!");
-            }
-
-            // We can't modify List, so we need to make a clone of it, because java is
-            // special.
-            ArrayList<String> argsClone = new ArrayList<String>(args);
-            argsClone.remove(0);
-
-            // spawn async command from sync
-            if (getSynchronous() && !subCommand.getSynchronous()) {
-                subCommand.performAsynchronousExecution(sender, builder, label, argsClone);
-            } else {
-                subCommand.performExecution(sender, builder, label, argsClone);
-            }
-
-            return;
+    private void performExecution(DispatchTree.Node<BungeeCommandBuilder> node, CommandSender sender,
+            BungeeCommandBuilder builder, String label, List<String> args, long dispatchedAt) {
+        long start = System.nanoTime();
+        try (Tracer.Span span = Tracer.span("command", node.getPath(), label)) {
+            ExitCode exitCode = StickyAPI.getCommandProfiler().measure(node.getPath(),
+                    () -> executeCommand(node, sender, builder, label, args));
+            StickyAPI.getCommandMetrics().record(node.getPath(), start - dispatchedAt, System.nanoTime() - start,
+                    exitCode != null ? exitCode : ExitCode.EXIT_ERROR);
         }
+    }
 
+    /**
+     * Check the sender may run this command and run it. Its settings are read
+     * from the node it was resolved to, which holds them as they were when the
+     * command was built.
+     */
+    private ExitCode executeCommand(DispatchTree.Node<BungeeCommandBuilder> node, CommandSender sender,
+            BungeeCommandBuilder builder, String label, List<String> args) {
         ExitCode exitCode;
-        Arguments a = new Arguments(args);
-        var variables = new TreeMap<String, String>();
-        variables.put("command", builder.getName());
-        variables.put("sender", sender.getName());
-        variables.put("player", sender.getName());
-        variables.put("uuid", (sender instanceof ProxiedPlayer) ? ((ProxiedPlayer) sender).getUniqueId().toString()
-                : "00000000-0000-0000-0000-000000000000");
-        variables.put("cooldown", getCooldown().toString());
-        variables.put("cooldown_remaining",
-                cooldownSenders.containsKey(sender)
-                        ? String.valueOf(getCooldown() - (System.currentTimeMillis() - cooldownSenders.get(sender)))
-                        : "0");
+        // Commands with a schema accept quoted arguments, so split the words again
+        Arguments a = node.getArgumentSchema() != null
+                ? node.getArgumentSchema().parse(CommandLine.parseWords(args))
+                : new Arguments(args);
+        // Senders which aren't players, such as the console, each get a key of their own
+        UUID senderId = (sender instanceof ProxiedPlayer) ? ((ProxiedPlayer) sender).getUniqueId()
+                : CooldownTracker.senderKey(sender.getClass().getName(), sender.getName());
+        // Variables are only turned into strings if the executor or error handler reads them
+        var variables = new LazyVariables(new CommandVariables(getSharedVariables(builder.getName()),
+                sender.getName(), (sender instanceof ProxiedPlayer) ? senderId : null,
+                "00000000-0000-0000-0000-000000000000", cooldowns.getRemaining(senderId)));
         try {
-            if (cooldownSenders.containsKey(sender)
-                    && ((System.currentTimeMillis() - cooldownSenders.get(sender)) < getCooldown())) {
-                exitCode = ExitCode.EXIT_COOLDOWN;
-            } else {
-
-                // Add our sender and their command execution time to our hashmap of coolness
-                cooldownSenders.put(sender, System.currentTimeMillis());
-
-                // If the user does not have permission to execute the sub command, don't let
-                // them execute and return permission denied
-                if (this.getPermission() != null && !sender.hasPermission(this.getPermission())) {
-                    exitCode = ExitCode.EXIT_PERMISSION_DENIED;
-                } else if (this.getRequiresPlayer() && !(sender instanceof ProxiedPlayer)) {
-                    exitCode = ExitCode.EXIT_MUST_BE_PLAYER;
-                } else {
-                    exitCode = executor.apply(sender, a, variables);
-                }
-            }
+            // Rate limits and the cooldown are only used up once the sender has
+            // permission to run the command
+            ExitCode denied = checkAccess(senderId,
+                    node.getPermission() == null || sender.hasPermission(node.getPermission()),
+                    sender instanceof ProxiedPlayer, node.isRequiresPlayer(), cooldowns, node.getCooldown());
+            exitCode = denied != null ? denied : executor.apply(sender, a, variables);
         } catch (Exception e) {
             exitCode = ExitCode.EXIT_ERROR;
             e.printStackTrace();
@@ -166,13 +170,14 @@ public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
         if (exitCode != ExitCode.EXIT_SUCCESS) {
             if (exitCode == ExitCode.EXIT_INFO) {
                 _playSound(sender, NotificationType.INFO);
-                return;
+                return exitCode;
             }
             errorHandler.apply(exitCode, sender, a, variables);
             _playSound(sender, NotificationType.ERROR);
         } else {
             _playSound(sender, NotificationType.SUCCESS);
         }
+        return exitCode;
     }
 
     /**
@@ -208,6 +213,32 @@ public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
         return this;
     }
 
+    /**
+     * Add a sub-command which lists the slowest commands, with their median and
+     * 99th percentile latencies, from {@link StickyAPI#getCommandMetrics()}.
+     * It takes an optional number of commands to list, which defaults to 10, and
+     * hands any errors to this command's error handler.
+     *
+     * @param name       of the sub-command
+     * @param permission needed to run the sub-command
+     * @return {@link CommandBuilder}
+     * @since 3.1
+     */
+    public BungeeCommandBuilder metricsSubCommand(@NotNull String name, @NotNull String permission) {
+        BungeeCommandBuilder metrics = new BungeeCommandBuilder(name).permission(permission)
+                .description("Show how long commands take to run").onExecute((sender, args, vars) -> {
+                    for (String line : StickyAPI.getCommandMetrics().report(args)) {
+                        sender.sendMessage(TextComponent.fromLegacyText(line));
+                    }
+                    return ExitCode.EXIT_SUCCESS;
+                }).onError((exitCode, sender, args, vars) -> {
+                    if (errorHandler != null) {
+                        errorHandler.apply(exitCode, sender, args, vars);
+                    }
+                });
+        return subCommand(metrics);
+    }
+
     /**
      * Build this BungeeCord command
      * 
@@ -216,6 +247,7 @@ public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
      * @return {@link Command}
      */
     public Command build(Plugin plugin) {
+        PlayerNameTracker.track(plugin);
         return new TabableCommand(this);
     }
 
@@ -232,45 +264,26 @@ public class BungeeCommandBuilder extends CommandBuilder<BungeeCommandBuilder> {
     private static class TabableCommand extends net.md_5.bungee.api.plugin.Command
             implements net.md_5.bungee.api.plugin.TabExecutor {
         BungeeCommandBuilder builder;
+        CommandCompleter completer;
+        DispatchTree<BungeeCommandBuilder> dispatchTree;
 
         public TabableCommand(BungeeCommandBuilder builder) {
             super(builder.getName(), builder.getPermission(), builder.getAliases().toArray(new String[0]));
             this.builder = builder;
+            this.completer = new CommandCompleter(builder, StickyAPI.getPlayerNames());
+            this.dispatchTree = DispatchTree.compile(builder);
         }
 
         public void execute(net.md_5.bungee.api.CommandSender sender, String[] args) {
-            // CommandSender sender, CommandBuilder builder, String label, List<String> args
-            if (builder.getSynchronous()) {
-                builder.performExecution(sender, builder, builder.getName(), Arrays.asList(args));
-            } else {
-                builder.performAsynchronousExecution(sender, builder, builder.getName(), Arrays.asList(args));
-            }
+            dispatch(dispatchTree.resolve(args), sender, builder, builder.getName(), Arrays.asList(args));
         }
 
         @Override
         public Iterable<String> onTabComplete(net.md_5.bungee.api.CommandSender sender, String[] args) {
             if (builder.tabExecutor != null)
                 return builder.tabExecutor.apply(sender, builder.getName(), new Arguments(Arrays.asList(args)));
-            else {
-                if (args.length == 0) {
-                    return ImmutableList.of();
-                }
-
-                String lastWord = args[args.length - 1];
-
-                ProxiedPlayer senderPlayer = sender instanceof ProxiedPlayer ? (ProxiedPlayer) sender : null;
-
-                ArrayList<String> matchedPlayers = new ArrayList<String>();
-                for (ProxiedPlayer player : ProxyServer.getInstance().getPlayers()) {
-                    String name = player.getName();
-                    if ((senderPlayer == null) && StringUtil.startsWithIgnoreCase(name, lastWord)) {
-                        matchedPlayers.add(name);
-                    }
-                }
-
-                Collections.sort(matchedPlayers, String.CASE_INSENSITIVE_ORDER);
-                return matchedPlayers;
-            }
+            else
+                return completer.complete(Arrays.asList(args));
         }
     }
 
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bungeecord.command;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.dumbdogdiner.stickyapi.common.command.CommandVariables;
+
+/**
+ * The variables of a command execution, as a {@link TreeMap} which only puts
+ * each variable into itself the first time it is looked up. Anything which
+ * needs every entry, such as iterating, checking the size or navigating, fills
+ * in the rest first. Variables the command replaces or removes are never filled
+ * in again. It is serialized as a plain {@link TreeMap} holding every variable.
+ */
+final class LazyVariables extends TreeMap<String, String> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient CommandVariables source;
+    private final transient BiConsumer<String, String> fill = super::put;
+
+    LazyVariables(CommandVariables source) {
+        this.source = source;
+    }
+
+    private void resolve(Object key) {
+        source.resolve(key, fill);
+    }
+
+    private void resolveAll() {
+        source.resolveAll(fill);
+    }
+
+    @Override
+    public String get(Object key) {
+        resolve(key);
+        return super.get(key);
+    }
+
+    @Override
+    public String getOrDefault(Object key, String defaultValue) {
+        resolve(key);
+        return super.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        resolve(key);
+        return super.containsKey(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        resolve(key);
+        return super.put(key, value);
+    }
+
+    @Override
+    public String putIfAbsent(String key, String value) {
+        resolve(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public String remove(Object key) {
+        resolve(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        resolve(key);
+        return super.remove(key, value);
+    }
+
+    @Override
+    public String replace(String key, String value) {
+        resolve(key);
+        return super.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, String oldValue, String newValue) {
+        resolve(key);
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public String computeIfAbsent(String key, Function<? super String, ? extends String> mappingFunction) {
+        resolve(key);
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public String computeIfPresent(String key,
+            BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        resolve(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public String compute(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        resolve(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public String merge(String key, String value,
+            BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        resolve(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> m) {
+        resolveAll();
+        super.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        source.discardAll();
+        super.clear();
+    }
+
+    @Override
+    public int size() {
+        resolveAll();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        resolveAll();
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        resolveAll();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        resolveAll();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<String> values() {
+        resolveAll();
+        return super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        resolveAll();
+        return super.entrySet();
+    }
+
+    @Override
+    public NavigableSet<String> navigableKeySet() {
+        resolveAll();
+        return super.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<String> descendingKeySet() {
+        resolveAll();
+        return super.descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<String, String> descendingMap() {
+        resolveAll();
+        return super.descendingMap();
+    }
+
+    @Override
+    public String firstKey() {
+        resolveAll();
+        return super.firstKey();
+    }
+
+    @Override
+    public String lastKey() {
+        resolveAll();
+        return super.lastKey();
+    }
+
+    @Override
+    public Map.Entry<String, String> firstEntry() {
+        resolveAll();
+        return super.firstEntry();
+    }
+
+    @Override
+    public Map.Entry<String, String> lastEntry() {
+        resolveAll();
+        return super.lastEntry();
+    }
+
+    @Override
+    public Map.Entry<String, String> pollFirstEntry() {
+        resolveAll();
+        return super.pollFirstEntry();
+    }
+
+    @Override
+    public Map.Entry<String, String> pollLastEntry() {
+        resolveAll();
+        return super.pollLastEntry();
+    }
+
+    @Override
+    public Map.Entry<String, String> lowerEntry(String key) {
+        resolveAll();
+        return super.lowerEntry(key);
+    }
+
+    @Override
+    public String lowerKey(String key) {
+        resolveAll();
+        return super.lowerKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, String> floorEntry(String key) {
+        resolveAll();
+        return super.floorEntry(key);
+    }
+
+    @Override
+    public String floorKey(String key) {
+        resolveAll();
+        return super.floorKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, String> ceilingEntry(String key) {
+        resolveAll();
+        return super.ceilingEntry(key);
+    }
+
+    @Override
+    public String ceilingKey(String key) {
+        resolveAll();
+        return super.ceilingKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, String> higherEntry(String key) {
+        resolveAll();
+        return super.higherEntry(key);
+    }
+
+    @Override
+    public String higherKey(String key) {
+        resolveAll();
+        return super.higherKey(key);
+    }
+
+    @Override
+    public NavigableMap<String, String> subMap(String fromKey, boolean fromInclusive, String toKey,
+            boolean toInclusive) {
+        resolveAll();
+        return super.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public SortedMap<String, String> subMap(String fromKey, String toKey) {
+        resolveAll();
+        return super.subMap(fromKey, toKey);
+    }
+
+    @Override
+    public NavigableMap<String, String> headMap(String toKey, boolean inclusive) {
+        resolveAll();
+        return super.headMap(toKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<String, String> headMap(String toKey) {
+        resolveAll();
+        return super.headMap(toKey);
+    }
+
+    @Override
+    public NavigableMap<String, String> tailMap(String fromKey, boolean inclusive) {
+        resolveAll();
+        return super.tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<String, String> tailMap(String fromKey) {
+        resolveAll();
+        return super.tailMap(fromKey);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        resolveAll();
+        super.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super String, ? extends String> function) {
+        resolveAll();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object clone() {
+        resolveAll();
+        return super.clone();
+    }
+
+    /**
+     * Serialize a copy holding every variable, since the variables this fills
+     * itself in from aren't serializable.
+     */
+    private Object writeReplace() {
+        return new TreeMap<>(this);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bungeecord.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.common.scheduler.Scheduler;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+import net.md_5.bungee.api.ProxyServer;
+import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.api.scheduler.ScheduledTask;
+
+/**
+ * Runs a {@link Scheduler}'s synchronous tasks every 50 milliseconds (one
+ * Minecraft tick).
+ * <p>
+ * BungeeCord has no main thread, so "synchronous" here means the tasks run one
+ * at a time on the same repeating proxy task.
+ * 
+ * @since 3.1
+ */
+public class BungeeSchedulerDriver {
+    @Getter
+    private final Scheduler scheduler;
+
+    private ScheduledTask task;
+
+    /**
+     * Create a new driver for the given scheduler.
+     * 
+     * @param scheduler to drive
+     */
+    public BungeeSchedulerDriver(@NotNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Start running the scheduler every tick.
+     * 
+     * @param plugin to run the task for
+     * @return {@link BungeeSchedulerDriver}
+     */
+    public synchronized BungeeSchedulerDriver start(@NotNull Plugin plugin) {
+        if (task != null) {
+            throw new IllegalStateException("This driver has already been started");
+        }
+        task = ProxyServer.getInstance().getScheduler().schedule(plugin, scheduler::schedule, 0L, 50L,
+                TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Stop running the scheduler. This should be called from the plugin's
+     * <code>onDisable()</code>.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Check if this driver is running.
+     * 
+     * @return {@link Boolean}
+     */
+    public synchronized boolean isRunning() {
+        return task != null;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.bungeecord.util;
+
+import com.dumbdogdiner.stickyapi.StickyAPI;
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.md_5.bungee.api.ProxyServer;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.event.PlayerDisconnectEvent;
+import net.md_5.bungee.api.event.PostLoginEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.event.EventHandler;
+import net.md_5.bungee.event.EventPriority;
+
+/**
+ * Keeps {@link StickyAPI#getPlayerNames()} up to date as players join and
+ * leave the proxy, so tab completion doesn't have to scan every online player.
+ * 
+ * @since 3.1
+ */
+public class PlayerNameTracker implements Listener {
+    private static PlayerNameTracker tracker;
+
+    private final PrefixTrie names;
+
+    private PlayerNameTracker(PrefixTrie names) {
+        this.names = names;
+    }
+
+    /**
+     * Start tracking player names, if they aren't tracked already.
+     * 
+     * @param plugin The plugin to register the listener for
+     */
+    public static synchronized void track(@NotNull Plugin plugin) {
+        if (tracker != null) {
+            return;
+        }
+        tracker = new PlayerNameTracker(StickyAPI.getPlayerNames());
+        tracker.names.clear();
+        for (ProxiedPlayer player : ProxyServer.getInstance().getPlayers()) {
+            tracker.names.add(player.getName());
+        }
+        ProxyServer.getInstance().getPluginManager().registerListener(plugin, tracker);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPostLogin(PostLoginEvent event) {
+        names.add(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onDisconnect(PlayerDisconnectEvent event) {
+        names.remove(event.getPlayer().getName());
+    }
+}
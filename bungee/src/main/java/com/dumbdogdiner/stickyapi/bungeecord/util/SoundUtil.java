@@ -4,12 +4,19 @@
  */
 package com.dumbdogdiner.stickyapi.bungeecord.util;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 import com.dumbdogdiner.stickyapi.StickyAPI;
 import com.dumbdogdiner.stickyapi.bungeecord.packet.SoundPacket;
 import com.dumbdogdiner.stickyapi.common.util.NotificationType;
 
 import org.jetbrains.annotations.NotNull;
 
+import lombok.Getter;
+import lombok.Setter;
+
 import net.md_5.bungee.api.CommandSender;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 
@@ -19,6 +26,14 @@ import net.md_5.bungee.api.connection.ProxiedPlayer;
 public class SoundUtil {
     private SoundUtil() {
     }
+
+    /**
+     * The name of the pool (registered with {@link StickyAPI#getExecutors()}) to
+     * play sounds on, or null to use the global pool.
+     */
+    @Getter
+    @Setter
+    private static String poolName;
     
     /**
      * Check if the parsed sender can receive sounds. Returns true if valid.
@@ -37,23 +52,24 @@ public class SoundUtil {
      * @param sound  The sound to play
      * @param volume The volume of the sound
      * @param pitch  The pitch of the sound
-     * @param delay  T
+     * @param delay  The delay in milliseconds before the sound is played
      */
     @SuppressWarnings("deprecation") // SoundPacket is deprecated
     public static void queueSound(@NotNull ProxiedPlayer player, @NotNull Sound sound, @NotNull float volume,
             @NotNull float pitch, @NotNull Long delay) {
-        StickyAPI.getPool().submit(() -> {
-            try {
-                Thread.sleep(delay);
-                // So, since we don't have the player's position (yet...) So, we have to play
-                // this at the center of the world
-                // at the max volume... Yes, this distorts the sound, please hold while I map
-                // more packets
-                // so I can obtain the player's position and play the sound that way... -zach
-                player.unsafe().sendPacket(new SoundPacket(sound.getId(), 0, 0, 255, 0, Float.MAX_VALUE, pitch));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        // Hand delayed sounds to the pool once the delay has elapsed, rather than
+        // sleeping inside it. The pool is looked up then, in case it was switched
+        Executor executor = delay > 0
+                ? CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS,
+                        task -> StickyAPI.getPool(poolName).execute(task))
+                : StickyAPI.getPool(poolName);
+        executor.execute(() -> {
+            // So, since we don't have the player's position (yet...) So, we have to play
+            // this at the center of the world
+            // at the max volume... Yes, this distorts the sound, please hold while I map
+            // more packets
+            // so I can obtain the player's position and play the sound that way... -zach
+            player.unsafe().sendPacket(new SoundPacket(sound.getId(), 0, 0, 255, 0, Float.MAX_VALUE, pitch));
         });
     }
 
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 
+import com.dumbdogdiner.stickyapi.StickyAPI;
 import com.dumbdogdiner.stickyapi.annotation.Untested;
 import com.dumbdogdiner.stickyapi.common.config.providers.YamlProvider;
 import com.dumbdogdiner.stickyapi.common.translation.LocaleProvider;
@@ -100,4 +101,17 @@ public class StartupUtil {
 
         return localeProvider;
     }
+
+    /**
+     * Shut down the named pools owned by the plugin (see
+     * {@link com.dumbdogdiner.stickyapi.common.scheduler.PoolBuilder#owner(String)}).
+     * BungeeCord has no plugin disable event, so this should be called from the
+     * plugin's <code>onDisable()</code>.
+     * 
+     * @param plugin The plugin's main class
+     * @return The number of pools that were shut down
+     */
+    public static int shutdownExecutors(@NotNull Plugin plugin) {
+        return StickyAPI.getExecutors().shutdown(plugin.getDescription().getName());
+    }
 }
@@ -8,11 +8,19 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
+import com.dumbdogdiner.stickyapi.common.command.CommandMetrics;
+import com.dumbdogdiner.stickyapi.common.command.CommandProfiler;
+import com.dumbdogdiner.stickyapi.common.scheduler.ExecutionMode;
+import com.dumbdogdiner.stickyapi.common.scheduler.ExecutorRegistry;
+import com.dumbdogdiner.stickyapi.common.util.MemoryMonitor;
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import lombok.Getter;
-import lombok.Setter;
 
 /**
  * <h1>StickyAPI</h1> Utility methods, classes and potentially
@@ -27,9 +35,131 @@ public class StickyAPI {
     @Getter
     public static Logger logger = Logger.getLogger("StickyAPI");
 
+    /**
+     * The mode used to create the current {@link #getPool() pool}, or null if the
+     * pool was set with {@link #setPool(ExecutorService)}.
+     * 
+     * @since 3.1
+     * @return {@link ExecutionMode} mode
+     */
+    @Getter
+    private static volatile ExecutionMode executionMode = ExecutionMode.getDefault();
+
+    @Getter
+    private static volatile ExecutorService pool = executionMode.createExecutor();
+
+    /**
+     * The registry of named, bounded pools that commands and utilities can target
+     * instead of the global {@link #getPool() pool}.
+     * 
+     * @since 3.1
+     * @return {@link ExecutorRegistry} registry
+     */
+    @Getter
+    private static final ExecutorRegistry executors = new ExecutorRegistry();
+
+    /**
+     * Get a named pool from the {@link #getExecutors() registry}, falling back to
+     * the global {@link #getPool() pool} if the name is null or no pool with that
+     * name is registered.
+     * 
+     * @since 3.1
+     * @param name The name of the pool
+     * @return {@link ExecutorService} pool
+     */
+    public static ExecutorService getPool(@Nullable String name) {
+        if (name == null) {
+            return pool;
+        }
+        ExecutorService named = executors.get(name);
+        return named == null ? pool : named;
+    }
+
+    /**
+     * Switch the pool used for asynchronous work (async commands, sound sequencing,
+     * etc.) to a new executor created with the given mode. Tasks already submitted
+     * to the old pool are allowed to finish.
+     * <p>
+     * If the mode is not supported by the current runtime,
+     * {@link ExecutionMode#WORK_STEALING} is used instead.
+     * 
+     * @since 3.1
+     * @param mode The execution mode to use
+     */
+    public static synchronized void setExecutionMode(@NotNull ExecutionMode mode) {
+        if (!mode.isSupported()) {
+            logger.warning("Execution mode " + mode + " is not supported by this runtime, falling back to "
+                    + ExecutionMode.WORK_STEALING);
+            mode = ExecutionMode.WORK_STEALING;
+        }
+
+        ExecutorService old = pool;
+        boolean owned = executionMode != null;
+        pool = mode.createExecutor();
+        executionMode = mode;
+        if (owned) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * Replace the pool used for asynchronous work with an executor managed by the
+     * caller. If the old pool was created by
+     * {@link #setExecutionMode(ExecutionMode)}, tasks already submitted to it are
+     * allowed to finish before it shuts down. A pool set here is never shut down
+     * by StickyAPI.
+     * 
+     * @param pool The executor to use
+     */
+    public static synchronized void setPool(@NotNull ExecutorService pool) {
+        ExecutorService old = StickyAPI.pool;
+        boolean owned = executionMode != null;
+        StickyAPI.pool = pool;
+        executionMode = null;
+        if (owned && old != pool) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * The shared heap pressure monitor. It isn't started until something calls
+     * {@link MemoryMonitor#start()}.
+     * 
+     * @since 3.1
+     * @return {@link MemoryMonitor} monitor
+     */
+    @Getter
+    private static final MemoryMonitor memoryMonitor = new MemoryMonitor();
+
+    /**
+     * Per-command allocation and CPU time totals, recorded around every command
+     * execution.
+     * 
+     * @since 3.1
+     * @return {@link CommandProfiler} profiler
+     */
+    @Getter
+    private static final CommandProfiler commandProfiler = new CommandProfiler();
+
+    /**
+     * Per-command wait and latency histograms and exit code counts, recorded
+     * around every command execution.
+     * 
+     * @since 3.1
+     * @return {@link CommandMetrics} metrics
+     */
+    @Getter
+    private static final CommandMetrics commandMetrics = new CommandMetrics();
+
+    /**
+     * The names of online players, used to tab complete commands. Kept up to date
+     * by the Bukkit and BungeeCord command builders once a command is built.
+     * 
+     * @since 3.1
+     * @return {@link PrefixTrie} names
+     */
     @Getter
-    @Setter
-    private static ExecutorService pool = Executors.newCachedThreadPool();
+    private static final PrefixTrie playerNames = new PrefixTrie();
 
     // Build Info Start
 
@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.arguments;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+import com.dumbdogdiner.stickyapi.common.util.TimeUtil;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The arguments a command accepts, declared once and reused for every
+ * invocation.
+ * <p>
+ * A schema is declared with the same methods as {@link Arguments}, and is
+ * compiled into a parse plan the first time it is used. Each argument gets a
+ * slot, and parsing writes its typed value straight into that slot, so the
+ * arguments are never copied, mutated or re-parsed.
+ *
+ * <pre>
+ * private static final ArgumentSchema BAN = new ArgumentSchema()
+ *         .optionalFlag("silent", "-s")
+ *         .requiredString("player")
+ *         .optionalDuration("duration")
+ *         .optionalSentence("reason", "No reason given");
+ *
+ * Arguments args = BAN.parse(input);
+ * </pre>
+ *
+ * Unlike {@link Arguments}, flags are picked out before any other argument no
+ * matter where they were declared, so a flag is never taken as the value of a
+ * string argument. When parsing a {@link CommandLine}, quoted arguments are
+ * single arguments, and sentences are copied out of the line as they were
+ * typed.
+ *
+ * @since 3.1
+ */
+public final class ArgumentSchema {
+    enum Type {
+        FLAG, STRING, SENTENCE, INT, TIMESTAMP, DURATION
+    }
+
+    /**
+     * A single declared argument.
+     */
+    static final class Slot {
+        final int index;
+        final String name;
+        final Type type;
+        final boolean required;
+        /**
+         * The flag to look for, if this is a flag.
+         */
+        final String flag;
+        final Object fallback;
+        /**
+         * The length of a sentence in words, or -1 to take every remaining word.
+         */
+        final int length;
+
+        Slot(int index, String name, Type type, boolean required, String flag, Object fallback, int length) {
+            this.index = index;
+            this.name = name;
+            this.type = type;
+            this.required = required;
+            this.flag = flag;
+            this.fallback = fallback;
+            this.length = length;
+        }
+    }
+
+    private final List<Slot> declared = new ArrayList<>();
+    private final HashMap<String, Integer> slots = new HashMap<>();
+
+    private final HashMap<String, PrefixTrie> suggestions = new HashMap<>();
+
+    private volatile Slot[] flags;
+    private Slot[] positionals;
+    private PrefixTrie flagNames;
+
+    private Slot declare(String name, Type type, boolean required, String flag, Object fallback, int length) {
+        if (flags != null) {
+            throw new IllegalStateException("Cannot declare argument " + name + " after the schema is compiled");
+        }
+        if (slots.containsKey(name)) {
+            throw new IllegalArgumentException("Argument " + name + " is already declared");
+        }
+        Slot slot = new Slot(declared.size(), name, type, required, flag, fallback, length);
+        declared.add(slot);
+        slots.put(name, slot.index);
+        return slot;
+    }
+
+    /**
+     * Create an optional flag.
+     *
+     * @param flag The name of this flag, and flag to register
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalFlag(@NotNull String flag) {
+        return optionalFlag(flag, flag);
+    }
+
+    /**
+     * Create an optional flag.
+     *
+     * @param name The name of this flag
+     * @param flag The flag to register
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalFlag(@NotNull String name, @NotNull String flag) {
+        declare(name, Type.FLAG, false, flag, null, 1);
+        return this;
+    }
+
+    /**
+     * Create a required flag.
+     *
+     * @param name The name of this flag
+     * @param flag The flag to register
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredFlag(@NotNull String name, @NotNull String flag) {
+        declare(name, Type.FLAG, true, flag, null, 1);
+        return this;
+    }
+
+    /**
+     * Create an optional string argument.
+     *
+     * @param name The name of this string
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalString(@NotNull String name) {
+        return optionalString(name, null);
+    }
+
+    /**
+     * Create an optional string argument with a default value.
+     *
+     * @param name     The name of this string
+     * @param fallback The default value of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalString(@NotNull String name, @Nullable String fallback) {
+        declare(name, Type.STRING, false, null, fallback, 1);
+        return this;
+    }
+
+    /**
+     * Create a required string argument.
+     *
+     * @param name The name of this string
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredString(@NotNull String name) {
+        declare(name, Type.STRING, true, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Create an optional sentence argument, taking every remaining word.
+     *
+     * @param name The name of this sentence
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalSentence(@NotNull String name) {
+        return optionalSentence(name, null, -1);
+    }
+
+    /**
+     * Create an optional sentence argument, taking every remaining word.
+     *
+     * @param name     The name of this sentence
+     * @param fallback The fallback sentence to use if one is not provided
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalSentence(@NotNull String name, @Nullable String fallback) {
+        return optionalSentence(name, fallback, -1);
+    }
+
+    /**
+     * Create an optional sentence with the given length.
+     *
+     * @param name     The name of this sentence
+     * @param fallback The fallback sentence to use if one is not provided
+     * @param length   The length of the sentence in words
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalSentence(@NotNull String name, @Nullable String fallback, int length) {
+        declare(name, Type.SENTENCE, false, null, fallback, length);
+        return this;
+    }
+
+    /**
+     * Create a required sentence argument, taking every remaining word.
+     *
+     * @param name The name of this sentence
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredSentence(@NotNull String name) {
+        return requiredSentence(name, -1);
+    }
+
+    /**
+     * Create a required sentence argument with the given length.
+     *
+     * @param name   The name of this sentence
+     * @param length The length of the sentence in words
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredSentence(@NotNull String name, int length) {
+        declare(name, Type.SENTENCE, true, null, null, length);
+        return this;
+    }
+
+    /**
+     * Create an optional timestamp argument. (e.g. 1w2d5s)
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalTimeString(@NotNull String name) {
+        declare(name, Type.TIMESTAMP, false, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Create a required timestamp argument. (e.g. 1w2d5s)
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredTimeString(@NotNull String name) {
+        declare(name, Type.TIMESTAMP, true, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Create an optional integer argument.
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalInt(@NotNull String name) {
+        return optionalInt(name, null);
+    }
+
+    /**
+     * Create an optional integer argument.
+     *
+     * @param name     The name of the argument
+     * @param fallback The fallback integer to use if one is not provided
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalInt(@NotNull String name, @Nullable Integer fallback) {
+        declare(name, Type.INT, false, null, fallback, 1);
+        return this;
+    }
+
+    /**
+     * Create a required integer argument.
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredInt(@NotNull String name) {
+        declare(name, Type.INT, true, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Create an optional duration argument.
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema optionalDuration(@NotNull String name) {
+        declare(name, Type.DURATION, false, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Create a required duration argument.
+     *
+     * @param name The name of the argument
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema requiredDuration(@NotNull String name) {
+        declare(name, Type.DURATION, true, null, null, 1);
+        return this;
+    }
+
+    /**
+     * Compile this schema into its parse plan. This happens automatically the
+     * first time the schema is used, after which no more arguments can be
+     * declared.
+     *
+     * @return {@link ArgumentSchema}
+     */
+    public synchronized ArgumentSchema compile() {
+        if (flags != null) {
+            return this;
+        }
+        List<Slot> flags = new ArrayList<>();
+        List<Slot> positionals = new ArrayList<>();
+        for (Slot slot : declared) {
+            (slot.type == Type.FLAG ? flags : positionals).add(slot);
+        }
+        this.flagNames = new PrefixTrie();
+        for (Slot slot : flags) {
+            flagNames.add(slot.flag);
+        }
+        this.positionals = positionals.toArray(new Slot[0]);
+        this.flags = flags.toArray(new Slot[0]);
+        return this;
+    }
+
+    /**
+     * Suggest values for an argument when its command is tab completed. Arguments
+     * without suggestions are completed with the names of online players.
+     *
+     * @param name        The name of the argument
+     * @param suggestions The values to suggest
+     * @return {@link ArgumentSchema}
+     */
+    public ArgumentSchema suggest(@NotNull String name, @NotNull String... suggestions) {
+        if (flags != null) {
+            throw new IllegalStateException("Cannot add suggestions after the schema is compiled");
+        }
+        if (!slots.containsKey(name)) {
+            throw new IllegalArgumentException("Argument " + name + " is not declared");
+        }
+        PrefixTrie trie = this.suggestions.computeIfAbsent(name, key -> new PrefixTrie());
+        for (String suggestion : suggestions) {
+            trie.add(suggestion);
+        }
+        return this;
+    }
+
+    /**
+     * Get the suggested values for a positional argument, ignoring flags.
+     *
+     * @param position The position of the argument
+     * @return {@link PrefixTrie}, or null if the argument has no suggestions
+     */
+    public PrefixTrie getSuggestions(int position) {
+        if (flags == null) {
+            compile();
+        }
+        if (position < 0 || position >= positionals.length) {
+            return null;
+        }
+        return suggestions.get(positionals[position].name);
+    }
+
+    /**
+     * Get the flags this schema accepts.
+     *
+     * @return {@link PrefixTrie}
+     */
+    public PrefixTrie getFlags() {
+        if (flags == null) {
+            compile();
+        }
+        return flagNames;
+    }
+
+    /**
+     * Check if a word is one of the flags this schema accepts.
+     *
+     * @param word The word to check
+     * @return {@link Boolean}
+     */
+    public boolean isFlag(@NotNull CharSequence word) {
+        if (flags == null) {
+            compile();
+        }
+        for (Slot slot : flags) {
+            if (slot.flag.contentEquals(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of declared arguments.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return declared.size();
+    }
+
+    /**
+     * Get the slot of the given argument.
+     *
+     * @param name The name of the argument
+     * @return {@link Integer}, or -1 if there is no argument with this name
+     */
+    public int slot(@NotNull String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Parse the given arguments.
+     *
+     * @param args Arguments to parse
+     * @return {@link Arguments}
+     */
+    public Arguments parse(@NotNull List<String> args) {
+        if (flags == null) {
+            compile();
+        }
+
+        int count = args.size();
+        Object[] values = new Object[declared.size()];
+        boolean[] consumed = new boolean[count];
+        String invalidatedBy = null;
+
+        for (Slot slot : flags) {
+            for (int i = 0; i < count; i++) {
+                if (!consumed[i] && matches(args, i, slot.flag)) {
+                    consumed[i] = true;
+                    values[slot.index] = slot.flag;
+                    break;
+                }
+            }
+            if (slot.required && values[slot.index] == null && invalidatedBy == null) {
+                invalidatedBy = slot.name;
+            }
+        }
+
+        int remaining = count;
+        for (boolean flag : consumed) {
+            if (flag) {
+                remaining--;
+            }
+        }
+
+        int position = next(consumed, 0);
+        for (Slot slot : positionals) {
+            Object value = null;
+            int taken = 0;
+            if (remaining > 0) {
+                String arg = args.get(position);
+                switch (slot.type) {
+                    case STRING:
+                        value = arg;
+                        taken = 1;
+                        break;
+                    case INT:
+                        value = Arguments.parseInteger(arg);
+                        taken = 1;
+                        break;
+                    case TIMESTAMP:
+                        value = TimeUtil.toTimestamp(arg);
+                        taken = 1;
+                        break;
+                    case DURATION:
+                        value = Arguments.parseDuration(arg);
+                        taken = 1;
+                        break;
+                    case SENTENCE:
+                        taken = slot.length < 0 ? remaining : slot.length;
+                        if (taken > 0 && taken <= remaining) {
+                            value = join(args, consumed, position, taken);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            if (value == null) {
+                if (slot.required && invalidatedBy == null) {
+                    invalidatedBy = slot.name;
+                }
+                values[slot.index] = slot.fallback;
+                continue;
+            }
+            values[slot.index] = value;
+            remaining -= taken;
+            for (int i = 0; i < taken; i++) {
+                position = next(consumed, position + 1);
+            }
+        }
+
+        ArrayList<String> unparsed = new ArrayList<>(remaining);
+        for (int i = position; i < count && remaining > 0; i = next(consumed, i + 1)) {
+            unparsed.add(args.get(i));
+        }
+        return new Arguments(args, this, values, unparsed, invalidatedBy);
+    }
+
+    private static int next(boolean[] consumed, int from) {
+        while (from < consumed.length && consumed[from]) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean matches(List<String> args, int index, String flag) {
+        if (args instanceof CommandLine) {
+            return ((CommandLine) args).matches(index, flag);
+        }
+        return flag.equals(args.get(index));
+    }
+
+    private static String join(List<String> args, boolean[] consumed, int position, int words) {
+        if (words == 1) {
+            return args.get(position);
+        }
+        if (args instanceof CommandLine) {
+            String sentence = span((CommandLine) args, consumed, position, words);
+            if (sentence != null) {
+                return sentence;
+            }
+        }
+        StringBuilder builder = new StringBuilder(args.get(position));
+        for (int i = 1; i < words; i++) {
+            position = next(consumed, position + 1);
+            builder.append(' ').append(args.get(position));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Copy a sentence straight out of a command line, as it was typed, if none of
+     * its words were quoted and no flags were taken from the middle of it.
+     */
+    private static String span(CommandLine line, boolean[] consumed, int position, int words) {
+        int last = position + words - 1;
+        for (int i = position; i <= last; i++) {
+            if (consumed[i] || line.isQuoted(i)) {
+                return null;
+            }
+        }
+        return line.span(position, last).toString();
+    }
+}
@@ -5,11 +5,13 @@
 package com.dumbdogdiner.stickyapi.common.arguments;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 
 import com.dumbdogdiner.stickyapi.common.util.Debugger;
 import com.dumbdogdiner.stickyapi.common.util.NumberUtil;
@@ -21,6 +23,12 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * Utility class for handling command arguments.
+ * <p>
+ * Arguments are parsed once, when they are declared, and stored as typed
+ * values: strings and flags as {@link String}, integers as {@link Integer}
+ * (or {@link Long} if they are too large), time strings as {@link Timestamp}
+ * and durations as {@link Duration}, along with the text they were given as.
+ * The getters read these back without parsing them again.
  */
 public class Arguments {
     @Getter
@@ -28,7 +36,14 @@ public class Arguments {
 
     @Getter
     private ArrayList<String> unparsedArgs;
-    private HashMap<String, String> parsedArgs = new HashMap<>();
+    private HashMap<String, Object> parsedArgs = new HashMap<>();
+
+    /**
+     * The schema these arguments were parsed with, if any, and the values it
+     * parsed, indexed by slot.
+     */
+    private final ArgumentSchema schema;
+    private final Object[] values;
 
     @Getter
     private String invalidatedBy;
@@ -38,7 +53,7 @@ public class Arguments {
     private final Debugger debug = new Debugger(getClass());
 
     public void invalidate(@NotNull String name) {
-        debug.print("Invalidated by argument " + name);
+        debug.print("Invalidated by argument %s", name);
         invalidatedBy = name;
         valid = false;
     }
@@ -61,6 +76,82 @@ public class Arguments {
     public Arguments(@NotNull List<String> args) {
         unparsedArgs = new ArrayList<String>(args);
         rawArgs = Collections.unmodifiableList(args);
+        schema = null;
+        values = null;
+    }
+
+    /**
+     * Construct arguments which have already been parsed by an
+     * {@link ArgumentSchema}.
+     */
+    Arguments(List<String> args, ArgumentSchema schema, Object[] values, ArrayList<String> unparsedArgs,
+            String invalidatedBy) {
+        this.rawArgs = Collections.unmodifiableList(args);
+        this.unparsedArgs = unparsedArgs;
+        this.schema = schema;
+        this.values = values;
+        if (invalidatedBy != null) {
+            invalidate(invalidatedBy);
+        }
+    }
+
+    /**
+     * Look up the value of an argument, from the schema these arguments were
+     * parsed with first.
+     */
+    private Object value(String name) {
+        if (schema != null) {
+            int slot = schema.slot(name);
+            if (slot >= 0) {
+                return values[slot];
+            }
+        }
+        return parsedArgs.get(name);
+    }
+
+    /**
+     * Parse an unsigned whole number, as an {@link Integer} if it fits in one.
+     *
+     * @return {@link Number}, or null if the argument isn't a number or doesn't
+     *         fit in a long
+     */
+    static Number parseInteger(String arg) {
+        if (arg.isEmpty() || !NumberUtil.isNumeric(arg)) {
+            return null;
+        }
+        long value = NumberUtil.parseLong(arg, -1);
+        if (value < 0) {
+            return null;
+        }
+        return value <= Integer.MAX_VALUE ? (Number) Integer.valueOf((int) value) : (Number) Long.valueOf(value);
+    }
+
+    /**
+     * A parsed duration, and the text it was parsed from.
+     */
+    static final class ParsedDuration {
+        final String text;
+        final Duration duration;
+
+        ParsedDuration(String text, Duration duration) {
+            this.text = text;
+            this.duration = duration;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Parse a duration, such as {@code 1w2d5s}.
+     *
+     * @return {@link ParsedDuration}, or null if the argument isn't a duration
+     */
+    static ParsedDuration parseDuration(String arg) {
+        Optional<Long> seconds = TimeUtil.duration(arg);
+        return seconds.isPresent() ? new ParsedDuration(arg, Duration.ofSeconds(seconds.get())) : null;
     }
 
     /**
@@ -82,14 +173,14 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments optionalFlag(@NotNull String name, @NotNull String flag) {
-        debug.print("Looking for optional flag " + name + "...");
+        debug.print("Looking for optional flag %s...", name);
         int index = unparsedArgs.indexOf(flag);
         if (index == -1) {
             debug.print("Could not find flag");
             return this;
         }
 
-        debug.print("Found flag at position " + index + " - new args size = " + unparsedArgs.size());
+        debug.print("Found flag at position %d - new args size = %d", index, unparsedArgs.size());
 
         parsedArgs.put(name, unparsedArgs.get(index));
         unparsedArgs.remove(index);
@@ -105,7 +196,7 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredFlag(@NotNull String name, @NotNull String flag) {
-        debug.print("Looking for required flag " + name + "...");
+        debug.print("Looking for required flag %s...", name);
         int index = unparsedArgs.indexOf(flag);
         if (index == -1) {
             invalidate(name);
@@ -113,7 +204,7 @@ public class Arguments {
             return this;
         }
 
-        debug.print("Found flag at position " + String.valueOf(index));
+        debug.print("Found flag at position %d", index);
 
         parsedArgs.put(name, unparsedArgs.get(index));
         unparsedArgs.remove(index);
@@ -122,14 +213,13 @@ public class Arguments {
     }
 
     private Arguments optionalStringImplementation(String name, String fallback) {
-        debug.print("Looking for optional string " + name + "...");
+        debug.print("Looking for optional string %s...", name);
         if (unparsedArgs.size() > position) {
             parsedArgs.put(name, unparsedArgs.get(position));
             unparsedArgs.remove(position);
-            debug.print("Found string at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found string at position %d - new args size = %d", position, unparsedArgs.size());
         } else {
-            debug.print("Could not find string, using default value of " + fallback);
+            debug.print("Could not find string, using default value of %s", fallback);
             parsedArgs.put(name, fallback);
         }
 
@@ -165,11 +255,11 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredString(String name) {
-        debug.print("Looking for required string " + name + "...");
+        debug.print("Looking for required string %s...", name);
 
         if (unparsedArgs.size() > position) {
             parsedArgs.put(name, unparsedArgs.get(position));
-            debug.print("Found string at position " + String.valueOf(position));
+            debug.print("Found string at position %d", position);
             position++;
         } else {
             debug.print("Could not find string - marking as invalid");
@@ -181,18 +271,17 @@ public class Arguments {
 
     private Arguments optionalSentenceImplementation(String name, String fallback, int length) {
         int end = position + length;
-        debug.print("Looking for optional sentence - start = " + String.valueOf(position) + ", end = "
-                + String.valueOf(end) + ", length = " + String.valueOf(length));
+        debug.print("Looking for optional sentence - start = %d, end = %d, length = %d", position, end, length);
 
         if (position >= end) {
-            debug.print("Start cannot be greater than or equal to end, using default value of " + fallback);
+            debug.print("Start cannot be greater than or equal to end, using default value of %s", fallback);
             parsedArgs.put(name, fallback);
             return this;
         }
 
         if (unparsedArgs.size() < position + length) {
-            debug.print("Could not find sentence of appropriate length (args are size " + String.valueOf(position)
-                    + ") using default value of " + fallback);
+            debug.print("Could not find sentence of appropriate length (args are size %d) using default value of %s",
+                    position, fallback);
             parsedArgs.put(name, fallback);
             return this;
         }
@@ -205,8 +294,7 @@ public class Arguments {
             unparsedArgs.subList(position, end).clear();
         }
 
-        debug.print("Found sentence of length " + String.valueOf(length) + " - new args size = "
-                + String.valueOf(unparsedArgs.size()));
+        debug.print("Found sentence of length %d - new args size = %d", length, unparsedArgs.size());
 
         return this;
     }
@@ -219,7 +307,7 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments optionalSentence(@NotNull String name) {
-        debug.print("Using default length: " + String.valueOf(unparsedArgs.size() - position));
+        debug.print("Using default length: %d", unparsedArgs.size() - position);
         return optionalSentence(name, unparsedArgs.size() - position);
     }
 
@@ -232,7 +320,7 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments optionalSentence(@NotNull String name, @Nullable String fallback) {
-        debug.print("Using default length: " + String.valueOf(unparsedArgs.size() - position));
+        debug.print("Using default length: %d", unparsedArgs.size() - position);
         return optionalSentence(name, fallback, unparsedArgs.size() - position);
     }
 
@@ -248,7 +336,7 @@ public class Arguments {
         if (fallback != null) {
             return optionalSentenceImplementation(name, fallback, length);
         } else {
-            debug.print("Explicit fallback string of null attempted for parameter " + name + ", argument not added.");
+            debug.print("Explicit fallback string of null attempted for parameter %s, argument not added.", name);
             return this;
         }
     }
@@ -273,7 +361,7 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredSentence(@NotNull String name) {
-        debug.print("Using default length: " + String.valueOf(unparsedArgs.size() - position));
+        debug.print("Using default length: %d", unparsedArgs.size() - position);
         return requiredSentence(name, unparsedArgs.size() - position);
     }
 
@@ -286,8 +374,7 @@ public class Arguments {
      */
     public Arguments requiredSentence(@NotNull String name, @NotNull int length) {
         int end = position + length;
-        debug.print("Looking for required sentence - start = " + String.valueOf(position) + ", end = "
-                + String.valueOf(end) + ", length = " + String.valueOf(length));
+        debug.print("Looking for required sentence - start = %d, end = %d, length = %d", position, end, length);
 
         // Usually means there aren't enough args left
         if (position >= end) {
@@ -298,8 +385,8 @@ public class Arguments {
 
         if (unparsedArgs.size() < position + length) {
             invalidate(name);
-            debug.print("Could not find sentence of appropriate length (args are size "
-                    + String.valueOf(unparsedArgs.size()) + ") - marking as invalid");
+            debug.print("Could not find sentence of appropriate length (args are size %d) - marking as invalid",
+                    unparsedArgs.size());
             return this;
         }
 
@@ -309,7 +396,7 @@ public class Arguments {
 
         position += length;
 
-        debug.print("Found sentence of length " + String.valueOf(length));
+        debug.print("Found sentence of length %d", length);
 
         return this;
     }
@@ -321,12 +408,12 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments optionalTimeString(@NotNull String name) {
-        debug.print("Looking for optional timestamp " + name + "...");
-        if (unparsedArgs.size() > position && TimeUtil.toTimestamp(unparsedArgs.get(position)) != null) {
-            parsedArgs.put(name, String.valueOf(TimeUtil.toTimestamp(unparsedArgs.get(position)).getTime()));
+        debug.print("Looking for optional timestamp %s...", name);
+        Timestamp timestamp = unparsedArgs.size() > position ? TimeUtil.toTimestamp(unparsedArgs.get(position)) : null;
+        if (timestamp != null) {
+            parsedArgs.put(name, timestamp);
             unparsedArgs.remove(position);
-            debug.print("Found timestamp at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found timestamp at position %d - new args size = %d", position, unparsedArgs.size());
         } else
             debug.print("Could not find timestamp");
 
@@ -340,12 +427,12 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredTimeString(@NotNull String name) {
-        debug.print("Looking for required timestamp " + name + "...");
-        if (unparsedArgs.size() > position && TimeUtil.toTimestamp(unparsedArgs.get(position)) != null) {
-            parsedArgs.put(name, String.valueOf(TimeUtil.toTimestamp(unparsedArgs.get(position)).getTime()));
+        debug.print("Looking for required timestamp %s...", name);
+        Timestamp timestamp = unparsedArgs.size() > position ? TimeUtil.toTimestamp(unparsedArgs.get(position)) : null;
+        if (timestamp != null) {
+            parsedArgs.put(name, timestamp);
             position++;
-            debug.print("Found timestamp at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found timestamp at position %d - new args size = %d", position, unparsedArgs.size());
         } else {
             debug.print("Could not find timestamp");
             invalidate(name);
@@ -355,15 +442,15 @@ public class Arguments {
     }
 
     private Arguments optionalIntImplementation(@NotNull String name, @NotNull Integer fallback) {
-        debug.print("Looking for optional integer " + name + "...");
-        if (unparsedArgs.size() > position && NumberUtil.isNumeric(unparsedArgs.get(position))) {
-            parsedArgs.put(name, unparsedArgs.get(position));
+        debug.print("Looking for optional integer %s...", name);
+        Number number = unparsedArgs.size() > position ? parseInteger(unparsedArgs.get(position)) : null;
+        if (number != null) {
+            parsedArgs.put(name, number);
             position++;
-            debug.print("Found int at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found int at position %d - new args size = %d", position, unparsedArgs.size());
         } else {
-            debug.print("Could not find int, using default value of " + fallback);
-            parsedArgs.put(name, fallback.toString());
+            debug.print("Could not find int, using default value of %s", fallback);
+            parsedArgs.put(name, fallback);
         }
 
         return this;
@@ -391,7 +478,7 @@ public class Arguments {
         if (fallback != null) {
             return optionalIntImplementation(name, fallback);
         } else {
-            debug.print("Explicit fallback integer of null attempted for parameter " + name + ", argument not added.");
+            debug.print("Explicit fallback integer of null attempted for parameter %s, argument not added.", name);
             return this;
         }
     }
@@ -403,13 +490,13 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredInt(@NotNull String name) {
-        debug.print("Looking for optional required " + name + "...");
+        debug.print("Looking for optional required %s...", name);
 
-        if (unparsedArgs.size() > position && NumberUtil.isNumeric(unparsedArgs.get(position))) {
-            parsedArgs.put(name, unparsedArgs.get(position));
+        Number number = unparsedArgs.size() > position ? parseInteger(unparsedArgs.get(position)) : null;
+        if (number != null) {
+            parsedArgs.put(name, number);
             position++;
-            debug.print("Found int at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found int at position %d - new args size = %d", position, unparsedArgs.size());
         } else {
             debug.print("Could not find int - marking as invalid");
             invalidate(name);
@@ -425,13 +512,13 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments optionalDuration(@NotNull String name) {
-        debug.print("Looking for optional duration " + name + "...");
+        debug.print("Looking for optional duration %s...", name);
 
-        if (unparsedArgs.size() > position && TimeUtil.duration(unparsedArgs.get(position)).isPresent()) {
-            parsedArgs.put(name, unparsedArgs.get(position));
+        ParsedDuration duration = unparsedArgs.size() > position ? parseDuration(unparsedArgs.get(position)) : null;
+        if (duration != null) {
+            parsedArgs.put(name, duration);
             unparsedArgs.remove(position);
-            debug.print("Found duration at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found duration at position %d - new args size = %d", position, unparsedArgs.size());
         } else
             debug.print("Could not find duration");
 
@@ -445,13 +532,13 @@ public class Arguments {
      * @return {@link com.dumbdogdiner.stickyapi.common.arguments.Arguments}
      */
     public Arguments requiredDuration(@NotNull String name) {
-        debug.print("Looking for required duration " + name + "...");
+        debug.print("Looking for required duration %s...", name);
 
-        if (unparsedArgs.size() > position && TimeUtil.duration(unparsedArgs.get(position)).isPresent()) {
-            parsedArgs.put(name, unparsedArgs.get(position));
+        ParsedDuration duration = unparsedArgs.size() > position ? parseDuration(unparsedArgs.get(position)) : null;
+        if (duration != null) {
+            parsedArgs.put(name, duration);
             position++;
-            debug.print("Found duration at position " + String.valueOf(position) + " - new args size = "
-                    + String.valueOf(unparsedArgs.size()));
+            debug.print("Found duration at position %d - new args size = %d", position, unparsedArgs.size());
         } else {
             debug.print("Could not find duration - marking as invalid");
             invalidate(name);
@@ -461,7 +548,9 @@ public class Arguments {
     }
 
     /**
-     * Fetch a parsed argument from this arguments object.
+     * Fetch a parsed argument from this arguments object. Arguments which aren't
+     * strings are returned as text: timestamps in milliseconds since the epoch,
+     * and durations as they were given.
      * <p>
      * Returns the argument, if it exists
      * 
@@ -470,7 +559,15 @@ public class Arguments {
      * @since 2.0
      */
     public String getString(@NotNull String name) {
-        return parsedArgs.get(name);
+        Object value = value(name);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        } else if (value instanceof Timestamp) {
+            return String.valueOf(((Timestamp) value).getTime());
+        } else if (value instanceof ParsedDuration) {
+            return ((ParsedDuration) value).text;
+        }
+        return value.toString();
     }
 
     /**
@@ -488,7 +585,8 @@ public class Arguments {
     }
 
     /**
-     * Fetch a timestamp.
+     * Fetch a timestamp. Other arguments are read as milliseconds since the
+     * epoch.
      * <p>
      * Returns the argument, if it exists
      * 
@@ -496,10 +594,15 @@ public class Arguments {
      * @return {@link java.sql.Timestamp}
      */
     public Timestamp getTimestamp(@NotNull String name) {
-        if (parsedArgs.get(name) == null) {
-            return null;
+        Object value = value(name);
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        } else if (value instanceof Integer || value instanceof Long) {
+            return new Timestamp(((Number) value).longValue());
+        } else if (value instanceof String && NumberUtil.isLong((String) value)) {
+            return new Timestamp(NumberUtil.parseLong((String) value, 0));
         }
-        return new Timestamp(Long.parseLong(parsedArgs.get(name)));
+        return null;
     }
 
     /**
@@ -511,11 +614,16 @@ public class Arguments {
      * @return {@link java.lang.Integer}
      */
     public Integer getInt(@NotNull String name) {
-        try {
-            return Integer.parseInt(parsedArgs.get(name));
-        } catch (NumberFormatException e) {
-            return null;
+        Object value = value(name);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        } else if (value instanceof String) {
+            long number = NumberUtil.parseLong((String) value, Long.MIN_VALUE);
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return (int) number;
+            }
         }
+        return null;
     }
 
     /**
@@ -527,15 +635,19 @@ public class Arguments {
      * @return {@link java.lang.Double}
      */
     public Double getDouble(@NotNull String name) {
-        try {
-            return Double.parseDouble(parsedArgs.get(name));
-        } catch (NumberFormatException e) {
-            return null;
+        Object value = value(name);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof String) {
+            double number = NumberUtil.parseDouble((String) value, Double.NaN);
+            return Double.isNaN(number) ? null : number;
         }
+        return null;
     }
 
     /**
-     * Fetch a long.
+     * Fetch a long. Timestamps are returned in milliseconds since the epoch, and
+     * durations in seconds.
      * <p>
      * Returns the argument, if it exists
      * 
@@ -543,11 +655,17 @@ public class Arguments {
      * @return {@link java.lang.Long}
      */
     public Long getLong(@NotNull String name) {
-        try {
-            return Long.parseLong(parsedArgs.get(name));
-        } catch (NumberFormatException e) {
-            return null;
+        Object value = value(name);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Timestamp) {
+            return ((Timestamp) value).getTime();
+        } else if (value instanceof ParsedDuration) {
+            return ((ParsedDuration) value).duration.getSeconds();
+        } else if (value instanceof String && NumberUtil.isLong((String) value)) {
+            return NumberUtil.parseLong((String) value, 0);
         }
+        return null;
     }
 
     /**
@@ -559,7 +677,7 @@ public class Arguments {
      * @return {@link java.lang.Boolean}
      */
     public Boolean exists(@NotNull String name) {
-        return parsedArgs.get(name) != null;
+        return value(name) != null;
     }
 
     /**
@@ -583,7 +701,7 @@ public class Arguments {
      * @return {@link java.lang.Boolean}
      */
     public Boolean getBoolean(@NotNull String name) {
-        return Boolean.valueOf(parsedArgs.get(name));
+        return Boolean.valueOf(getString(name));
     }
 
     /**
@@ -595,7 +713,13 @@ public class Arguments {
      * @return {@link java.lang.Long}
      */
     public Long getDuration(@NotNull String name) {
-        return TimeUtil.duration(parsedArgs.get(name)).isPresent() ? TimeUtil.duration(parsedArgs.get(name)).get()
-                : null;
+        Object value = value(name);
+        if (value instanceof ParsedDuration) {
+            return ((ParsedDuration) value).duration.getSeconds();
+        } else if (value instanceof String) {
+            ParsedDuration duration = parseDuration((String) value);
+            return duration == null ? null : duration.duration.getSeconds();
+        }
+        return null;
     }
 }
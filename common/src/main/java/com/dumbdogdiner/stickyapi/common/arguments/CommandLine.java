@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.arguments;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * A command line split into arguments in a single pass, without copying it.
+ * <p>
+ * Arguments are separated by spaces. Double quotes group words into one
+ * argument, as do single quotes at the start of an argument, so apostrophes
+ * within words are kept. A quote which is never closed is kept as it is. A
+ * backslash escapes the character after it, and an unquoted {@code =} splits
+ * an argument into a key and value:
+ *
+ * <pre>
+ * CommandLine line = CommandLine.parse("Notch \"being too cool\" -s reason=\"it's late\"");
+ * line.get(1);      // being too cool
+ * line.key(3);      // reason
+ * line.value(3);    // it's late
+ * </pre>
+ *
+ * Each argument is kept as an offset into the original line, and
+ * {@link #token(int)} returns a view over it rather than a substring. Only
+ * arguments which contain escapes, or quotes part way through, are copied when
+ * the line is parsed. Arguments a server has already split on spaces can be
+ * parsed with {@link #parseWords(List)}, without joining them back together. A
+ * command line is also a {@link List} of its arguments, so it can be handed to
+ * {@link Arguments} or {@link ArgumentSchema#parse(List)} directly.
+ *
+ * @since 3.1
+ */
+public final class CommandLine extends AbstractList<String> implements RandomAccess {
+    private static final byte QUOTED = 1;
+
+    /**
+     * The line these arguments were parsed from.
+     */
+    @Getter
+    private final CharSequence line;
+
+    private int size = 0;
+    /**
+     * Where each argument starts and ends in the line, including quotes.
+     */
+    private int[] rawStarts = new int[8];
+    private int[] rawEnds = new int[8];
+    /**
+     * Where the content of each argument starts and ends in the line, for
+     * arguments which weren't copied.
+     */
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    /**
+     * Where the key of each argument ends in its content, or -1.
+     */
+    private int[] separators = new int[8];
+    private byte[] flags = new byte[8];
+    /**
+     * The unescaped content of each argument which had to be copied.
+     */
+    private String[] copies;
+
+    private CommandLine(CharSequence line) {
+        this.line = line;
+    }
+
+    /**
+     * Split a command line into arguments.
+     *
+     * @param line The command line, without the command itself
+     * @return {@link CommandLine}
+     */
+    public static CommandLine parse(@NotNull CharSequence line) {
+        CommandLine commandLine = new CommandLine(line);
+        commandLine.tokenize();
+        return commandLine;
+    }
+
+    /**
+     * Split a command line which has already been split on single spaces, such as
+     * the arguments a server passes to a command, without joining it back into
+     * one string first.
+     *
+     * @param words The command line split on single spaces, without the command
+     *              itself
+     * @return {@link CommandLine}
+     */
+    public static CommandLine parseWords(@NotNull List<String> words) {
+        return parse(new JoinedLine(words.toArray(new String[0])));
+    }
+
+    private void tokenize() {
+        int length = line.length();
+        StringBuilder buffer = new StringBuilder(0);
+        int i = 0;
+        while (i < length) {
+            if (line.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+            int end = scan(i, true, buffer);
+            if (end < 0) {
+                // A quote which is never closed is just a character
+                end = scan(i, false, buffer);
+            }
+            i = end;
+        }
+    }
+
+    /**
+     * Scan the argument starting at {@code i} and add it.
+     *
+     * @return Where the argument ends, or -1 if quotes are allowed and it has a
+     *         quote which is never closed, in which case nothing is added
+     */
+    private int scan(int i, boolean quotes, StringBuilder buffer) {
+        int length = line.length();
+        int rawStart = i;
+        int start = i;
+        int end = -1;
+        int separator = -1;
+        byte flag = 0;
+        char quote = 0;
+        // Only set once the argument can't be a plain slice of the line
+        StringBuilder copy = null;
+
+        char c = line.charAt(i);
+        // Single quotes only count at the start of an argument, so apostrophes
+        // within words are left alone
+        if (quotes && (c == '"' || c == '\'')) {
+            quote = c;
+            flag = QUOTED;
+            start = ++i;
+        }
+        while (i < length) {
+            c = line.charAt(i);
+            if (quote == 0 && c == ' ') {
+                break;
+            }
+            if (c == '\\' && i + 1 < length) {
+                copy = copy != null ? copy : startCopy(buffer, start, end < 0 ? i : end);
+                copy.append(line.charAt(i + 1));
+                i += 2;
+                continue;
+            }
+            if (quote != 0 && c == quote) {
+                quote = 0;
+                if (copy == null) {
+                    end = i;
+                }
+                i++;
+                continue;
+            }
+            if (quotes && quote == 0 && c == '"') {
+                copy = copy != null ? copy : startCopy(buffer, start, end < 0 ? i : end);
+                quote = c;
+                flag = QUOTED;
+                i++;
+                continue;
+            }
+            if (copy == null && end >= 0) {
+                // Something follows a closing quote
+                copy = startCopy(buffer, start, end);
+            }
+            if (quote == 0 && c == '=' && separator < 0) {
+                separator = copy != null ? copy.length() : i - start;
+            }
+            if (copy != null) {
+                copy.append(c);
+            }
+            i++;
+        }
+        if (quote != 0) {
+            return -1;
+        }
+
+        add(rawStart, i, start, end < 0 ? i : end, separator, flag, copy == null ? null : copy.toString());
+        return i;
+    }
+
+    private StringBuilder startCopy(StringBuilder buffer, int start, int end) {
+        buffer.setLength(0);
+        return buffer.append(line, start, end);
+    }
+
+    private void add(int rawStart, int rawEnd, int start, int end, int separator, byte flag, String copy) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            rawStarts = Arrays.copyOf(rawStarts, capacity);
+            rawEnds = Arrays.copyOf(rawEnds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            separators = Arrays.copyOf(separators, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        if (copy != null) {
+            if (copies == null) {
+                copies = new String[starts.length];
+            } else if (copies.length < starts.length) {
+                copies = Arrays.copyOf(copies, starts.length);
+            }
+            copies[size] = copy;
+        }
+        rawStarts[size] = rawStart;
+        rawEnds[size] = rawEnd;
+        starts[size] = start;
+        ends[size] = end;
+        separators[size] = separator == 0 ? -1 : separator;
+        flags[size] = flag;
+        size++;
+    }
+
+    private String copyOf(int index) {
+        return copies != null && index < copies.length ? copies[index] : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get an argument as a string, without its quotes and escapes.
+     *
+     * @param index The index of the argument
+     * @return {@link String}
+     */
+    @Override
+    public String get(int index) {
+        return token(index).toString();
+    }
+
+    /**
+     * Get a view of an argument, without its quotes and escapes.
+     *
+     * @param index The index of the argument
+     * @return {@link CharSequence}
+     */
+    public CharSequence token(int index) {
+        checkIndex(index);
+        String copy = copyOf(index);
+        return copy != null ? copy : new View(line, starts[index], ends[index]);
+    }
+
+    /**
+     * Check if an argument is exactly the given text, without allocating.
+     *
+     * @param index The index of the argument
+     * @param text  The text to compare against
+     * @return {@link Boolean}
+     */
+    public boolean matches(int index, @NotNull CharSequence text) {
+        checkIndex(index);
+        String copy = copyOf(index);
+        if (copy != null) {
+            return copy.contentEquals(text);
+        }
+        int start = starts[index];
+        if (ends[index] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if an argument was quoted.
+     *
+     * @param index The index of the argument
+     * @return {@link Boolean}
+     */
+    public boolean isQuoted(int index) {
+        checkIndex(index);
+        return (flags[index] & QUOTED) != 0;
+    }
+
+    /**
+     * Check if an argument is a {@code key=value} pair.
+     *
+     * @param index The index of the argument
+     * @return {@link Boolean}
+     */
+    public boolean isKeyValue(int index) {
+        checkIndex(index);
+        return separators[index] > 0;
+    }
+
+    /**
+     * Get the key of a {@code key=value} argument.
+     *
+     * @param index The index of the argument
+     * @return {@link CharSequence}, or null if the argument isn't a key and value
+     */
+    public CharSequence key(int index) {
+        if (!isKeyValue(index)) {
+            return null;
+        }
+        return token(index).subSequence(0, separators[index]);
+    }
+
+    /**
+     * Get the value of a {@code key=value} argument, without its quotes and
+     * escapes.
+     *
+     * @param index The index of the argument
+     * @return {@link CharSequence}, or null if the argument isn't a key and value
+     */
+    public CharSequence value(int index) {
+        if (!isKeyValue(index)) {
+            return null;
+        }
+        CharSequence token = token(index);
+        return token.subSequence(separators[index] + 1, token.length());
+    }
+
+    /**
+     * Get where an argument starts in the line, including any quotes.
+     *
+     * @param index The index of the argument
+     * @return {@link Integer}
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return rawStarts[index];
+    }
+
+    /**
+     * Get where an argument ends in the line, including any quotes.
+     *
+     * @param index The index of the argument
+     * @return {@link Integer}
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return rawEnds[index];
+    }
+
+    /**
+     * Get a view of the line from the start of one argument to the end of
+     * another, exactly as it was typed.
+     *
+     * @param first The index of the first argument
+     * @param last  The index of the last argument
+     * @return {@link CharSequence}
+     */
+    public CharSequence span(int first, int last) {
+        checkIndex(first);
+        checkIndex(last);
+        return new View(line, rawStarts[first], Math.max(rawStarts[first], rawEnds[last]));
+    }
+
+    /**
+     * Get a view of the line from the start of an argument to the end of the
+     * line, exactly as it was typed.
+     *
+     * @param index The index of the first argument
+     * @return {@link CharSequence}
+     */
+    public CharSequence rest(int index) {
+        return span(index, size - 1);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Words read as if they were joined with single spaces.
+     */
+    private static final class JoinedLine implements CharSequence {
+        private final String[] words;
+        /**
+         * Where each word starts in the line.
+         */
+        private final int[] offsets;
+        private final int length;
+        /**
+         * The word last read from. Lines are mostly read in order, so this saves
+         * searching for the word. It is only a hint, so races are harmless.
+         */
+        private int current = 0;
+
+        JoinedLine(String[] words) {
+            this.words = words;
+            this.offsets = new int[words.length];
+            int offset = 0;
+            for (int i = 0; i < words.length; i++) {
+                offsets[i] = offset;
+                offset += words[i].length() + 1;
+            }
+            this.length = Math.max(0, offset - 1);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+            }
+            int word = current;
+            if (index < offsets[word] || index > offsets[word] + words[word].length()) {
+                word = Arrays.binarySearch(offsets, index);
+                word = word >= 0 ? word : -word - 2;
+                current = word;
+            }
+            int offset = index - offsets[word];
+            // The position just past a word is the space after it
+            return offset == words[word].length() ? ' ' : words[word].charAt(offset);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+                        + length);
+            }
+            StringBuilder builder = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String toString() {
+            return String.join(" ", words);
+        }
+    }
+
+    /**
+     * A slice of the line, which is only copied when converted to a string.
+     */
+    private static final class View implements CharSequence {
+        private final CharSequence line;
+        private final int start;
+        private final int end;
+
+        View(CharSequence line, int start, int end) {
+            this.line = line;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length());
+            }
+            return line.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+                        + length());
+            }
+            return new View(line, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return line.subSequence(start, end).toString();
+        }
+    }
+}
@@ -4,14 +4,22 @@
  */
 package com.dumbdogdiner.stickyapi.common.cache;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.FutureTask;
 
+import com.dumbdogdiner.stickyapi.common.util.Clock;
 import com.dumbdogdiner.stickyapi.common.util.Debugger;
+import com.dumbdogdiner.stickyapi.common.util.MemoryMonitor;
+import com.dumbdogdiner.stickyapi.common.util.Tracer;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -46,21 +54,68 @@ public class Cache<T extends Cacheable> {
     @Setter
     private int maxSize = 0;
 
+    /**
+     * The clock used to timestamp and expire entries.
+     *
+     * @since 3.1
+     */
     @Getter
-    private FutureTask<?> objectExpiryTask = new FutureTask<>(new Callable<Boolean>() {
+    @Setter
+    @NotNull
+    private Clock clock = Clock.system();
+
+    /**
+     * The monitor this cache shrinks under pressure from, if any.
+     *
+     * @since 3.1
+     */
+    @Getter
+    private MemoryMonitor memoryMonitor;
+
+    private MemoryMonitor.Listener pressureListener;
+
+    /**
+     * The smallest limit memory pressure will shrink a cache to.
+     */
+    private static final int MIN_PRESSURE_LIMIT = 16;
+
+    /**
+     * The size of an unbounded cache when memory pressure was first raised, and
+     * the limit imposed because of it, or 0 if there is none.
+     */
+    private volatile int pressureBaseline = 0;
+    private volatile int pressureLimit = 0;
+
+    /**
+     * Forwards pressure changes to a cache without keeping it alive, since a
+     * monitor is usually shared and outlives the caches watching it. Removes
+     * itself once its cache has been collected.
+     */
+    private static final class PressureListener implements MemoryMonitor.Listener {
+        private final WeakReference<Cache<?>> cache;
+        private final MemoryMonitor monitor;
+
+        PressureListener(Cache<?> cache, MemoryMonitor monitor) {
+            this.cache = new WeakReference<>(cache);
+            this.monitor = monitor;
+        }
+
         @Override
-        public Boolean call() {
-            if (ttl <= 0) {
-                return false;
+        public void onPressureChange(MemoryMonitor.Pressure previous, MemoryMonitor.Pressure current) {
+            Cache<?> target = cache.get();
+            if (target != null) {
+                target.onPressureChange(previous, current);
+            } else {
+                monitor.removeListener(this);
             }
+        }
+    }
 
-            objectInsertionTimestamps.forEach((k, v) -> {
-                if (v + ttl < System.currentTimeMillis()) {
-                    debug.print("Evicting " + k + " from " + clazz.getSimpleName() + " cache");
-                    removeKey(k);
-                }
-            });
-            return true;
+    @Getter
+    private FutureTask<?> objectExpiryTask = new FutureTask<>(new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+            return evictExpired() >= 0;
         }
     });
 
@@ -72,6 +127,113 @@ public class Cache<T extends Cacheable> {
 
     private Debugger debug = new Debugger(getClass());
 
+    /**
+     * Remove every entry which has been in the cache for longer than its TTL.
+     * Unlike {@link #getObjectExpiryTask()}, this can be called repeatedly, e.g.
+     * from a scheduler.
+     * 
+     * @return The number of entries removed, or -1 if this cache has no TTL
+     * @since 3.1
+     */
+    public int evictExpired() {
+        if (ttl <= 0) {
+            return -1;
+        }
+
+        int evicted = 0;
+        long now = clock.currentTimeMillis();
+        for (var entry : objectInsertionTimestamps.entrySet()) {
+            if (entry.getValue() + ttl < now) {
+                debug.print("Evicting %s from %s cache", entry.getKey(), clazz.getSimpleName());
+                if (removeKey(entry.getKey()) != null) {
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Shrink this cache while the given monitor reports memory pressure: to half
+     * of its maximum size when pressure becomes elevated, and to a quarter when it
+     * becomes critical, but never below 16 entries. Caches without a maximum size
+     * shrink relative to their size when pressure was first raised. The limit is
+     * lifted once pressure is back to normal. The monitor doesn't keep this cache
+     * from being garbage collected.
+     * 
+     * @param monitor to watch, or null to stop watching
+     * @since 3.1
+     */
+    public void setMemoryMonitor(@Nullable MemoryMonitor monitor) {
+        if (memoryMonitor != null) {
+            memoryMonitor.removeListener(pressureListener);
+            pressureListener = null;
+        }
+        memoryMonitor = monitor;
+        pressureBaseline = 0;
+        pressureLimit = 0;
+        if (monitor != null) {
+            pressureListener = new PressureListener(this, monitor);
+            monitor.addListener(pressureListener);
+            if (monitor.getPressure() != MemoryMonitor.Pressure.NORMAL) {
+                onPressureChange(MemoryMonitor.Pressure.NORMAL, monitor.getPressure());
+            }
+        }
+    }
+
+    /**
+     * Get the maximum size of this cache, taking any limit imposed by memory
+     * pressure into account.
+     * 
+     * @return The maximum size, or 0 if there is none
+     * @since 3.1
+     */
+    public int getEffectiveMaxSize() {
+        int limit = pressureLimit;
+        if (limit <= 0) {
+            return maxSize;
+        }
+        return maxSize > 0 ? Math.min(maxSize, limit) : limit;
+    }
+
+    private void onPressureChange(MemoryMonitor.Pressure previous, MemoryMonitor.Pressure current) {
+        if (current == MemoryMonitor.Pressure.NORMAL) {
+            pressureBaseline = 0;
+            pressureLimit = 0;
+            return;
+        }
+
+        int baseline = maxSize;
+        if (baseline <= 0) {
+            if (pressureBaseline == 0) {
+                pressureBaseline = Math.max(MIN_PRESSURE_LIMIT, objects.size());
+            }
+            baseline = pressureBaseline;
+        }
+        int divisor = current == MemoryMonitor.Pressure.CRITICAL ? 4 : 2;
+        pressureLimit = Math.max(MIN_PRESSURE_LIMIT, baseline / divisor);
+        debug.print("Memory pressure is %s, shrinking %s cache to %d", current, clazz.getSimpleName(), pressureLimit);
+        trimTo(pressureLimit);
+    }
+
+    /**
+     * Remove the oldest entries until at most <code>limit</code> are left, sorting
+     * the entries once rather than scanning for the oldest each time.
+     */
+    private void trimTo(int limit) {
+        int excess = objects.size() - limit;
+        if (excess <= 0) {
+            return;
+        }
+        try (Tracer.Span span = Tracer.span("cache", "trim", clazz.getSimpleName())) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(objectInsertionTimestamps.entrySet());
+            entries.sort(Map.Entry.comparingByValue());
+            for (int i = 0; i < excess && i < entries.size(); i++) {
+                removeKey(entries.get(i).getKey());
+            }
+        }
+    }
+
     /**
      * Return the size of this cache.
      * 
@@ -110,7 +272,7 @@ public class Cache<T extends Cacheable> {
         T object = objects.get(key);
 
         if (object != null)
-            debug.print("Got cached entry for " + clazz.getSimpleName() + " with key " + key);
+            debug.print("Got cached entry for %s with key %s", clazz.getSimpleName(), key);
 
         return object;
     }
@@ -133,13 +295,15 @@ public class Cache<T extends Cacheable> {
      */
     public T find(@NotNull Predicate<T> tester) {
         debug.reset();
-        for (T object : objects.values()) {
-            if (tester.match(object)) {
-                debug.print("Found cached entry for " + clazz.getSimpleName() + " with key " + object.getKey());
-                return object;
+        try (Tracer.Span span = Tracer.span("cache", "find", clazz.getSimpleName())) {
+            for (T object : objects.values()) {
+                if (tester.match(object)) {
+                    debug.print("Found cached entry for %s with key %s", clazz.getSimpleName(), object.getKey());
+                    return object;
+                }
             }
         }
-        debug.print("Failed to find " + clazz.getSimpleName() + " using parsed matcher");
+        debug.print("Failed to find %s using parsed matcher", clazz.getSimpleName());
         return null;
     }
 
@@ -152,14 +316,16 @@ public class Cache<T extends Cacheable> {
         debug.reset();
 
         if (objects.containsKey(object.getKey())) {
-            debug.print(
-                    "Skipping insertion for " + clazz.getSimpleName() + " " + object.getKey() + " - already exists.");
+            debug.print("Skipping insertion for %s %s - already exists.", clazz.getSimpleName(), object.getKey());
             return;
         }
 
-        if (maxSize > 0) {
-            while (objects.size() >= maxSize) {
-                removeOldestEntry();
+        int limit = getEffectiveMaxSize();
+        if (limit > 0 && objects.size() >= limit) {
+            try (Tracer.Span span = Tracer.span("cache", "evict", clazz.getSimpleName())) {
+                while (objects.size() >= limit) {
+                    removeOldestEntry();
+                }
             }
         }
 
@@ -185,8 +351,8 @@ public class Cache<T extends Cacheable> {
         // }
 
         objects.put(object.getKey(), object);
-        objectInsertionTimestamps.put(object.getKey(), System.currentTimeMillis());
-        debug.print("Created cached entry for " + clazz.getSimpleName() + " with key " + object.getKey());
+        objectInsertionTimestamps.put(object.getKey(), clock.currentTimeMillis());
+        debug.print("Created cached entry for %s with key %s", clazz.getSimpleName(), object.getKey());
     }
 
     /**
@@ -210,10 +376,11 @@ public class Cache<T extends Cacheable> {
     public T remove(@NotNull T object) {
         debug.reset();
         T didRemove = objects.remove(object.getKey());
+        objectInsertionTimestamps.remove(object.getKey());
 
         if (didRemove == null) {
-            debug.print("Could not remove entry for " + clazz.getSimpleName() + " with key " + object.getKey()
-                    + " - does not exist");
+            debug.print("Could not remove entry for %s with key %s - does not exist", clazz.getSimpleName(),
+                    object.getKey());
             return null;
         }
 
@@ -221,7 +388,7 @@ public class Cache<T extends Cacheable> {
         // memoryUsage -= MemoryUtil.getSizeOf(object);
         // }
 
-        debug.print("Removed entry for " + clazz.getSimpleName() + " with key " + object.getKey());
+        debug.print("Removed entry for %s with key %s", clazz.getSimpleName(), object.getKey());
         return didRemove;
     }
 
@@ -7,10 +7,15 @@ package com.dumbdogdiner.stickyapi.common.command;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
+
+import com.dumbdogdiner.stickyapi.common.arguments.ArgumentSchema;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import lombok.Getter;
+import lombok.Setter;
 
 @SuppressWarnings("unchecked") // Supress unchecked cast warnings.
 public abstract class CommandBuilder<T extends CommandBuilder<T>> {
@@ -33,6 +38,26 @@ public abstract class CommandBuilder<T extends CommandBuilder<T>> {
     Long cooldown = 0L;
     @Getter
     HashMap<String, T> subCommands = new HashMap<>();
+    @Getter
+    String poolName;
+    @Getter
+    ArgumentSchema argumentSchema;
+    @Getter
+    RateLimiter senderRateLimit;
+    @Getter
+    RateLimiter commandRateLimit;
+
+    /**
+     * The rate limit shared by every command on the server, if any.
+     *
+     * @since 3.1
+     */
+    @Getter
+    @Setter
+    @Nullable
+    private static volatile RateLimiter globalRateLimit;
+
+    private volatile CommandVariables.Shared sharedVariables;
 
     /**
      * Create a new [@link CommandBuilder} instance
@@ -65,6 +90,33 @@ public abstract class CommandBuilder<T extends CommandBuilder<T>> {
         return this.synchronous(true);
     }
 
+    /**
+     * Run this command on a named pool registered with
+     * {@link com.dumbdogdiner.stickyapi.StickyAPI#getExecutors()} instead of the
+     * global pool. Falls back to the global pool if no pool with this name is
+     * registered.
+     * 
+     * @param poolName the name of the pool
+     * @return {@link CommandBuilder}
+     */
+    public T pool(@NotNull String poolName) {
+        this.poolName = poolName;
+        return (T) this;
+    }
+
+    /**
+     * Parse the arguments of this command with a schema, instead of handing the
+     * executor unparsed arguments. The schema is compiled straight away, and
+     * arguments may be quoted to include spaces.
+     * 
+     * @param schema the arguments this command accepts
+     * @return {@link CommandBuilder}
+     */
+    public T arguments(@NotNull ArgumentSchema schema) {
+        this.argumentSchema = schema.compile();
+        return (T) this;
+    }
+
     /**
      * Set the cooldown for this command
      * 
@@ -76,6 +128,140 @@ public abstract class CommandBuilder<T extends CommandBuilder<T>> {
         return (T) this;
     }
 
+    /**
+     * Limit how often each sender can run this command. Senders can run it
+     * {@code burst} times in a row, after which they get one more use every
+     * {@code 1 / rate} seconds.
+     *
+     * @param burst The number of times a sender can run the command in a row
+     * @param rate  The number of uses a sender gets back per second
+     * @return {@link CommandBuilder}
+     * @since 3.1
+     */
+    public T rateLimit(int burst, double rate) {
+        this.senderRateLimit = new RateLimiter(burst, rate);
+        return (T) this;
+    }
+
+    /**
+     * Limit how often this command can be run by everyone combined.
+     *
+     * @param burst The number of times the command can be run in a row
+     * @param rate  The number of uses the command gets back per second
+     * @return {@link CommandBuilder}
+     * @since 3.1
+     */
+    public T commandRateLimit(int burst, double rate) {
+        this.commandRateLimit = new RateLimiter(burst, rate);
+        return (T) this;
+    }
+
+    /**
+     * Use up one run of this command against each rate limit that applies to a
+     * sender: the server's, the command's and their own. If any of them refuses,
+     * the runs already taken from the others are given back.
+     *
+     * @param sender The sender running the command
+     * @return {@link Boolean} false if any of the limits has been reached
+     * @since 3.1
+     */
+    public boolean tryAcquireRateLimits(@NotNull UUID sender) {
+        RateLimiter global = globalRateLimit;
+        RateLimiter command = commandRateLimit;
+        RateLimiter own = senderRateLimit;
+        if (global != null && !global.tryAcquire()) {
+            return false;
+        }
+        if (command != null && !command.tryAcquire()) {
+            if (global != null) {
+                global.release();
+            }
+            return false;
+        }
+        if (own != null && !own.tryAcquire(sender)) {
+            if (command != null) {
+                command.release();
+            }
+            if (global != null) {
+                global.release();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give back the runs taken by {@link #tryAcquireRateLimits(UUID)}, such as
+     * when a later check stops the command from running.
+     *
+     * @param sender The sender running the command
+     * @since 3.1
+     */
+    public void releaseRateLimits(@NotNull UUID sender) {
+        RateLimiter global = globalRateLimit;
+        if (global != null) {
+            global.release();
+        }
+        if (commandRateLimit != null) {
+            commandRateLimit.release();
+        }
+        if (senderRateLimit != null) {
+            senderRateLimit.release(sender);
+        }
+    }
+
+    /**
+     * Check whether a sender may run this command. Permission and sender type are
+     * checked first, then the rate limits, then the sender's cooldown. A sender
+     * who is turned away never uses up a rate limit shared with other senders, and
+     * their cooldown only starts if the command is going to run.
+     *
+     * @param sender         The sender running the command
+     * @param permitted      If the sender has this command's permission
+     * @param player         If the sender is a player
+     * @param requiresPlayer If the command must be run by a player
+     * @param cooldowns      The cooldowns of this command
+     * @param cooldown       The length of this command's cooldown, in milliseconds
+     * @return {@link ExitCode} to exit with, or null if the command may run
+     * @since 3.1
+     */
+    protected @Nullable ExitCode checkAccess(@NotNull UUID sender, boolean permitted, boolean player,
+            boolean requiresPlayer, @NotNull CooldownTracker cooldowns, long cooldown) {
+        if (!permitted) {
+            return ExitCode.EXIT_PERMISSION_DENIED;
+        }
+        if (requiresPlayer && !player) {
+            return ExitCode.EXIT_MUST_BE_PLAYER;
+        }
+        if (!tryAcquireRateLimits(sender)) {
+            return ExitCode.EXIT_RATE_LIMITED;
+        }
+        // Start the sender's cooldown, unless they're already on one
+        if (!cooldowns.tryAcquire(sender, cooldown)) {
+            releaseRateLimits(sender);
+            return ExitCode.EXIT_COOLDOWN;
+        }
+        return null;
+    }
+
+    /**
+     * Get the variables shared by every execution of this command, creating them
+     * again if its name or cooldown has changed since they were last used.
+     *
+     * @param command The name the command was run under
+     * @return {@link CommandVariables.Shared}
+     * @since 3.1
+     */
+    protected CommandVariables.Shared getSharedVariables(@NotNull String command) {
+        CommandVariables.Shared shared = sharedVariables;
+        long cooldown = this.cooldown == null ? 0L : this.cooldown;
+        if (shared == null || !shared.matches(command, cooldown)) {
+            shared = new CommandVariables.Shared(command, cooldown);
+            sharedVariables = shared;
+        }
+        return shared;
+    }
+
     /**
      * If this command requires the sender to be an instance of
      * {@link org.bukkit.entity.Player}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import com.dumbdogdiner.stickyapi.common.arguments.ArgumentSchema;
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tab completes a command and its sub-commands.
+ * <p>
+ * The names and aliases of each command's sub-commands are indexed in a
+ * {@link PrefixTrie} when the completer is created. Arguments are completed
+ * from the suggestions declared on the command's {@link ArgumentSchema}, or
+ * from the names of online players if there are none.
+ *
+ * @since 3.1
+ */
+public final class CommandCompleter {
+    /**
+     * The maximum number of completions returned by default.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    private static final class Node {
+        final PrefixTrie names = new PrefixTrie();
+        final HashMap<String, Node> children = new HashMap<>();
+        final ArgumentSchema schema;
+
+        Node(CommandBuilder<?> command) {
+            this.schema = command.getArgumentSchema();
+            for (CommandBuilder<?> subCommand : command.getSubCommands().values()) {
+                Node child = new Node(subCommand);
+                add(subCommand.getName(), child);
+                if (subCommand.getAliases() != null) {
+                    for (String alias : subCommand.getAliases()) {
+                        add(alias, child);
+                    }
+                }
+            }
+        }
+
+        private void add(String name, Node child) {
+            names.add(name);
+            children.put(name.toLowerCase(Locale.ROOT), child);
+        }
+    }
+
+    private final Node root;
+    private final PrefixTrie players;
+
+    /**
+     * Create a completer for a command.
+     *
+     * @param command The command to complete
+     * @param players The names of online players
+     */
+    public CommandCompleter(@NotNull CommandBuilder<?> command, @NotNull PrefixTrie players) {
+        this.root = new Node(command);
+        this.players = players;
+    }
+
+    /**
+     * Complete the last of the given arguments.
+     *
+     * @param args The arguments typed so far, the last of which is being typed
+     * @return {@link List}
+     */
+    public List<String> complete(@NotNull List<String> args) {
+        return complete(args, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Complete the last of the given arguments.
+     *
+     * @param args  The arguments typed so far, the last of which is being typed
+     * @param limit The maximum number of completions to return
+     * @return {@link List}
+     */
+    public List<String> complete(@NotNull List<String> args, int limit) {
+        if (args.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Node node = root;
+        int start = 0;
+        int last = args.size() - 1;
+        while (start < last) {
+            Node child = node.children.get(args.get(start).toLowerCase(Locale.ROOT));
+            if (child == null) {
+                break;
+            }
+            node = child;
+            start++;
+        }
+
+        String word = args.get(last);
+        if (start == last && !node.children.isEmpty()) {
+            List<String> names = node.names.complete(word, limit);
+            if (!names.isEmpty()) {
+                return names;
+            }
+        }
+
+        ArgumentSchema schema = node.schema;
+        if (schema == null) {
+            return players.complete(word, limit);
+        }
+        if (word.startsWith("-") && schema.getFlags().size() > 0) {
+            return schema.getFlags().complete(word, limit);
+        }
+
+        int position = 0;
+        for (int i = start; i < last; i++) {
+            if (!schema.isFlag(args.get(i))) {
+                position++;
+            }
+        }
+        PrefixTrie suggestions = schema.getSuggestions(position);
+        return (suggestions != null ? suggestions : players).complete(word, limit);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dumbdogdiner.stickyapi.common.arguments.Arguments;
+import com.dumbdogdiner.stickyapi.common.util.Histogram;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Records how long each command waits before it runs, how long it takes, and
+ * which {@link ExitCode}s it returns. Command builders record every execution
+ * through the metrics at
+ * {@link com.dumbdogdiner.stickyapi.StickyAPI#getCommandMetrics()}.
+ *
+ * <pre>
+ * for (CommandMetrics.Snapshot command : StickyAPI.getCommandMetrics().getSnapshots()) {
+ *     StickyAPI.getLogger().info(command.getName() + " p99: " + command.getLatencyP99() / 1e6 + "ms");
+ * }
+ * </pre>
+ *
+ * Waits are measured from when the command was dispatched until it started
+ * running, which is only more than a moment for asynchronous commands queued on
+ * a busy pool. Commands are recorded under their full path, such as
+ * {@code "admin reload"}. Every counter is a {@link LongAdder} or a
+ * {@link Histogram}, so recording never blocks another thread.
+ *
+ * @since 3.1
+ */
+public class CommandMetrics {
+    private static final ExitCode[] EXIT_CODES = ExitCode.values();
+
+    private final ConcurrentHashMap<String, CommandMetric> metrics = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    /**
+     * Live counters for every execution of a single command. Times are in
+     * nanoseconds.
+     */
+    public static final class CommandMetric {
+        @Getter
+        private final String name;
+        @Getter
+        private final Histogram waitHistogram = new Histogram();
+        @Getter
+        private final Histogram latencyHistogram = new Histogram();
+        private final LongAdder[] exitCodes = new LongAdder[EXIT_CODES.length];
+
+        CommandMetric(String name) {
+            this.name = name;
+            for (int i = 0; i < exitCodes.length; i++) {
+                exitCodes[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Get the number of executions which returned an exit code.
+         *
+         * @param exitCode to count
+         * @return {@link Long}
+         */
+        public long getCount(@NotNull ExitCode exitCode) {
+            return exitCodes[exitCode.ordinal()].sum();
+        }
+
+        /**
+         * Take a copy of the current numbers.
+         *
+         * @return {@link Snapshot}
+         */
+        public Snapshot snapshot() {
+            return new Snapshot(this);
+        }
+    }
+
+    /**
+     * The numbers of a single command at one point in time. Times are in
+     * nanoseconds.
+     */
+    public static final class Snapshot {
+        @Getter
+        private final String name;
+        @Getter
+        private final long count;
+        @Getter
+        private final long waitP50;
+        @Getter
+        private final long waitP99;
+        @Getter
+        private final long latencyP50;
+        @Getter
+        private final long latencyP99;
+        @Getter
+        private final long latencyMax;
+        private final Map<ExitCode, Long> exitCodes;
+
+        Snapshot(CommandMetric metric) {
+            this.name = metric.name;
+            this.count = metric.latencyHistogram.getCount();
+            this.waitP50 = metric.waitHistogram.getPercentile(50);
+            this.waitP99 = metric.waitHistogram.getPercentile(99);
+            this.latencyP50 = metric.latencyHistogram.getPercentile(50);
+            this.latencyP99 = metric.latencyHistogram.getPercentile(99);
+            this.latencyMax = metric.latencyHistogram.getMax();
+            EnumMap<ExitCode, Long> exitCodes = new EnumMap<>(ExitCode.class);
+            for (ExitCode exitCode : EXIT_CODES) {
+                long n = metric.getCount(exitCode);
+                if (n > 0) {
+                    exitCodes.put(exitCode, n);
+                }
+            }
+            this.exitCodes = Collections.unmodifiableMap(exitCodes);
+        }
+
+        /**
+         * Get the number of executions which returned each exit code. Exit codes
+         * which were never returned are left out.
+         *
+         * @return {@link Map}
+         */
+        public Map<ExitCode, Long> getExitCodes() {
+            return exitCodes;
+        }
+
+        /**
+         * Get the number of executions which returned an exit code.
+         *
+         * @param exitCode to count
+         * @return {@link Long}
+         */
+        public long getCount(@NotNull ExitCode exitCode) {
+            return exitCodes.getOrDefault(exitCode, 0L);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format(
+                    "%s: %d runs, p50 %.3fms p99 %.3fms max %.3fms, wait p99 %.3fms", name, count, latencyP50 / 1e6,
+                    latencyP99 / 1e6, latencyMax / 1e6, waitP99 / 1e6));
+            for (Map.Entry<ExitCode, Long> entry : exitCodes.entrySet()) {
+                if (entry.getKey() != ExitCode.EXIT_SUCCESS) {
+                    builder.append(", ").append(entry.getKey()).append(' ').append(entry.getValue());
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Check if executions are being recorded.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording executions.
+     *
+     * @param enabled whether to record
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record a command execution.
+     *
+     * @param command      name to record the execution under
+     * @param waitNanos    how long the command waited before it started running
+     * @param latencyNanos how long the command took to run
+     * @param exitCode     the exit code the command returned
+     */
+    public void record(@NotNull String command, long waitNanos, long latencyNanos, @NotNull ExitCode exitCode) {
+        if (!enabled) {
+            return;
+        }
+        CommandMetric metric = metrics.computeIfAbsent(command, CommandMetric::new);
+        metric.waitHistogram.record(waitNanos);
+        metric.latencyHistogram.record(latencyNanos);
+        metric.exitCodes[exitCode.ordinal()].increment();
+    }
+
+    /**
+     * Get the live counters of a single command.
+     *
+     * @param command name of the command
+     * @return {@link CommandMetric}, or null if it hasn't been executed
+     */
+    public CommandMetric getMetric(@NotNull String command) {
+        return metrics.get(command);
+    }
+
+    /**
+     * Take a copy of the numbers of every command, sorted by 99th percentile
+     * latency in descending order.
+     *
+     * @return {@link List}
+     */
+    public List<Snapshot> getSnapshots() {
+        List<Snapshot> snapshots = new ArrayList<>(metrics.size());
+        for (CommandMetric metric : metrics.values()) {
+            snapshots.add(metric.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong(Snapshot::getLatencyP99).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Build a human readable report of the slowest commands.
+     *
+     * @param limit maximum number of commands to include
+     * @return {@link String}
+     */
+    public String dump(int limit) {
+        StringBuilder builder = new StringBuilder("Command latencies:");
+        int rank = 1;
+        for (Snapshot command : getSnapshots()) {
+            if (rank > limit) {
+                break;
+            }
+            builder.append('\n').append(rank++).append(". ").append(command);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Build the report shown by a metrics sub-command, split into lines to send.
+     * The sub-command takes an optional number of commands to list, which
+     * defaults to 10.
+     *
+     * @param args the sub-command's arguments
+     * @return {@link String} array of lines
+     */
+    public String[] report(@NotNull Arguments args) {
+        args.optionalInt("limit", 10);
+        // Numbers too big for an int are parsed as a long
+        long limit = args.getLong("limit");
+        return dump((int) Math.min(limit, Integer.MAX_VALUE)).split("\n");
+    }
+
+    /**
+     * Clear everything recorded so far.
+     */
+    public void reset() {
+        metrics.clear();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Records how many bytes each command allocates, and how much CPU time it uses,
+ * on the thread it executes on. Command builders measure every execution
+ * through the profiler at
+ * {@link com.dumbdogdiner.stickyapi.StickyAPI#getCommandProfiler()}.
+ *
+ * <pre>
+ * StickyAPI.getLogger().info(StickyAPI.getCommandProfiler().dump(10));
+ * </pre>
+ *
+ * Work a command hands off to other threads isn't counted. Sub-commands are
+ * recorded under their full path, such as {@code "admin reload"}, and aren't
+ * included in their parent's numbers.
+ *
+ * @since 3.1
+ */
+public class CommandProfiler {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ConcurrentHashMap<String, CommandStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    /**
+     * Whether the JVM can measure allocated bytes per thread.
+     */
+    @Getter
+    private final boolean allocationSupported;
+
+    /**
+     * Whether the JVM can measure CPU time per thread.
+     */
+    @Getter
+    private final boolean cpuTimeSupported;
+
+    public CommandProfiler() {
+        this.allocationSupported = THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+        this.cpuTimeSupported = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Totals for every execution of a single command.
+     */
+    public static final class CommandStats {
+        @Getter
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Long::max, 0);
+
+        CommandStats(String name) {
+            this.name = name;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        public long getMaxAllocatedBytes() {
+            return maxAllocatedBytes.get();
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos.sum();
+        }
+
+        /**
+         * Get the average number of bytes allocated per execution.
+         *
+         * @return {@link Double}
+         */
+        public double getBytesPerInvocation() {
+            long n = invocations.sum();
+            return n == 0 ? 0 : (double) allocatedBytes.sum() / n;
+        }
+
+        /**
+         * Get the average CPU time per execution, in nanoseconds.
+         *
+         * @return {@link Double}
+         */
+        public double getCpuNanosPerInvocation() {
+            long n = invocations.sum();
+            return n == 0 ? 0 : (double) cpuNanos.sum() / n;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d runs, %.1fKB/run (max %.1fKB), %.3fms cpu/run", name, getInvocations(),
+                    getBytesPerInvocation() / 1024, getMaxAllocatedBytes() / 1024.0,
+                    getCpuNanosPerInvocation() / 1e6);
+        }
+    }
+
+    /**
+     * Check if executions are being measured.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop measuring executions.
+     *
+     * @param enabled whether to measure
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Run a command execution, recording what it allocates and how much CPU time
+     * it uses on the current thread.
+     *
+     * @param command   name to record the execution under
+     * @param execution to run
+     */
+    public void measure(@NotNull String command, @NotNull Runnable execution) {
+        measure(command, () -> {
+            execution.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run a command execution, recording what it allocates and how much CPU time
+     * it uses on the current thread.
+     *
+     * @param <V>       The type of result
+     * @param command   name to record the execution under
+     * @param execution to run
+     * @return The result of the execution
+     * @since 3.1
+     */
+    public <V> V measure(@NotNull String command, @NotNull Supplier<V> execution) {
+        if (!enabled) {
+            return execution.get();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long bytes = allocatedBytes(thread);
+        long cpu = cpuTime();
+        try {
+            return execution.get();
+        } finally {
+            long cpuUsed = cpuTime() - cpu;
+            long allocated = allocatedBytes(thread) - bytes;
+            CommandStats stats = this.stats.computeIfAbsent(command, CommandStats::new);
+            stats.invocations.increment();
+            stats.allocatedBytes.add(allocated);
+            stats.maxAllocatedBytes.accumulate(allocated);
+            stats.cpuNanos.add(cpuUsed);
+        }
+    }
+
+    private long allocatedBytes(long thread) {
+        return allocationSupported ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(thread) : 0;
+    }
+
+    private long cpuTime() {
+        return cpuTimeSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Get the totals of a single command.
+     *
+     * @param command name of the command
+     * @return {@link CommandStats}, or null if it hasn't been executed
+     */
+    public CommandStats getStats(@NotNull String command) {
+        return stats.get(command);
+    }
+
+    /**
+     * Get the totals of every command, sorted by bytes allocated per execution in
+     * descending order.
+     *
+     * @return {@link List}
+     */
+    public List<CommandStats> getReport() {
+        List<CommandStats> report = new ArrayList<>(stats.values());
+        report.sort(Comparator.comparingDouble(CommandStats::getBytesPerInvocation).reversed());
+        return report;
+    }
+
+    /**
+     * Build a human readable report of the commands which allocate the most per
+     * execution.
+     *
+     * @param limit maximum number of commands to include
+     * @return {@link String}
+     */
+    public String dump(int limit) {
+        StringBuilder builder = new StringBuilder("Command allocations");
+        if (!allocationSupported) {
+            builder.append(" (not supported by this JVM)");
+        }
+        builder.append(':');
+        int rank = 1;
+        for (CommandStats command : getReport()) {
+            if (rank > limit) {
+                break;
+            }
+            builder.append('\n').append(rank++).append(". ").append(command);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Clear everything recorded so far.
+     */
+    public void reset() {
+        stats.clear();
+    }
+}
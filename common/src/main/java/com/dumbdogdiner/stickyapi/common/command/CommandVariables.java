@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The variables given to a command's executor and error handler, which are
+ * only turned into strings when they are read.
+ * <p>
+ * Every execution captures the sender and their remaining cooldown, which is
+ * cheap, and shares a {@link Shared} instance with every other execution of
+ * the same command for the rest. The Bukkit and BungeeCord command builders
+ * wrap this in a map which fills itself in as variables are looked up, so
+ * executors which never read their variables never pay for them. The map
+ * fills itself in through {@link #resolve(Object, BiConsumer)}, which
+ * remembers which variables it has already put, so each instance should back a
+ * single map.
+ *
+ * @since 3.1
+ */
+public final class CommandVariables {
+    private static final String[] NAMES = { "command", "sender", "player", "uuid", "cooldown",
+            "cooldown_remaining" };
+
+    /**
+     * The number of variables.
+     */
+    public static final int SIZE = NAMES.length;
+
+    private static final int ALL = (1 << SIZE) - 1;
+
+    /**
+     * The variables which are the same for every execution of a command.
+     */
+    public static final class Shared {
+        private final String command;
+        private final long cooldown;
+        private final String cooldownString;
+
+        /**
+         * Create the shared variables of a command.
+         *
+         * @param command  The name of the command
+         * @param cooldown The cooldown of the command, in milliseconds
+         */
+        public Shared(@NotNull String command, long cooldown) {
+            this.command = command;
+            this.cooldown = cooldown;
+            this.cooldownString = Long.toString(cooldown);
+        }
+
+        /**
+         * Check if these variables are still correct for a command.
+         *
+         * @param command  The name of the command
+         * @param cooldown The cooldown of the command, in milliseconds
+         * @return {@link Boolean}
+         */
+        public boolean matches(@NotNull String command, long cooldown) {
+            return this.cooldown == cooldown && this.command.equals(command);
+        }
+    }
+
+    private final Shared shared;
+    private final String sender;
+    private final UUID uuid;
+    private final String noUuid;
+    private final long cooldownRemaining;
+    /**
+     * Bit i is set once variable i has been put into the map, or no longer needs
+     * to be.
+     */
+    private int resolved = 0;
+
+    /**
+     * Capture the variables of a command execution.
+     *
+     * @param shared            The variables shared by every execution of the
+     *                          command
+     * @param sender            The name of the sender
+     * @param uuid              The UUID of the sender, or null if they aren't a
+     *                          player
+     * @param noUuid            The value of {@code uuid} if the sender isn't a
+     *                          player
+     * @param cooldownRemaining How long the sender's cooldown had left when they
+     *                          ran the command, in milliseconds
+     */
+    public CommandVariables(@NotNull Shared shared, @NotNull String sender, @Nullable UUID uuid,
+            @NotNull String noUuid, long cooldownRemaining) {
+        this.shared = shared;
+        this.sender = sender;
+        this.uuid = uuid;
+        this.noUuid = noUuid;
+        this.cooldownRemaining = cooldownRemaining;
+    }
+
+    /**
+     * Get the name of a variable.
+     *
+     * @param index The index of the variable
+     * @return {@link String}
+     */
+    public static String getName(int index) {
+        return NAMES[index];
+    }
+
+    /**
+     * Find a variable by name.
+     *
+     * @param name The name of the variable
+     * @return {@link Integer} the index of the variable, or -1 if there is no such
+     *         variable
+     */
+    public static int indexOf(@Nullable Object name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Work out the value of a variable.
+     *
+     * @param index The index of the variable
+     * @return {@link String}
+     */
+    public String getValue(int index) {
+        switch (index) {
+            case 0:
+                return shared.command;
+            case 1:
+            case 2:
+                return sender;
+            case 3:
+                return uuid != null ? uuid.toString() : noUuid;
+            case 4:
+                return shared.cooldownString;
+            case 5:
+                return Long.toString(cooldownRemaining);
+            default:
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + SIZE);
+        }
+    }
+
+    /**
+     * Put a variable into a map the first time it is looked up. Maps should call
+     * this before reading or writing a key, so a variable the command replaces or
+     * removes is never put back.
+     *
+     * @param name The key being looked up
+     * @param put  Puts an entry into the map without looking it up
+     */
+    public void resolve(@Nullable Object name, @NotNull BiConsumer<String, String> put) {
+        int index = indexOf(name);
+        if (index >= 0) {
+            resolve(index, put);
+        }
+    }
+
+    /**
+     * Put every variable which hasn't been looked up yet into a map. Maps should
+     * call this before anything which needs every entry, such as iterating.
+     *
+     * @param put Puts an entry into the map without looking it up
+     */
+    public void resolveAll(@NotNull BiConsumer<String, String> put) {
+        for (int i = 0; resolved != ALL && i < SIZE; i++) {
+            resolve(i, put);
+        }
+    }
+
+    /**
+     * Never put any more variables into the map, such as when it is cleared.
+     */
+    public void discardAll() {
+        resolved = ALL;
+    }
+
+    private void resolve(int index, BiConsumer<String, String> put) {
+        if ((resolved & (1 << index)) == 0) {
+            resolved |= 1 << index;
+            put.accept(NAMES[index], getValue(index));
+        }
+    }
+}
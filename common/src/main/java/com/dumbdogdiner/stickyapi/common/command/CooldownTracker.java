@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dumbdogdiner.stickyapi.common.util.Clock;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Tracks when each sender may next use a command.
+ *
+ * <pre>
+ * CooldownTracker cooldowns = new CooldownTracker();
+ * if (!cooldowns.tryAcquire(player.getUniqueId(), 5000L)) {
+ *     return ExitCode.EXIT_COOLDOWN;
+ * }
+ * </pre>
+ *
+ * Senders are keyed by {@link UUID}, so the tracker never holds on to player
+ * objects, and senders without one should use {@link #senderKey(String, String)}
+ * so that each keeps a cooldown of its own. Checking and
+ * starting a cooldown is a single atomic step, so it is safe to call from
+ * asynchronous commands, and entries whose cooldown has passed are dropped
+ * as the tracker is used.
+ *
+ * @since 3.1
+ */
+public class CooldownTracker {
+    /**
+     * A key shared by every sender which doesn't have a {@link UUID}. Prefer
+     * {@link #senderKey(String, String)}, which gives each of them a key of its
+     * own.
+     */
+    public static final UUID CONSOLE = new UUID(0L, 0L);
+
+    /**
+     * Marks a slot that has been purged, and must not be used any more.
+     */
+    private static final long DEAD = Long.MIN_VALUE;
+
+    /**
+     * The shortest time between purges, in milliseconds.
+     */
+    private static final long PURGE_INTERVAL = 1000L;
+
+    /**
+     * The clock used to time cooldowns.
+     */
+    @Getter
+    private final Clock clock;
+
+    /**
+     * The time each sender's cooldown ends.
+     */
+    private final ConcurrentHashMap<UUID, AtomicLong> slots = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge;
+
+    /**
+     * Create a tracker using the system clock.
+     */
+    public CooldownTracker() {
+        this(Clock.system());
+    }
+
+    /**
+     * Create a tracker.
+     *
+     * @param clock The clock to time cooldowns with
+     */
+    public CooldownTracker(@NotNull Clock clock) {
+        this.clock = clock;
+        this.lastPurge = new AtomicLong(clock.currentTimeMillis());
+    }
+
+    /**
+     * Make a key for a sender which doesn't have a {@link UUID}, such as the
+     * console or a command block. The same type and name always give the same
+     * key, and it never matches a player's.
+     *
+     * @param type The kind of sender, such as its class name
+     * @param name The name of the sender, unique among senders of its type
+     * @return {@link UUID}
+     */
+    public static UUID senderKey(@NotNull String type, @NotNull String name) {
+        return UUID.nameUUIDFromBytes((type + ':' + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Start a cooldown for a sender, unless they are already on one.
+     *
+     * @param id       The sender
+     * @param cooldown The length of the cooldown, in milliseconds
+     * @return {@link Boolean} true if the sender wasn't on a cooldown
+     */
+    public boolean tryAcquire(@NotNull UUID id, long cooldown) {
+        long now = clock.currentTimeMillis();
+        purgeIfDue(now);
+
+        while (true) {
+            AtomicLong slot = slots.get(id);
+            if (slot == null) {
+                slot = slots.putIfAbsent(id, new AtomicLong(now + cooldown));
+                if (slot == null) {
+                    return true;
+                }
+            }
+
+            long end = slot.get();
+            if (end == DEAD) {
+                slots.remove(id, slot);
+                continue;
+            }
+            if (now < end) {
+                return false;
+            }
+            if (slot.compareAndSet(end, now + cooldown)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get how long a sender's cooldown has left.
+     *
+     * @param id The sender
+     * @return {@link Long} the remaining time in milliseconds, or 0 if they aren't
+     *         on a cooldown
+     */
+    public long getRemaining(@NotNull UUID id) {
+        AtomicLong slot = slots.get(id);
+        if (slot == null) {
+            return 0L;
+        }
+        long end = slot.get();
+        return end == DEAD ? 0L : Math.max(0L, end - clock.currentTimeMillis());
+    }
+
+    /**
+     * End a sender's cooldown early.
+     *
+     * @param id The sender
+     */
+    public void reset(@NotNull UUID id) {
+        slots.remove(id);
+    }
+
+    /**
+     * Get the number of senders currently tracked, including any whose cooldown
+     * has passed but which haven't been dropped yet.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Drop senders whose cooldown has passed, at most once per
+     * {@link #PURGE_INTERVAL}. A slot is only dropped if it can be atomically
+     * marked as dead, so a concurrent cooldown can never be lost.
+     */
+    private void purgeIfDue(long now) {
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        slots.forEach((id, slot) -> {
+            long end = slot.get();
+            if (end != DEAD && now >= end && slot.compareAndSet(end, DEAD)) {
+                slots.remove(id, slot);
+            }
+        });
+    }
+}
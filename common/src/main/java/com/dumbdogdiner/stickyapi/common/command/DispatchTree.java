@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dumbdogdiner.stickyapi.common.arguments.ArgumentSchema;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A command and its sub-commands, compiled into an immutable tree when the
+ * command is built.
+ * <p>
+ * Resolving a command walks the tree with an index into the arguments, so the
+ * arguments are never copied, and everything needed to run the resolved
+ * command is worked out ahead of time. Sub-commands are matched by their exact
+ * name. Sub-commands added after the tree is compiled aren't part of it.
+ *
+ * @param <T> The type of command builder
+ * @since 3.1
+ */
+public final class DispatchTree<T extends CommandBuilder<T>> {
+    /**
+     * A command in the tree.
+     *
+     * @param <T> The type of command builder
+     */
+    public static final class Node<T extends CommandBuilder<T>> {
+        /**
+         * The command this node runs.
+         */
+        @Getter
+        private final T command;
+
+        /**
+         * The names leading to this command, separated by spaces, starting with
+         * the root command.
+         */
+        @Getter
+        private final String path;
+
+        /**
+         * The number of arguments used to reach this command, and the index of its
+         * first argument.
+         */
+        @Getter
+        private final int depth;
+
+        /**
+         * Whether this command runs asynchronously, either because it is
+         * asynchronous itself or because its root is.
+         */
+        @Getter
+        private final boolean asynchronous;
+
+        /**
+         * The pool this command runs on, if it runs asynchronously.
+         */
+        @Getter
+        @Nullable
+        private final String poolName;
+
+        /**
+         * Whether reaching this command passes from an asynchronous command to a
+         * synchronous one, which isn't allowed.
+         */
+        @Getter
+        private final boolean illegal;
+
+        @Getter
+        private final String permission;
+
+        @Getter
+        private final boolean requiresPlayer;
+
+        @Getter
+        private final long cooldown;
+
+        @Getter
+        @Nullable
+        private final ArgumentSchema argumentSchema;
+
+        private final Map<String, Node<T>> children;
+
+        private Node(T command, Node<T> parent) {
+            this.command = command;
+            this.path = parent == null ? command.getName() : parent.path + " " + command.getName();
+            this.depth = parent == null ? 0 : parent.depth + 1;
+
+            boolean synchronous = Boolean.TRUE.equals(command.getSynchronous());
+            if (parent == null) {
+                this.asynchronous = !synchronous;
+                this.poolName = asynchronous ? command.getPoolName() : null;
+                this.illegal = false;
+            } else {
+                // The first asynchronous command on the way down picks the pool
+                this.asynchronous = parent.asynchronous || !synchronous;
+                this.poolName = parent.asynchronous ? parent.poolName : asynchronous ? command.getPoolName() : null;
+                this.illegal = parent.illegal || (!Boolean.TRUE.equals(parent.command.getSynchronous()) && synchronous);
+            }
+            this.permission = command.getPermission();
+            this.requiresPlayer = Boolean.TRUE.equals(command.getRequiresPlayer());
+            this.cooldown = command.getCooldown() == null ? 0 : command.getCooldown();
+            this.argumentSchema = command.getArgumentSchema();
+
+            Map<String, Node<T>> children = new HashMap<>();
+            for (Map.Entry<String, T> subCommand : command.getSubCommands().entrySet()) {
+                children.put(subCommand.getKey(), new Node<>(subCommand.getValue(), this));
+            }
+            this.children = children.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(children);
+        }
+
+        /**
+         * Get the sub-command with the given name.
+         *
+         * @param name The name
+         * @return {@link Node}, or null if there is no such sub-command
+         */
+        public @Nullable Node<T> getChild(@NotNull String name) {
+            return children.get(name);
+        }
+
+        /**
+         * Get the sub-commands of this command, by name.
+         *
+         * @return {@link Map}
+         */
+        public Map<String, Node<T>> getChildren() {
+            return children;
+        }
+
+        /**
+         * Get the arguments of this command from the arguments of its root
+         * command, without copying them.
+         *
+         * @param args The arguments given to the root command
+         * @return {@link List}
+         */
+        public List<String> arguments(@NotNull List<String> args) {
+            return depth == 0 ? args : args.subList(depth, args.size());
+        }
+    }
+
+    @Getter
+    private final Node<T> root;
+
+    private DispatchTree(T root) {
+        this.root = new Node<>(root, null);
+    }
+
+    /**
+     * Compile a command and its sub-commands.
+     *
+     * @param <T>  The type of command builder
+     * @param root The root command
+     * @return {@link DispatchTree}
+     */
+    public static <T extends CommandBuilder<T>> DispatchTree<T> compile(@NotNull T root) {
+        return new DispatchTree<>(root);
+    }
+
+    /**
+     * Find the command which the given arguments run: the deepest sub-command
+     * named by the leading arguments.
+     *
+     * @param args The arguments given to the root command
+     * @return {@link Node}
+     */
+    public Node<T> resolve(@NotNull String[] args) {
+        Node<T> node = root;
+        for (String arg : args) {
+            Node<T> child = node.getChild(arg);
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Find the command which the given arguments run: the deepest sub-command
+     * named by the leading arguments.
+     *
+     * @param args The arguments given to the root command
+     * @return {@link Node}
+     */
+    public Node<T> resolve(@NotNull List<String> args) {
+        Node<T> node = root;
+        for (int i = 0; i < args.size(); i++) {
+            Node<T> child = node.getChild(args.get(i));
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node;
+    }
+}
@@ -58,5 +58,12 @@ public enum ExitCode {
      * Although there is no difference between EXIT_SUCCESS and EXIT_ERROR_SILENT,
      * prefer using this exit code when possible for clearer code
      */
-    EXIT_ERROR_SILENT;
+    EXIT_ERROR_SILENT,
+    /**
+     * If the command has a rate limit and the sender, or everyone using the
+     * command, is performing it too often
+     *
+     * @since 3.1
+     */
+    EXIT_RATE_LIMITED;
 }
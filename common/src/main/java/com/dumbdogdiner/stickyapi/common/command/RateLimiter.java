@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dumbdogdiner.stickyapi.common.util.Clock;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Token bucket rate limits, either shared by everyone or kept for each sender.
+ *
+ * <pre>
+ * // Allow bursts of 5, refilling at 1 per second
+ * RateLimiter limiter = new RateLimiter(5, 1.0);
+ * if (!limiter.tryAcquire(player.getUniqueId())) {
+ *     return ExitCode.EXIT_RATE_LIMITED;
+ * }
+ * </pre>
+ *
+ * Each bucket is a single {@code long}: the time at which it will be full
+ * again. Taking a token pushes that time back by one refill interval, and is
+ * refused if it would push it further than {@code burst} intervals ahead, so
+ * a bucket is updated with one compare-and-set and never needs a lock or a
+ * refill task. Buckets which have refilled completely hold no information, and
+ * are dropped as the limiter is used.
+ *
+ * @since 3.1
+ */
+public class RateLimiter {
+    /**
+     * Marks a slot that has been purged, and must not be used any more.
+     */
+    private static final long DEAD = Long.MIN_VALUE;
+
+    /**
+     * The shortest time between purges, in nanoseconds.
+     */
+    private static final long PURGE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The number of tokens a full bucket holds.
+     */
+    @Getter
+    private final int burst;
+
+    /**
+     * The number of tokens added to each bucket per second.
+     */
+    @Getter
+    private final double rate;
+
+    /**
+     * The clock used to refill buckets.
+     */
+    @Getter
+    private final Clock clock;
+
+    /**
+     * The time it takes to add one token, in nanoseconds.
+     */
+    private final long interval;
+    /**
+     * How far ahead of now a bucket may be full, in nanoseconds, before it runs
+     * out of tokens.
+     */
+    private final long tolerance;
+
+    /**
+     * The bucket shared by everyone.
+     */
+    private final AtomicLong shared;
+    /**
+     * The bucket of each sender.
+     */
+    private final ConcurrentHashMap<UUID, AtomicLong> slots = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge;
+
+    /**
+     * Create a rate limiter using the system clock.
+     *
+     * @param burst The number of tokens a full bucket holds
+     * @param rate  The number of tokens added to each bucket per second
+     */
+    public RateLimiter(int burst, double rate) {
+        this(burst, rate, Clock.system());
+    }
+
+    /**
+     * Create a rate limiter.
+     *
+     * @param burst The number of tokens a full bucket holds
+     * @param rate  The number of tokens added to each bucket per second
+     * @param clock The clock to refill buckets with
+     */
+    public RateLimiter(int burst, double rate, @NotNull Clock clock) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1");
+        }
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.burst = burst;
+        this.rate = rate;
+        this.clock = clock;
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.tolerance = interval * (burst - 1);
+
+        long now = clock.nanoTime();
+        this.shared = new AtomicLong(now);
+        this.lastPurge = new AtomicLong(now);
+    }
+
+    /**
+     * Take a token from the bucket shared by everyone.
+     *
+     * @return {@link Boolean} true if there was a token to take
+     */
+    public boolean tryAcquire() {
+        return take(shared, clock.nanoTime()) > 0;
+    }
+
+    /**
+     * Take a token from a sender's bucket.
+     *
+     * @param id The sender
+     * @return {@link Boolean} true if there was a token to take
+     */
+    public boolean tryAcquire(@NotNull UUID id) {
+        long now = clock.nanoTime();
+        purgeIfDue(now);
+
+        while (true) {
+            AtomicLong slot = slots.get(id);
+            if (slot == null) {
+                // A new bucket is full, so the first token is always available
+                slot = slots.putIfAbsent(id, new AtomicLong(now + interval));
+                if (slot == null) {
+                    return true;
+                }
+            }
+            if (slot.get() == DEAD) {
+                slots.remove(id, slot);
+                continue;
+            }
+            // Only fails if the slot was purged while we were using it
+            int result = take(slot, now);
+            if (result >= 0) {
+                return result > 0;
+            }
+        }
+    }
+
+    /**
+     * Take a token from a bucket.
+     *
+     * @return 1 if a token was taken, 0 if the bucket is empty, or -1 if the bucket
+     *         is dead
+     */
+    private int take(AtomicLong bucket, long now) {
+        while (true) {
+            long full = bucket.get();
+            if (full == DEAD) {
+                return -1;
+            }
+            long start = Math.max(full, now);
+            if (start - now > tolerance) {
+                return 0;
+            }
+            if (bucket.compareAndSet(full, start + interval)) {
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken from the bucket shared by everyone, such as when a
+     * later check refuses the request it was taken for.
+     */
+    public void release() {
+        give(shared);
+    }
+
+    /**
+     * Give back a token taken from a sender's bucket, such as when a later check
+     * refuses the request it was taken for.
+     *
+     * @param id The sender
+     */
+    public void release(@NotNull UUID id) {
+        AtomicLong slot = slots.get(id);
+        if (slot != null) {
+            give(slot);
+        }
+    }
+
+    /**
+     * Put a token back into a bucket. Dead buckets are already full.
+     */
+    private void give(AtomicLong bucket) {
+        while (true) {
+            long full = bucket.get();
+            if (full == DEAD || bucket.compareAndSet(full, full - interval)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of tokens left in a sender's bucket.
+     *
+     * @param id The sender
+     * @return {@link Integer}
+     */
+    public int getAvailable(@NotNull UUID id) {
+        AtomicLong slot = slots.get(id);
+        return slot == null ? burst : available(slot.get());
+    }
+
+    /**
+     * Get the number of tokens left in the bucket shared by everyone.
+     *
+     * @return {@link Integer}
+     */
+    public int getAvailable() {
+        return available(shared.get());
+    }
+
+    private int available(long full) {
+        if (full == DEAD) {
+            return burst;
+        }
+        long ahead = full - clock.nanoTime();
+        if (ahead <= 0) {
+            return burst;
+        }
+        return (int) Math.max(0L, burst - (ahead + interval - 1) / interval);
+    }
+
+    /**
+     * Get the number of senders currently tracked, including any whose bucket has
+     * refilled but which haven't been dropped yet.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Drop buckets which have refilled completely, at most once per
+     * {@link #PURGE_INTERVAL}. A slot is only dropped if it can be atomically
+     * marked as dead, so a concurrent token can never be lost.
+     */
+    private void purgeIfDue(long now) {
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        slots.forEach((id, slot) -> {
+            long full = slot.get();
+            if (full != DEAD && full - now <= 0 && slot.compareAndSet(full, DEAD)) {
+                slots.remove(id, slot);
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Collapses bursts of tasks for the same key into a single run on the next
+ * {@link Scheduler} tick. Only the most recently submitted task for a key is
+ * run.
+ *
+ * <pre>
+ * // Update a scoreboard once per tick, no matter how many events change it
+ * Coalescer&lt;UUID&gt; updates = new Coalescer&lt;&gt;(scheduler);
+ * updates.submit(player.getUniqueId(), () -&gt; updateScoreboard(player));
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class Coalescer<K> {
+    private final Scheduler scheduler;
+    private final ConcurrentHashMap<K, Runnable> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new coalescer.
+     *
+     * @param scheduler to run tasks on
+     */
+    public Coalescer(@NotNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Submit a task for a key, replacing any task for that key which hasn't run
+     * yet.
+     *
+     * @param key  to coalesce on
+     * @param task to run on the next tick
+     */
+    public void submit(@NotNull K key, @NotNull Runnable task) {
+        if (pending.put(key, task) == null) {
+            // Always queued, even from the tick thread, so a burst within a tick
+            // collapses into one run
+            scheduler.scheduleSynchronous(Executors.callable(() -> flush(key)));
+        }
+    }
+
+    /**
+     * Cancel the task waiting for a key, if there is one.
+     *
+     * @param key to cancel
+     * @return True if a task was cancelled
+     */
+    public boolean cancel(@NotNull K key) {
+        return pending.remove(key) != null;
+    }
+
+    /**
+     * Get the number of keys with a task waiting to run.
+     *
+     * @return {@link Integer}
+     */
+    public int pending() {
+        return pending.size();
+    }
+
+    private void flush(K key) {
+        Runnable task = pending.remove(key);
+        if (task != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Delays a task until its key has gone quiet for a given amount of time. Only
+ * the most recently submitted task for a key is run.
+ *
+ * <pre>
+ * // Save a player's settings once they stop clicking for a second
+ * Debouncer&lt;UUID&gt; saves = new Debouncer&lt;&gt;(scheduler, 1, TimeUnit.SECONDS);
+ * saves.submit(player.getUniqueId(), () -&gt; saveSettings(player));
+ * </pre>
+ *
+ * Tasks run on the {@link Scheduler}'s synchronous thread. Submitting is
+ * lock-free, so it is safe to call directly from event handlers.
+ *
+ * @since 3.1
+ */
+public class Debouncer<K> {
+    private final Scheduler scheduler;
+    private final long delayMillis;
+    private final ConcurrentHashMap<K, Slot> slots = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        final AtomicReference<Runnable> task = new AtomicReference<>();
+        volatile long deadline;
+        volatile boolean closed;
+    }
+
+    /**
+     * Create a new debouncer.
+     *
+     * @param scheduler to run tasks on
+     * @param delay     of quiet time before a task is run
+     * @param unit      of the delay
+     */
+    public Debouncer(@NotNull Scheduler scheduler, long delay, @NotNull TimeUnit unit) {
+        this.scheduler = scheduler;
+        this.delayMillis = unit.toMillis(delay);
+    }
+
+    /**
+     * Submit a task for a key, replacing any task still waiting for that key and
+     * restarting its delay.
+     *
+     * @param key  to debounce on
+     * @param task to run once the key has gone quiet
+     */
+    public void submit(@NotNull K key, @NotNull Runnable task) {
+        while (true) {
+            Slot slot = slots.get(key);
+            if (slot == null) {
+                Slot created = new Slot();
+                slot = slots.putIfAbsent(key, created);
+                if (slot == null) {
+                    slot = created;
+                    slot.deadline = scheduler.getClock().currentTimeMillis() + delayMillis;
+                    slot.task.set(task);
+                    schedule(key, slot, delayMillis);
+                    return;
+                }
+            }
+
+            slot.deadline = scheduler.getClock().currentTimeMillis() + delayMillis;
+            slot.task.set(task);
+            // If the slot was closed by a firing timer, either the timer picked up our
+            // task (and will run it), or we take it back and retry with a fresh slot.
+            if (!slot.closed || !slot.task.compareAndSet(task, null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cancel the task waiting for a key, if there is one.
+     *
+     * @param key to cancel
+     * @return True if a task was cancelled
+     */
+    public boolean cancel(@NotNull K key) {
+        Slot slot = slots.get(key);
+        return slot != null && slot.task.getAndSet(null) != null;
+    }
+
+    /**
+     * Get the number of keys with a task waiting to run.
+     *
+     * @return {@link Integer}
+     */
+    public int pending() {
+        int pending = 0;
+        for (Slot slot : slots.values()) {
+            if (slot.task.get() != null) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private void schedule(K key, Slot slot, long delay) {
+        scheduler.scheduleSynchronous(Executors.callable(() -> fire(key, slot)), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(K key, Slot slot) {
+        long remaining = slot.deadline - scheduler.getClock().currentTimeMillis();
+        if (remaining > 0) {
+            // Re-submitted since this timer was scheduled, wait for the new deadline
+            schedule(key, slot, remaining);
+            return;
+        }
+
+        slots.remove(key, slot);
+        slot.closed = true;
+        Runnable task = slot.task.getAndSet(null);
+        if (task != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The strategies StickyAPI can use to execute asynchronous work submitted to
+ * {@link com.dumbdogdiner.stickyapi.StickyAPI#getPool()}.
+ *
+ * @since 3.1
+ */
+public enum ExecutionMode {
+    /**
+     * Run every task on its own virtual thread. Blocking (e.g. sleeping or I/O) is
+     * cheap, so this is the preferred mode when the runtime supports it (Java 21+).
+     */
+    VIRTUAL,
+    /**
+     * Run tasks on a work-stealing pool bounded to the number of available
+     * processors. Used as the fallback when virtual threads are unavailable.
+     */
+    WORK_STEALING,
+    /**
+     * Run tasks on an unbounded cached thread pool. This is the legacy behaviour,
+     * and may spawn a new platform thread for every task under load.
+     */
+    CACHED;
+
+    /**
+     * Lazily resolved factory for virtual thread executors, or null if the runtime
+     * does not support them.
+     */
+    private static final class VirtualThreads {
+        private static final Method FACTORY = resolve();
+
+        private static Method resolve() {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                // Preview builds expose the method but throw when it's invoked
+                ((ExecutorService) factory.invoke(null)).shutdown();
+                return factory;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Check if this mode can be used on the current runtime.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || VirtualThreads.FACTORY != null;
+    }
+
+    /**
+     * Create a new executor using this mode.
+     *
+     * @return {@link ExecutorService}
+     * @throws UnsupportedOperationException if this mode is not supported by the
+     *                                       current runtime
+     */
+    public @NotNull ExecutorService createExecutor() {
+        switch (this) {
+            case VIRTUAL:
+                if (!isSupported()) {
+                    throw new UnsupportedOperationException("Virtual threads are not supported by this runtime");
+                }
+                try {
+                    return (ExecutorService) VirtualThreads.FACTORY.invoke(null);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new UnsupportedOperationException("Failed to create a virtual thread executor", e);
+                }
+            case WORK_STEALING:
+                return Executors.newWorkStealingPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+            case CACHED:
+            default:
+                return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Get the best mode supported by the current runtime - {@link #VIRTUAL} if
+     * available, otherwise {@link #WORK_STEALING}.
+     *
+     * @return {@link ExecutionMode}
+     */
+    public static @NotNull ExecutionMode getDefault() {
+        return VIRTUAL.isSupported() ? VIRTUAL : WORK_STEALING;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A registry of named {@link InstrumentedExecutor} pools, so that commands and
+ * utilities can target a specific pool by name instead of the global one.
+ *
+ * @since 3.1
+ */
+public class ExecutorRegistry {
+    private final ConcurrentHashMap<String, InstrumentedExecutor> executors = new ConcurrentHashMap<>();
+
+    /**
+     * Register a pool under its name.
+     *
+     * @param executor The pool to register
+     * @throws IllegalArgumentException if a pool with the same name is already
+     *                                  registered
+     */
+    public void register(@NotNull InstrumentedExecutor executor) {
+        if (executors.putIfAbsent(executor.getName(), executor) != null) {
+            throw new IllegalArgumentException("A pool named '" + executor.getName() + "' is already registered");
+        }
+    }
+
+    /**
+     * Get a registered pool.
+     *
+     * @param name The name of the pool
+     * @return The pool, or null if no pool with the given name is registered
+     */
+    public @Nullable InstrumentedExecutor get(@NotNull String name) {
+        return executors.get(name);
+    }
+
+    /**
+     * Get all registered pools.
+     *
+     * @return {@link Collection}
+     */
+    public Collection<InstrumentedExecutor> getAll() {
+        return Collections.unmodifiableCollection(executors.values());
+    }
+
+    /**
+     * Take a snapshot of the metrics of every registered pool.
+     *
+     * @return {@link List}
+     */
+    public List<PoolMetrics> getMetrics() {
+        List<PoolMetrics> metrics = new ArrayList<>();
+        for (InstrumentedExecutor executor : executors.values()) {
+            metrics.add(executor.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Unregister and shut down a pool. Queued tasks are still run.
+     *
+     * @param name The name of the pool
+     * @return True if a pool was removed
+     */
+    public boolean unregister(@NotNull String name) {
+        InstrumentedExecutor executor = executors.remove(name);
+        if (executor == null) {
+            return false;
+        }
+        executor.shutdown();
+        return true;
+    }
+
+    /**
+     * Unregister and shut down every pool belonging to the given owner. This should
+     * be called when a plugin is disabled.
+     *
+     * @param owner The owner of the pools (usually a plugin name)
+     * @return The number of pools that were shut down
+     */
+    public int shutdown(@NotNull String owner) {
+        int count = 0;
+        for (InstrumentedExecutor executor : executors.values()) {
+            if (owner.equals(executor.getOwner()) && executors.remove(executor.getName(), executor)) {
+                executor.shutdown();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Unregister and shut down every pool.
+     */
+    public void shutdownAll() {
+        for (String name : executors.keySet()) {
+            unregister(name);
+        }
+    }
+}
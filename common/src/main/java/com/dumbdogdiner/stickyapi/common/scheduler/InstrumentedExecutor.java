@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dumbdogdiner.stickyapi.common.util.MemoryMonitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A bounded thread pool that records how long tasks wait in its queue and how
+ * long they take to run.
+ * <p>
+ * Instances are created with a {@link PoolBuilder}, and are usually registered
+ * with the {@link ExecutorRegistry} available at
+ * {@link com.dumbdogdiner.stickyapi.StickyAPI#getExecutors()}.
+ *
+ * @since 3.1
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+    @FunctionalInterface
+    public interface BackpressureListener {
+        /**
+         * Called when the queue of an executor fills up past its high watermark. This
+         * is called on the submitting thread, so it should return quickly.
+         *
+         * @param executor   The saturated executor
+         * @param queueDepth The number of tasks waiting in the queue
+         */
+        void onBackpressure(InstrumentedExecutor executor, int queueDepth);
+    }
+
+    /**
+     * The name of this pool.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The owner of this pool (usually a plugin name), or null if it isn't owned by
+     * anything.
+     */
+    @Getter
+    private final String owner;
+
+    /**
+     * The maximum number of tasks that may wait in the queue.
+     */
+    @Getter
+    private final int queueCapacity;
+
+    /**
+     * The queue depth at which the backpressure listener is notified.
+     */
+    @Getter
+    private final int highWatermark;
+
+    private final BackpressureListener backpressureListener;
+    private final AtomicBoolean saturated = new AtomicBoolean(false);
+
+    private MemoryMonitor memoryMonitor;
+    private MemoryMonitor.Listener pressureListener;
+    private volatile boolean shedding = false;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Long::max, 0);
+
+    InstrumentedExecutor(@NotNull String name, @Nullable String owner, int coreThreads, int maxThreads,
+            long keepAliveMillis, int queueCapacity, int highWatermark, @NotNull RejectionPolicy policy,
+            @Nullable BackpressureListener backpressureListener) {
+        super(coreThreads, maxThreads, keepAliveMillis, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory(name));
+        this.name = name;
+        this.owner = owner;
+        this.queueCapacity = queueCapacity;
+        this.highWatermark = highWatermark;
+        this.backpressureListener = backpressureListener;
+
+        RejectedExecutionHandler handler = policy.toHandler();
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.increment();
+            handler.rejectedExecution(task, executor);
+        });
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        // DISCARD_OLDEST re-submits tasks that have already been wrapped
+        if (command instanceof TimedTask) {
+            super.execute(command);
+            return;
+        }
+
+        submitted.increment();
+        if (shedding) {
+            shed.increment();
+            if (command instanceof Future) {
+                ((Future<?>) command).cancel(false);
+            }
+            return;
+        }
+        super.execute(new TimedTask(command));
+
+        int depth = getQueue().size();
+        if (depth >= highWatermark && saturated.compareAndSet(false, true) && backpressureListener != null) {
+            backpressureListener.onBackpressure(this, depth);
+        }
+    }
+
+    /**
+     * Drop new tasks while memory pressure is at or above the given level.
+     */
+    void shedUnder(MemoryMonitor monitor, MemoryMonitor.Pressure pressure) {
+        this.memoryMonitor = monitor;
+        this.pressureListener = (previous, current) -> shedding = current.compareTo(pressure) >= 0;
+        this.shedding = monitor.isAtLeast(pressure);
+        monitor.addListener(pressureListener);
+    }
+
+    /**
+     * Check if this pool is dropping new tasks because of memory pressure.
+     *
+     * @return {@link Boolean}
+     * @since 3.1
+     */
+    public boolean isShedding() {
+        return shedding;
+    }
+
+    @Override
+    protected void terminated() {
+        if (memoryMonitor != null) {
+            memoryMonitor.removeListener(pressureListener);
+        }
+        super.terminated();
+    }
+
+    /**
+     * Check if the queue of this pool has reached its high watermark, and hasn't
+     * since drained below half of it.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isSaturated() {
+        return saturated.get();
+    }
+
+    /**
+     * Take a snapshot of the metrics of this pool.
+     *
+     * @return {@link PoolMetrics}
+     */
+    public PoolMetrics getMetrics() {
+        long done = completed.sum() + failed.sum();
+        return new PoolMetrics(name, getActiveCount(), getPoolSize(), getQueue().size(), queueCapacity,
+                submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), shed.sum(),
+                done == 0 ? 0 : totalWaitNanos.sum() / done, maxWaitNanos.get(),
+                done == 0 ? 0 : totalRunNanos.sum() / done, maxRunNanos.get());
+    }
+
+    /**
+     * Wraps submitted tasks to record their queue wait and execution time. Timing
+     * is done inside the task itself so that tasks run by
+     * {@link RejectionPolicy#CALLER_RUNS} are measured too.
+     */
+    private final class TimedTask implements Runnable {
+        private final Runnable delegate;
+        private final long enqueuedAt = System.nanoTime();
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            long wait = startedAt - enqueuedAt;
+            totalWaitNanos.add(wait);
+            maxWaitNanos.accumulate(wait);
+
+            if (saturated.get() && getQueue().size() < highWatermark / 2) {
+                saturated.set(false);
+            }
+
+            boolean success = false;
+            try {
+                delegate.run();
+                success = true;
+            } finally {
+                long run = System.nanoTime() - startedAt;
+                totalRunNanos.add(run);
+                maxRunNanos.accumulate(run);
+                (success ? completed : failed).increment();
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads named after the pool they belong to.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.prefix = "StickyAPI-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.dumbdogdiner.stickyapi.common.util.Clock;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A job made of named stages which depend on each other. Each stage runs either
+ * on a {@link Scheduler}'s thread pool or on its synchronous (main) thread, as
+ * soon as all of its dependencies have finished, so independent stages run in
+ * parallel.
+ *
+ * <pre>
+ * Pipeline rollover = new Pipeline("season-rollover", scheduler)
+ *         .stage("kick", Pipeline.Affinity.SYNC, run -&gt; kickPlayers())
+ *         .stage("backup", Pipeline.Affinity.ASYNC, run -&gt; backupWorld(), "kick")
+ *         .stage("stats", Pipeline.Affinity.ASYNC, run -&gt; archiveStats(), "kick")
+ *         .stage("reset", Pipeline.Affinity.SYNC, run -&gt; resetWorld(), "backup", "stats");
+ *
+ * rollover.run().toFuture().whenComplete((v, e) -&gt; ...);
+ * </pre>
+ *
+ * Dependencies must be added before the stages that depend on them, which
+ * rules out cycles. If a stage fails, the rest of the run is cancelled: stages
+ * which haven't started yet are skipped, and stages which are already running
+ * can check {@link Run#isCancelled()} to stop early.
+ *
+ * @since 3.1
+ */
+public class Pipeline {
+    /**
+     * The thread a stage runs on.
+     */
+    public enum Affinity {
+        /**
+         * Run on the scheduler's thread pool.
+         */
+        ASYNC,
+        /**
+         * Run on the scheduler's synchronous thread, during a
+         * {@link Scheduler#schedule()} pass.
+         */
+        SYNC
+    }
+
+    /**
+     * The state of a stage within a {@link Run}.
+     */
+    public enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        /**
+         * Run a stage.
+         *
+         * @param run The run this stage is part of, which can be used to get the
+         *            results of earlier stages
+         * @return The result of this stage, or null
+         * @throws Exception if the stage fails
+         */
+        Object apply(Run run) throws Exception;
+    }
+
+    /**
+     * The name of this pipeline.
+     */
+    @Getter
+    private final String name;
+
+    private final Scheduler scheduler;
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * Create a new, empty pipeline.
+     *
+     * @param name      of the pipeline
+     * @param scheduler to run stages on
+     */
+    public Pipeline(@NotNull String name, @NotNull Scheduler scheduler) {
+        this.name = name;
+        this.scheduler = scheduler;
+    }
+
+    private static final class Stage {
+        final String name;
+        final Affinity affinity;
+        final Action action;
+        final String[] dependencies;
+
+        Stage(String name, Affinity affinity, Action action, String[] dependencies) {
+            this.name = name;
+            this.affinity = affinity;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * Add a stage to this pipeline.
+     *
+     * @param name         of the stage
+     * @param affinity     the thread the stage should run on
+     * @param action       to run
+     * @param dependencies names of stages which must finish first
+     * @return {@link Pipeline}
+     * @throws IllegalArgumentException if a stage with this name already exists,
+     *                                  or a dependency hasn't been added yet
+     */
+    public Pipeline stage(@NotNull String name, @NotNull Affinity affinity, @NotNull Action action,
+            @NotNull String... dependencies) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Pipeline " + this.name + " already has a stage named " + name);
+        }
+        for (String dependency : dependencies) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        "Stage " + name + " depends on " + dependency + ", which must be added before it");
+            }
+        }
+        stages.put(name, new Stage(name, affinity, action, dependencies.clone()));
+        return this;
+    }
+
+    /**
+     * Add a stage without a result to this pipeline.
+     *
+     * @param name         of the stage
+     * @param affinity     the thread the stage should run on
+     * @param runnable     to run
+     * @param dependencies names of stages which must finish first
+     * @return {@link Pipeline}
+     */
+    public Pipeline stage(@NotNull String name, @NotNull Affinity affinity, @NotNull Runnable runnable,
+            @NotNull String... dependencies) {
+        return stage(name, affinity, run -> {
+            runnable.run();
+            return null;
+        }, dependencies);
+    }
+
+    /**
+     * Start a new run of this pipeline. Stages without dependencies are submitted
+     * immediately.
+     *
+     * @return {@link Run}
+     */
+    public Run run() {
+        return new Run();
+    }
+
+    /**
+     * Timings of a single stage within a {@link Run}. Times are measured with the
+     * scheduler's {@link Clock#nanoTime()}.
+     */
+    public static final class StageTiming {
+        @Getter
+        private final String name;
+        @Getter
+        private final Affinity affinity;
+        @Getter
+        private volatile State state = State.PENDING;
+
+        private static final long UNSET = Long.MIN_VALUE;
+
+        private volatile long readyAt = UNSET;
+        private volatile long startedAt = UNSET;
+        private volatile long finishedAt = UNSET;
+
+        StageTiming(String name, Affinity affinity) {
+            this.name = name;
+            this.affinity = affinity;
+        }
+
+        /**
+         * Get how long this stage waited for a thread after its dependencies
+         * finished, in nanoseconds.
+         *
+         * @return {@link Long}
+         */
+        public long getWaitNanos() {
+            return startedAt == UNSET || readyAt == UNSET ? 0 : startedAt - readyAt;
+        }
+
+        /**
+         * Get how long this stage ran for, in nanoseconds.
+         *
+         * @return {@link Long}
+         */
+        public long getRunNanos() {
+            return finishedAt == UNSET ? 0 : finishedAt - startedAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s) %s: waited %.2fms, ran %.2fms", name, affinity, state,
+                    getWaitNanos() / 1e6, getRunNanos() / 1e6);
+        }
+    }
+
+    /**
+     * A single run of a {@link Pipeline}.
+     */
+    public final class Run {
+        private final Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        private final Map<String, StageTiming> timings = new LinkedHashMap<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+        private volatile boolean cancelled = false;
+
+        Run() {
+            Clock clock = scheduler.getClock();
+            List<CompletableFuture<?>> settled = new ArrayList<>(stages.size());
+            for (Stage stage : stages.values()) {
+                StageTiming timing = new StageTiming(stage.name, stage.affinity);
+                timings.put(stage.name, timing);
+
+                Executor executor = stage.affinity == Affinity.SYNC ? scheduler.getSynchronousExecutor()
+                        : scheduler.getAsynchronousExecutor();
+                CompletableFuture<?> ready = dependenciesOf(stage).thenRun(() -> timing.readyAt = clock.nanoTime());
+                CompletableFuture<Object> future = ready.thenApplyAsync(v -> execute(stage, timing, clock),
+                        executor);
+                // Completion waits on these, so it always sees the failure they record
+                settled.add(future.whenComplete((result, error) -> {
+                    if (error == null) {
+                        return;
+                    }
+                    if (timing.state == State.PENDING) {
+                        timing.state = State.CANCELLED;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (!(cause instanceof CancellationException) && failure.compareAndSet(null, cause)) {
+                        cancel();
+                    }
+                }));
+                futures.put(stage.name, future);
+            }
+
+            CompletableFuture.allOf(settled.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+                Throwable cause = failure.get();
+                if (cause != null) {
+                    completion.completeExceptionally(cause);
+                } else if (cancelled) {
+                    completion.cancel(false);
+                } else {
+                    completion.complete(null);
+                }
+            });
+
+            // Nothing may run until every stage has been wired up
+            started.complete(null);
+        }
+
+        private CompletableFuture<?> dependenciesOf(Stage stage) {
+            if (stage.dependencies.length == 0) {
+                return started;
+            }
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage.dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = futures.get(stage.dependencies[i]);
+            }
+            return CompletableFuture.allOf(dependencies);
+        }
+
+        private Object execute(Stage stage, StageTiming timing, Clock clock) {
+            if (cancelled) {
+                throw new CancellationException("Pipeline " + name + " was cancelled");
+            }
+
+            timing.state = State.RUNNING;
+            timing.startedAt = clock.nanoTime();
+            try {
+                Object result = stage.action.apply(this);
+                timing.state = State.SUCCEEDED;
+                return result;
+            } catch (Throwable e) {
+                timing.state = e instanceof CancellationException ? State.CANCELLED : State.FAILED;
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                throw new CompletionException(e);
+            } finally {
+                timing.finishedAt = clock.nanoTime();
+            }
+        }
+
+        /**
+         * Get the pipeline this run belongs to.
+         *
+         * @return {@link Pipeline}
+         */
+        public Pipeline getPipeline() {
+            return Pipeline.this;
+        }
+
+        /**
+         * Get the result of a stage which has finished successfully.
+         *
+         * @param stage name of the stage
+         * @return The result of the stage, or null if it hasn't finished or had no
+         *         result
+         */
+        @SuppressWarnings("unchecked")
+        public <T> @Nullable T getResult(@NotNull String stage) {
+            CompletableFuture<Object> future = futures.get(stage);
+            if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+                return null;
+            }
+            return (T) future.join();
+        }
+
+        /**
+         * Get the future of a single stage.
+         *
+         * @param stage name of the stage
+         * @return {@link CompletableFuture}, or null if there is no such stage
+         */
+        public @Nullable CompletableFuture<Object> getStage(@NotNull String stage) {
+            return futures.get(stage);
+        }
+
+        /**
+         * Get the timings of every stage, in the order they were added.
+         *
+         * @return {@link List}
+         */
+        public List<StageTiming> getTimings() {
+            return Collections.unmodifiableList(new ArrayList<>(timings.values()));
+        }
+
+        /**
+         * Cancel this run. Stages which haven't started yet are skipped, and stages
+         * which are already running are left to finish.
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Map.Entry<String, CompletableFuture<Object>> entry : futures.entrySet()) {
+                if (timings.get(entry.getKey()).state == State.PENDING) {
+                    entry.getValue().cancel(false);
+                }
+            }
+        }
+
+        /**
+         * Check if this run has been cancelled, either explicitly or because a stage
+         * failed. Long-running stages should check this periodically.
+         *
+         * @return {@link Boolean}
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Get a future which completes once every stage has either finished or been
+         * skipped. It completes exceptionally with the first failure, or is
+         * cancelled if the run was cancelled.
+         *
+         * @return {@link CompletableFuture}
+         */
+        public CompletableFuture<Void> toFuture() {
+            return completion;
+        }
+    }
+}
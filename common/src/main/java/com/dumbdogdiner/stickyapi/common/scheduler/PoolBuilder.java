@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import com.dumbdogdiner.stickyapi.common.util.MemoryMonitor;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builder for bounded {@link InstrumentedExecutor} pools.
+ *
+ * <pre>
+ * InstrumentedExecutor database = new PoolBuilder("database").owner(plugin.getName()).threads(2, 4)
+ *         .queueCapacity(512).rejectionPolicy(RejectionPolicy.CALLER_RUNS).register();
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class PoolBuilder {
+    private final String name;
+    private String owner;
+    private int coreThreads = 1;
+    private int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private long keepAliveMillis = 60_000L;
+    private int queueCapacity = 1024;
+    private int highWatermark = -1;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private InstrumentedExecutor.BackpressureListener backpressureListener;
+    private MemoryMonitor memoryMonitor;
+    private MemoryMonitor.Pressure shedPressure;
+
+    /**
+     * Create a new {@link PoolBuilder} instance
+     *
+     * @param name The name of the pool
+     */
+    public PoolBuilder(@NotNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Set the owner of the pool (usually a plugin name). Pools are shut down along
+     * with the rest of their owner's pools by
+     * {@link ExecutorRegistry#shutdown(String)}.
+     *
+     * @param owner The owner of the pool
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder owner(@NotNull String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    /**
+     * Set the number of threads in the pool.
+     *
+     * @param core The number of threads to keep alive while idle
+     * @param max  The maximum number of threads
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder threads(int core, int max) {
+        if (core < 0 || max <= 0 || max < core) {
+            throw new IllegalArgumentException("Invalid thread counts: core = " + core + ", max = " + max);
+        }
+        this.coreThreads = core;
+        this.maxThreads = max;
+        return this;
+    }
+
+    /**
+     * Set a fixed number of threads in the pool.
+     *
+     * @param threads The number of threads
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder threads(int threads) {
+        return threads(threads, threads);
+    }
+
+    /**
+     * Set how long threads above the core count may stay idle before they are
+     * stopped.
+     *
+     * @param keepAliveMillis in milliseconds
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder keepAlive(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of tasks that may wait in the queue.
+     * <p>
+     * Note that threads above the core count are only started once the queue is
+     * full.
+     *
+     * @param queueCapacity The capacity of the queue
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder queueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Set what the pool should do when its threads and queue are full.
+     *
+     * @param rejectionPolicy The policy to use
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder rejectionPolicy(@NotNull RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+        return this;
+    }
+
+    /**
+     * Set a listener to notify when the queue depth reaches the given watermark.
+     * The listener is notified again once the queue has drained below half of the
+     * watermark and filled back up.
+     *
+     * @param highWatermark The queue depth to notify at
+     * @param listener      The listener to notify
+     * @return {@link PoolBuilder}
+     */
+    public PoolBuilder backpressure(int highWatermark, @NotNull InstrumentedExecutor.BackpressureListener listener) {
+        this.highWatermark = highWatermark;
+        this.backpressureListener = listener;
+        return this;
+    }
+
+    /**
+     * Mark the pool as low priority: while memory pressure is at or above the
+     * given level, new tasks are dropped instead of queued. Dropped tasks which
+     * are {@link java.util.concurrent.Future futures} are cancelled.
+     *
+     * @param monitor  The monitor to watch
+     * @param pressure The pressure level at which to start dropping tasks
+     * @return {@link PoolBuilder}
+     * @since 3.1
+     */
+    public PoolBuilder shedUnder(@NotNull MemoryMonitor monitor, @NotNull MemoryMonitor.Pressure pressure) {
+        this.memoryMonitor = monitor;
+        this.shedPressure = pressure;
+        return this;
+    }
+
+    /**
+     * Build the pool!
+     *
+     * @return {@link InstrumentedExecutor}
+     */
+    public InstrumentedExecutor build() {
+        // Default to warning when the queue is 3/4 full
+        int watermark = highWatermark > 0 ? Math.min(highWatermark, queueCapacity) : Math.max(1, queueCapacity * 3 / 4);
+        InstrumentedExecutor executor = new InstrumentedExecutor(name, owner, coreThreads, maxThreads,
+                keepAliveMillis, queueCapacity, watermark, rejectionPolicy, backpressureListener);
+        if (memoryMonitor != null) {
+            executor.shedUnder(memoryMonitor, shedPressure);
+        }
+        return executor;
+    }
+
+    /**
+     * Build the pool and register it with the given registry.
+     *
+     * @param registry to register with
+     * @return {@link InstrumentedExecutor}
+     */
+    public InstrumentedExecutor register(@NotNull ExecutorRegistry registry) {
+        InstrumentedExecutor executor = build();
+        registry.register(executor);
+        return executor;
+    }
+}
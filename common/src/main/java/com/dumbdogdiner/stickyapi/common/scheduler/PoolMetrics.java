@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import lombok.Getter;
+
+/**
+ * An immutable snapshot of the metrics of an {@link InstrumentedExecutor}.
+ * <p>
+ * Times are in nanoseconds. Tasks submitted with <code>submit()</code> capture
+ * their own exceptions, so they are always counted as completed.
+ *
+ * @since 3.1
+ */
+@Getter
+public class PoolMetrics {
+    private final String name;
+    private final int activeThreads;
+    private final int poolSize;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long submittedTasks;
+    private final long completedTasks;
+    private final long failedTasks;
+    private final long rejectedTasks;
+    /**
+     * Tasks dropped because of memory pressure.
+     *
+     * @since 3.1
+     */
+    private final long shedTasks;
+    private final long averageWaitNanos;
+    private final long maxWaitNanos;
+    private final long averageRunNanos;
+    private final long maxRunNanos;
+
+    PoolMetrics(String name, int activeThreads, int poolSize, int queueDepth, int queueCapacity,
+            long submittedTasks, long completedTasks, long failedTasks, long rejectedTasks, long shedTasks,
+            long averageWaitNanos, long maxWaitNanos, long averageRunNanos, long maxRunNanos) {
+        this.name = name;
+        this.activeThreads = activeThreads;
+        this.poolSize = poolSize;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.submittedTasks = submittedTasks;
+        this.completedTasks = completedTasks;
+        this.failedTasks = failedTasks;
+        this.rejectedTasks = rejectedTasks;
+        this.shedTasks = shedTasks;
+        this.averageWaitNanos = averageWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.averageRunNanos = averageRunNanos;
+        this.maxRunNanos = maxRunNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: %d/%d active, queue %d/%d, %d submitted, %d completed, %d failed, %d rejected, %d shed, wait avg %.2fms (max %.2fms), run avg %.2fms (max %.2fms)",
+                name, activeThreads, poolSize, queueDepth, queueCapacity, submittedTasks, completedTasks,
+                failedTasks, rejectedTasks, shedTasks, averageWaitNanos / 1e6, maxWaitNanos / 1e6, averageRunNanos / 1e6,
+                maxRunNanos / 1e6);
+    }
+}
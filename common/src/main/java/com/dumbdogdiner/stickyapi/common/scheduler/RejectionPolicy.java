@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * What an {@link InstrumentedExecutor} should do with a task when both its
+ * threads and its queue are full.
+ *
+ * @since 3.1
+ */
+public enum RejectionPolicy {
+    /**
+     * Throw a {@link java.util.concurrent.RejectedExecutionException} to the
+     * submitter.
+     */
+    ABORT,
+    /**
+     * Run the task on the submitting thread, slowing the submitter down.
+     */
+    CALLER_RUNS,
+    /**
+     * Silently drop the task.
+     */
+    DISCARD,
+    /**
+     * Drop the oldest queued task and retry the submission.
+     */
+    DISCARD_OLDEST;
+
+    /**
+     * Get the {@link RejectedExecutionHandler} implementing this policy.
+     *
+     * @return {@link RejectedExecutionHandler}
+     */
+    public @NotNull RejectedExecutionHandler toHandler() {
+        switch (this) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case ABORT:
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+}
@@ -6,14 +6,23 @@ package com.dumbdogdiner.stickyapi.common.scheduler;
 
 import java.time.DateTimeException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.Date;
 import java.util.Queue;
-import java.util.ArrayDeque;
+
+import com.dumbdogdiner.stickyapi.common.util.Clock;
+
+import org.jetbrains.annotations.NotNull;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -27,12 +36,56 @@ public class Scheduler {
 	 * Array of tasks to be run on the main thread or synchronously
 	 */
 	@Getter
-	protected Queue<RunnableFuture<?>> synchronous = new ArrayDeque<RunnableFuture<?>>();
+	protected Queue<RunnableFuture<?>> synchronous = new ConcurrentLinkedQueue<RunnableFuture<?>>();
 	/**
 	 * Array of tasks to be run as part of a thread pool.
 	 */
 	@Getter
-	protected Queue<RunnableFuture<?>> asynchronous = new ArrayDeque<RunnableFuture<?>>();
+	protected Queue<RunnableFuture<?>> asynchronous = new ConcurrentLinkedQueue<RunnableFuture<?>>();
+
+	/**
+	 * Tasks to be run synchronously once their due time has passed, ordered by due
+	 * time.
+	 */
+	protected Queue<DelayedTask<?>> delayed = new PriorityBlockingQueue<DelayedTask<?>>();
+	private final AtomicLong delayedSequence = new AtomicLong();
+
+	/**
+	 * The thread currently running {@link #schedule()}, if any.
+	 */
+	private volatile Thread tickThread;
+
+	/**
+	 * Records queue wait and execution times of tasks, and the duration of each
+	 * {@link #schedule()} pass. Disabled by default.
+	 */
+	@Getter
+	private final SchedulerProfiler profiler = new SchedulerProfiler(this);
+
+	/**
+	 * Executor that queues tasks for the next {@link #schedule()} pass, or runs
+	 * them immediately when already called from within a pass.
+	 */
+	@Getter
+	private final Executor synchronousExecutor = task -> {
+		if (Thread.currentThread() == tickThread) {
+			profiler.wrap(task).run();
+		} else {
+			synchronous.add(new FutureTask<Void>(profiler.wrap(task), null));
+		}
+	};
+
+	/**
+	 * The clock used to decide when delayed synchronous tasks are due, and to
+	 * time tasks for the {@link SchedulerProfiler}. Tests can replace it with a
+	 * {@link com.dumbdogdiner.stickyapi.common.util.VirtualClock} and drive the
+	 * scheduler with a {@link SimulatedTickDriver}. Delayed threaded tasks always
+	 * use real time.
+	 */
+	@Getter
+	@Setter
+	@NotNull
+	protected Clock clock = Clock.system();
 
 	/**
 	 * The thread pool to use for executing tasks.
@@ -40,6 +93,8 @@ public class Scheduler {
 	@Setter
 	protected ScheduledThreadPoolExecutor pool;
 
+	private final Executor asynchronousExecutor = task -> this.pool.execute(profiler.wrap(task));
+
 	public Scheduler(int poolsz) {
 		this.pool = new ScheduledThreadPoolExecutor(poolsz);
 	}
@@ -50,7 +105,7 @@ public class Scheduler {
 	 * @param task to execute
 	 */
 	public <V> Future<V> scheduleThreaded(Callable<V> task) {
-		RunnableFuture<V> t = new FutureTask<V>(task);
+		RunnableFuture<V> t = new FutureTask<V>(profiler.wrap(task, 0));
 		this.pool.execute(t);
 		return (FutureTask<V>) t;
 	}
@@ -63,12 +118,12 @@ public class Scheduler {
 	 */
 	public <T> Future<T> scheduleThreaded(Callable<T> task, Date time) {
 		long future = time.getTime();
-		long now = System.currentTimeMillis();
+		long now = clock.currentTimeMillis();
 		if (future <= now)
 			throw new DateTimeException("Get the time machine, morty! We're going back to the future!");
 
 		long delay = future - now;
-		return this.pool.schedule(task, delay, TimeUnit.MILLISECONDS);
+		return scheduleThreaded(task, delay, TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -78,7 +133,7 @@ public class Scheduler {
 	 * @param task to run
 	 */
 	public <T> Future<T> scheduleSynchronous(Callable<T> task) {
-		FutureTask<T> t = new FutureTask<T>(task);
+		FutureTask<T> t = new FutureTask<T>(profiler.wrap(task, 0));
 		this.synchronous.add(t);
 		return t;
 	}
@@ -90,18 +145,122 @@ public class Scheduler {
 	 * @param time to execute the task
 	 */
 	public <T> Future<T> scheduleSynchronous(Callable<T> task, Date time) {
-		// TODO: Make synchronous version of this?
-		return new FutureTask<T>(task);
+		long future = time.getTime();
+		long now = clock.currentTimeMillis();
+		if (future <= now)
+			throw new DateTimeException("Get the time machine, morty! We're going back to the future!");
+
+		return scheduleSynchronous(task, future - now, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Schedule a function/task to run synchronously after a delay. The task runs
+	 * during the first {@link #schedule()} pass after the delay has elapsed.
+	 * 
+	 * @param task  to run
+	 * @param delay before running the task
+	 * @param unit  of the delay
+	 */
+	public <T> Future<T> scheduleSynchronous(Callable<T> task, long delay, TimeUnit unit) {
+		DelayedTask<T> t = new DelayedTask<T>(profiler.wrap(task, unit.toNanos(delay)),
+				clock.currentTimeMillis() + Math.max(0, unit.toMillis(delay)), delayedSequence.getAndIncrement());
+		this.delayed.add(t);
+		return t;
+	}
+
+	/**
+	 * Schedule a function/task to run asynchronously after a delay.
+	 * 
+	 * @param task  to run
+	 * @param delay before running the task
+	 * @param unit  of the delay
+	 */
+	public <T> Future<T> scheduleThreaded(Callable<T> task, long delay, TimeUnit unit) {
+		return this.pool.schedule(profiler.wrap(task, unit.toNanos(delay)), delay, unit);
+	}
+
+	/**
+	 * Get an executor that runs tasks on this scheduler's thread pool.
+	 * 
+	 * @return {@link Executor}
+	 */
+	public Executor getAsynchronousExecutor() {
+		return asynchronousExecutor;
+	}
+
+	/**
+	 * Start a chain of tasks by running a supplier asynchronously. Continuations
+	 * can then hop between threads with {@link TaskChain#thenSync} and
+	 * {@link TaskChain#thenAsync}.
+	 * 
+	 * @param supplier to run
+	 * @return {@link TaskChain}
+	 */
+	public <T> TaskChain<T> supplyAsync(@NotNull Supplier<T> supplier) {
+		return new TaskChain<T>(this, CompletableFuture.supplyAsync(supplier, getAsynchronousExecutor()));
+	}
+
+	/**
+	 * Start a chain of tasks by running a supplier in the synchronous thread,
+	 * during the next {@link #schedule()} pass.
+	 * 
+	 * @param supplier to run
+	 * @return {@link TaskChain}
+	 */
+	public <T> TaskChain<T> supplySync(@NotNull Supplier<T> supplier) {
+		return new TaskChain<T>(this, CompletableFuture.supplyAsync(supplier, getSynchronousExecutor()));
 	}
 
 	/**
 	 * Run all pending synchronous calls until they're finished. NOTE: This should
 	 * be called in the application's eventloop or in a single thread.
+	 * <p>
+	 * Only tasks queued before the pass started are run, so every continuation
+	 * that completed since the last pass is run in one batch, and tasks that keep
+	 * re-queueing themselves can't stall the event loop.
 	 */
 	public void schedule() {
-		RunnableFuture<?> task = null;
-		while ((task = this.synchronous.poll()) != null)
-			task.run();
+		boolean profiling = profiler.isEnabled();
+		long start = profiling ? clock.nanoTime() : 0;
+		tickThread = Thread.currentThread();
+		try {
+			long now = clock.currentTimeMillis();
+			DelayedTask<?> due = null;
+			while ((due = this.delayed.peek()) != null && due.time <= now) {
+				this.delayed.poll().run();
+			}
+
+			int pending = this.synchronous.size();
+			RunnableFuture<?> task = null;
+			while (pending-- > 0 && (task = this.synchronous.poll()) != null)
+				task.run();
+		} finally {
+			tickThread = null;
+			if (profiling) {
+				profiler.getTickHistogram().record(clock.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * A synchronous task waiting for its due time. Tasks due at the same time run
+	 * in the order they were scheduled.
+	 */
+	protected static class DelayedTask<T> extends FutureTask<T> implements Comparable<DelayedTask<?>> {
+		final long time;
+		final long sequence;
+
+		DelayedTask(Callable<T> task, long time, long sequence) {
+			super(task);
+			this.time = time;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(DelayedTask<?> other) {
+			int byTime = Long.compare(time, other.time);
+			return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+		}
 	}
 
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.dumbdogdiner.stickyapi.common.util.Clock;
+import com.dumbdogdiner.stickyapi.common.util.Histogram;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Records how long tasks queued on a {@link Scheduler} wait before they run,
+ * and how long they take, tagged by task name or by the class which submitted
+ * them. Also records how long each {@link Scheduler#schedule()} pass takes.
+ *
+ * <pre>
+ * scheduler.getProfiler().setEnabled(true);
+ * scheduler.getProfiler().startReporting(1, TimeUnit.MINUTES, 5, StickyAPI.getLogger()::info);
+ * </pre>
+ *
+ * The profiler is disabled by default. While disabled, tasks are not wrapped
+ * and the only cost is a single volatile read per submitted task. Times are
+ * read from the scheduler's {@link com.dumbdogdiner.stickyapi.common.util.Clock}.
+ * <p>
+ * Untagged tasks are tagged by the class which declares them, which is usually
+ * the class which submitted them. Tasks wrapped by the scheduler or
+ * {@link java.util.concurrent}, such as {@link TaskChain} continuations, can
+ * instead be tagged by walking the stack to find their submitter with
+ * {@link #setTagBySubmitter(boolean)}, which costs a stack walk per task.
+ *
+ * @since 3.1
+ */
+public class SchedulerProfiler {
+    /**
+     * A task which provides its own tag, instead of being tagged by the class
+     * which submitted it. See {@link SchedulerProfiler#named(String, Callable)}.
+     */
+    public interface Tagged {
+        String getTag();
+    }
+
+    /**
+     * Classes which are skipped when looking for the class that submitted a task.
+     */
+    private static final Set<String> INTERNAL_CLASSES = Set.of(SchedulerProfiler.class.getName(),
+            Scheduler.class.getName(), TaskChain.class.getName(), TaskGroup.class.getName(),
+            Pipeline.class.getName(), Debouncer.class.getName(), Throttler.class.getName(), Coalescer.class.getName());
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final Scheduler scheduler;
+    /**
+     * The tag of each task class, cached so tagging a task never walks the stack.
+     */
+    private static final ClassValue<String> CLASS_TAGS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return outerName(type);
+        }
+    };
+
+    private final ConcurrentHashMap<String, TaskProfile> profiles = new ConcurrentHashMap<>();
+    private volatile boolean enabled = false;
+    private volatile boolean tagBySubmitter = false;
+
+    /**
+     * The duration of every {@link Scheduler#schedule()} pass, in nanoseconds.
+     */
+    @Getter
+    private final Histogram tickHistogram = new Histogram();
+
+    SchedulerProfiler(@NotNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Wait and run time histograms of every task with the same tag. Times are in
+     * nanoseconds.
+     */
+    public static final class TaskProfile {
+        @Getter
+        private final String tag;
+        @Getter
+        private final Histogram waitHistogram = new Histogram();
+        @Getter
+        private final Histogram runHistogram = new Histogram();
+
+        TaskProfile(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d runs, %.2fms total, run p50 %.3fms p99 %.3fms max %.3fms, wait p99 %.3fms",
+                    tag, runHistogram.getCount(), runHistogram.getSum() / 1e6, runHistogram.getPercentile(50) / 1e6,
+                    runHistogram.getPercentile(99) / 1e6, runHistogram.getMax() / 1e6,
+                    waitHistogram.getPercentile(99) / 1e6);
+        }
+    }
+
+    /**
+     * Check if this profiler is recording.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording. Tasks submitted while disabled are never recorded,
+     * even if they run after the profiler is enabled.
+     *
+     * @param enabled whether to record
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check if untagged tasks are tagged by the class which submitted them.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isTagBySubmitter() {
+        return tagBySubmitter;
+    }
+
+    /**
+     * Tag untagged tasks by the class which submitted them, found by walking the
+     * stack, instead of by the class which declares them.
+     *
+     * @param tagBySubmitter whether to walk the stack for each task
+     */
+    public void setTagBySubmitter(boolean tagBySubmitter) {
+        this.tagBySubmitter = tagBySubmitter;
+    }
+
+    /**
+     * Give a task a name to be profiled under.
+     *
+     * @param tag  to profile the task under
+     * @param task to name
+     * @return {@link Callable}
+     */
+    public static <T> Callable<T> named(@NotNull String tag, @NotNull Callable<T> task) {
+        return new NamedCallable<T>(tag, task);
+    }
+
+    /**
+     * Give a task a name to be profiled under.
+     *
+     * @param tag  to profile the task under
+     * @param task to name
+     * @return {@link Runnable}
+     */
+    public static Runnable named(@NotNull String tag, @NotNull Runnable task) {
+        return new NamedRunnable(tag, task);
+    }
+
+    /**
+     * Wrap a task so its wait and run times are recorded, if enabled.
+     *
+     * @param task       to wrap
+     * @param delayNanos before the task is due
+     * @return The wrapped task, or the task itself if disabled
+     */
+    <T> Callable<T> wrap(Callable<T> task, long delayNanos) {
+        if (!enabled) {
+            return task;
+        }
+        TaskProfile profile = profileFor(task);
+        Clock clock = scheduler.getClock();
+        long readyAt = clock.nanoTime() + delayNanos;
+        return () -> {
+            long start = clock.nanoTime();
+            profile.waitHistogram.record(start - readyAt);
+            try {
+                return task.call();
+            } finally {
+                profile.runHistogram.record(clock.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so its wait and run times are recorded, if enabled.
+     *
+     * @param task to wrap
+     * @return The wrapped task, or the task itself if disabled
+     */
+    Runnable wrap(Runnable task) {
+        if (!enabled) {
+            return task;
+        }
+        TaskProfile profile = profileFor(task);
+        Clock clock = scheduler.getClock();
+        long readyAt = clock.nanoTime();
+        return () -> {
+            long start = clock.nanoTime();
+            profile.waitHistogram.record(start - readyAt);
+            try {
+                task.run();
+            } finally {
+                profile.runHistogram.record(clock.nanoTime() - start);
+            }
+        };
+    }
+
+    private TaskProfile profileFor(Object task) {
+        String tag;
+        if (task instanceof Tagged) {
+            tag = ((Tagged) task).getTag();
+        } else if (tagBySubmitter) {
+            tag = submitter();
+        } else {
+            tag = CLASS_TAGS.get(task.getClass());
+        }
+        return profiles.computeIfAbsent(tag, TaskProfile::new);
+    }
+
+    private static String submitter() {
+        Optional<Class<?>> caller = WALKER.walk(frames -> frames.map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(SchedulerProfiler::isExternal).findFirst());
+        return caller.map(Class::getName).orElse("unknown");
+    }
+
+    private static boolean isExternal(Class<?> clazz) {
+        // Lambdas and inner classes of the scheduler are internal too
+        String name = outerName(clazz);
+        return !INTERNAL_CLASSES.contains(name) && !name.startsWith("java.util.concurrent.");
+    }
+
+    /**
+     * Get the name of the top level class a class, lambda or inner class is
+     * declared in.
+     */
+    private static String outerName(Class<?> clazz) {
+        String name = clazz.getName();
+        int nested = name.indexOf('$');
+        return nested > 0 ? name.substring(0, nested) : name;
+    }
+
+    /**
+     * Get the profile of every tag recorded so far.
+     *
+     * @return {@link List}
+     */
+    public List<TaskProfile> getProfiles() {
+        return new ArrayList<>(profiles.values());
+    }
+
+    /**
+     * Get the tags which have spent the most time running, in descending order.
+     *
+     * @param limit maximum number of tags to return
+     * @return {@link List}
+     */
+    public List<TaskProfile> getTopOffenders(int limit) {
+        List<TaskProfile> sorted = getProfiles();
+        sorted.sort(Comparator.comparingLong((TaskProfile p) -> p.runHistogram.getSum()).reversed());
+        return sorted.size() > limit ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+    }
+
+    /**
+     * Build a human readable report of the tick durations and the tags which have
+     * spent the most time running.
+     *
+     * @param limit maximum number of tags to include
+     * @return {@link String}
+     */
+    public String dump(int limit) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Ticks: %d, p50 %.3fms, p99 %.3fms, max %.3fms", tickHistogram.getCount(),
+                tickHistogram.getPercentile(50) / 1e6, tickHistogram.getPercentile(99) / 1e6,
+                tickHistogram.getMax() / 1e6));
+        int rank = 1;
+        for (TaskProfile profile : getTopOffenders(limit)) {
+            builder.append('\n').append(rank++).append(". ").append(profile);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Clear everything recorded so far.
+     */
+    public void reset() {
+        profiles.clear();
+        tickHistogram.reset();
+    }
+
+    /**
+     * Periodically send a top offenders report to a consumer, from the
+     * scheduler's thread pool. Nothing is sent while the profiler is disabled.
+     *
+     * @param interval between reports
+     * @param unit     of the interval
+     * @param limit    maximum number of tags per report
+     * @param sink     to send reports to
+     * @return A future which can be cancelled to stop reporting
+     */
+    public Future<?> startReporting(long interval, @NotNull TimeUnit unit, int limit, @NotNull Consumer<String> sink) {
+        return scheduler.pool.scheduleAtFixedRate(() -> {
+            if (enabled) {
+                sink.accept(dump(limit));
+            }
+        }, interval, interval, unit);
+    }
+
+    private static final class NamedCallable<T> implements Callable<T>, Tagged {
+        private final String tag;
+        private final Callable<T> task;
+
+        NamedCallable(String tag, Callable<T> task) {
+            this.tag = tag;
+            this.task = task;
+        }
+
+        @Override
+        public String getTag() {
+            return tag;
+        }
+
+        @Override
+        public T call() throws Exception {
+            return task.call();
+        }
+    }
+
+    private static final class NamedRunnable implements Runnable, Tagged {
+        private final String tag;
+        private final Runnable task;
+
+        NamedRunnable(String tag, Runnable task) {
+            this.tag = tag;
+            this.task = task;
+        }
+
+        @Override
+        public String getTag() {
+            return tag;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.dumbdogdiner.stickyapi.common.util.VirtualClock;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Drives a {@link Scheduler} with virtual time instead of a server tick loop.
+ * Each tick moves a {@link VirtualClock} forward by a fixed amount and runs one
+ * {@link Scheduler#schedule()} pass on the calling thread, so tests of timers,
+ * cooldowns and expiry are deterministic and run as fast as the tasks allow.
+ *
+ * <pre>
+ * VirtualClock clock = new VirtualClock();
+ * SimulatedTickDriver driver = new SimulatedTickDriver(scheduler, clock);
+ * scheduler.scheduleSynchronous(task, 5, TimeUnit.SECONDS);
+ * driver.runFor(5, TimeUnit.SECONDS); // task has now run, 100 ticks later
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class SimulatedTickDriver {
+    /**
+     * The length of a Minecraft server tick, in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 50;
+
+    @Getter
+    private final Scheduler scheduler;
+
+    @Getter
+    private final VirtualClock clock;
+
+    private final long tickNanos;
+
+    /**
+     * The number of ticks run so far.
+     */
+    @Getter
+    private long ticks = 0;
+
+    /**
+     * Create a new driver with 50ms ticks. The scheduler's clock is replaced with
+     * the given virtual clock.
+     *
+     * @param scheduler to drive
+     * @param clock     to advance
+     */
+    public SimulatedTickDriver(@NotNull Scheduler scheduler, @NotNull VirtualClock clock) {
+        this(scheduler, clock, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a new driver. The scheduler's clock is replaced with the given
+     * virtual clock.
+     *
+     * @param scheduler  to drive
+     * @param clock      to advance
+     * @param tickLength amount of virtual time that passes every tick
+     * @param unit       of the tick length
+     */
+    public SimulatedTickDriver(@NotNull Scheduler scheduler, @NotNull VirtualClock clock, long tickLength,
+            @NotNull TimeUnit unit) {
+        if (tickLength <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive");
+        }
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.tickNanos = unit.toNanos(tickLength);
+        scheduler.setClock(clock);
+    }
+
+    /**
+     * Run a single tick.
+     */
+    public void tick() {
+        clock.advance(tickNanos, TimeUnit.NANOSECONDS);
+        scheduler.schedule();
+        ticks++;
+    }
+
+    /**
+     * Run a number of ticks.
+     *
+     * @param count of ticks to run
+     */
+    public void tick(long count) {
+        for (long i = 0; i < count; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Run as many ticks as fit in an amount of virtual time.
+     *
+     * @param duration of virtual time to run for
+     * @param unit     of the duration
+     * @return The number of ticks run
+     */
+    public long runFor(long duration, @NotNull TimeUnit unit) {
+        long count = unit.toNanos(duration) / tickNanos;
+        tick(count);
+        return count;
+    }
+
+    /**
+     * Run ticks until a condition holds, checking it before every tick.
+     *
+     * @param condition to wait for
+     * @param maxTicks  to run before giving up
+     * @return True if the condition was met, false if it timed out
+     */
+    public boolean runUntil(@NotNull BooleanSupplier condition, long maxTicks) {
+        for (long i = 0; i < maxTicks; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            tick();
+        }
+        return condition.getAsBoolean();
+    }
+}
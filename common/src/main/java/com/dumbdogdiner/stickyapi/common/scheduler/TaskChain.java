@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A fluent wrapper around {@link CompletableFuture} for hopping between a
+ * {@link Scheduler}'s thread pool and its synchronous (main) thread.
+ *
+ * <pre>
+ * scheduler.supplyAsync(() -&gt; database.loadProfile(uuid))
+ *         .thenSync(profile -&gt; applyToPlayer(player, profile))
+ *         .thenAsync(result -&gt; database.logJoin(uuid, result));
+ * </pre>
+ *
+ * Synchronous continuations are queued for the scheduler's next
+ * {@link Scheduler#schedule()} pass, so every continuation that completes
+ * within a tick is run in a single main-thread pass. Continuations of a stage
+ * that already ran on the synchronous thread run immediately.
+ *
+ * @since 3.1
+ */
+public final class TaskChain<T> {
+    private final Scheduler scheduler;
+    private final CompletableFuture<T> future;
+
+    TaskChain(@NotNull Scheduler scheduler, @NotNull CompletableFuture<T> future) {
+        this.scheduler = scheduler;
+        this.future = future;
+    }
+
+    /**
+     * Transform the result of the previous stage on the synchronous thread.
+     *
+     * @param function to run
+     * @return {@link TaskChain}
+     */
+    public <U> TaskChain<U> thenSync(@NotNull Function<? super T, ? extends U> function) {
+        return new TaskChain<U>(scheduler, future.thenApplyAsync(function, scheduler.getSynchronousExecutor()));
+    }
+
+    /**
+     * Transform the result of the previous stage on the scheduler's thread pool.
+     *
+     * @param function to run
+     * @return {@link TaskChain}
+     */
+    public <U> TaskChain<U> thenAsync(@NotNull Function<? super T, ? extends U> function) {
+        return new TaskChain<U>(scheduler, future.thenApplyAsync(function, scheduler.getAsynchronousExecutor()));
+    }
+
+    /**
+     * Consume the result of the previous stage on the synchronous thread.
+     *
+     * @param consumer to run
+     * @return {@link TaskChain}
+     */
+    public TaskChain<Void> acceptSync(@NotNull Consumer<? super T> consumer) {
+        return new TaskChain<Void>(scheduler, future.thenAcceptAsync(consumer, scheduler.getSynchronousExecutor()));
+    }
+
+    /**
+     * Consume the result of the previous stage on the scheduler's thread pool.
+     *
+     * @param consumer to run
+     * @return {@link TaskChain}
+     */
+    public TaskChain<Void> acceptAsync(@NotNull Consumer<? super T> consumer) {
+        return new TaskChain<Void>(scheduler, future.thenAcceptAsync(consumer, scheduler.getAsynchronousExecutor()));
+    }
+
+    /**
+     * Recover from a failure in any previous stage on the synchronous thread, e.g.
+     * to message the player that something went wrong.
+     *
+     * @param handler to run, given the failure
+     * @return {@link TaskChain}
+     */
+    public TaskChain<T> exceptionallySync(@NotNull Function<Throwable, ? extends T> handler) {
+        CompletableFuture<T> recovered = future.handleAsync((value, error) -> {
+            if (error == null) {
+                return value;
+            }
+            return handler.apply(error);
+        }, scheduler.getSynchronousExecutor());
+        return new TaskChain<T>(scheduler, recovered);
+    }
+
+    /**
+     * Get the underlying future of this chain.
+     *
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<T> toFuture() {
+        return future;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.StickyAPI;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A group of tasks belonging to one owner, usually a plugin or module. Every
+ * task submitted through a group is tracked until it finishes, so all of them
+ * can be cancelled in one call when the owner is disabled or reloaded.
+ *
+ * <pre>
+ * TaskGroup tasks = new TaskGroup(getName(), scheduler);
+ * tasks.submit(() -&gt; loadStats(player));
+ *
+ * // in onDisable()
+ * for (TaskGroup.Task&lt;?&gt; leaked : tasks.close()) {
+ *     getLogger().warning("Task did not stop: " + leaked);
+ * }
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class TaskGroup {
+    /**
+     * The owner of this group.
+     */
+    @Getter
+    private final String owner;
+
+    private final Scheduler scheduler;
+    private final Executor executor;
+    private final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    /**
+     * Create a new task group which runs asynchronous tasks on
+     * {@link StickyAPI#getPool()}. Synchronous tasks are not supported by groups
+     * created without a {@link Scheduler}.
+     *
+     * @param owner of the group
+     */
+    public TaskGroup(@NotNull String owner) {
+        this(owner, null);
+    }
+
+    /**
+     * Create a new task group which runs asynchronous tasks on
+     * {@link StickyAPI#getPool()} and synchronous tasks on the given scheduler.
+     *
+     * @param owner     of the group
+     * @param scheduler to run synchronous tasks on
+     */
+    public TaskGroup(@NotNull String owner, @Nullable Scheduler scheduler) {
+        this(owner, scheduler, null);
+    }
+
+    /**
+     * Create a new task group.
+     *
+     * @param owner     of the group
+     * @param scheduler to run synchronous tasks on
+     * @param executor  to run asynchronous tasks on, or null to use
+     *                  {@link StickyAPI#getPool()}
+     */
+    public TaskGroup(@NotNull String owner, @Nullable Scheduler scheduler, @Nullable Executor executor) {
+        this.owner = owner;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    /**
+     * A task tracked by a {@link TaskGroup}.
+     */
+    public final class Task<T> extends FutureTask<T> {
+        /**
+         * A short description of the task, used when reporting leaks.
+         */
+        @Getter
+        private final String description;
+
+        /**
+         * The time this task was submitted, in milliseconds since the epoch.
+         */
+        @Getter
+        private final long submittedAt = System.currentTimeMillis();
+
+        /**
+         * The thread currently running this task, or null if it isn't running.
+         */
+        @Getter
+        private volatile Thread runner;
+
+        private volatile boolean started = false;
+        private volatile Future<?> carrier;
+
+        Task(Callable<T> callable, Object source) {
+            super(callable);
+            this.description = source.getClass().getName();
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            runner = Thread.currentThread();
+            try {
+                super.run();
+            } finally {
+                runner = null;
+                tasks.remove(this);
+            }
+        }
+
+        @Override
+        protected void done() {
+            // A task cancelled while it is running stays tracked until it actually
+            // returns, so it can be reported as leaked.
+            if (!started) {
+                tasks.remove(this);
+            }
+            Future<?> carrier = this.carrier;
+            if (carrier != null && isCancelled()) {
+                carrier.cancel(false);
+            }
+        }
+
+        /**
+         * Check if this task has been cancelled, but is still running.
+         *
+         * @return {@link Boolean}
+         */
+        public boolean isLeaked() {
+            return isCancelled() && runner != null;
+        }
+
+        @Override
+        public String toString() {
+            Thread runner = this.runner;
+            return description + " [owner=" + owner + ", age=" + (System.currentTimeMillis() - submittedAt) + "ms"
+                    + (runner == null ? "" : ", thread=" + runner.getName()) + "]";
+        }
+    }
+
+    private <T> Task<T> track(Callable<T> callable, Object source) {
+        if (closed) {
+            throw new RejectedExecutionException("Task group of " + owner + " has been closed");
+        }
+        Task<T> task = new Task<T>(callable, source);
+        tasks.add(task);
+        // close() may have run between the check and the add
+        if (closed) {
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    /**
+     * Run a task asynchronously.
+     *
+     * @param callable to run
+     * @return {@link Task}
+     */
+    public <T> Task<T> submit(@NotNull Callable<T> callable) {
+        return execute(track(callable, callable));
+    }
+
+    /**
+     * Run a task asynchronously.
+     *
+     * @param runnable to run
+     * @return {@link Task}
+     */
+    public Task<Object> submit(@NotNull Runnable runnable) {
+        return execute(track(Executors.callable(runnable), runnable));
+    }
+
+    private <T> Task<T> execute(Task<T> task) {
+        (executor == null ? StickyAPI.getPool() : executor).execute(task);
+        return task;
+    }
+
+    /**
+     * Run a task in the synchronous thread, during the next {@link Scheduler}
+     * pass.
+     *
+     * @param callable to run
+     * @return {@link Task}
+     * @throws IllegalStateException if this group was created without a
+     *                               {@link Scheduler}
+     */
+    public <T> Task<T> submitSync(@NotNull Callable<T> callable) {
+        Scheduler scheduler = requireScheduler();
+        Task<T> task = track(callable, callable);
+        task.carrier = scheduler.scheduleSynchronous(Executors.callable(task));
+        return task;
+    }
+
+    /**
+     * Run a task in the synchronous thread after a delay.
+     *
+     * @param callable to run
+     * @param delay    before running the task
+     * @param unit     of the delay
+     * @return {@link Task}
+     * @throws IllegalStateException if this group was created without a
+     *                               {@link Scheduler}
+     */
+    public <T> Task<T> scheduleSync(@NotNull Callable<T> callable, long delay, @NotNull TimeUnit unit) {
+        Scheduler scheduler = requireScheduler();
+        Task<T> task = track(callable, callable);
+        task.carrier = scheduler.scheduleSynchronous(Executors.callable(task), delay, unit);
+        return task;
+    }
+
+    /**
+     * Run a task asynchronously after a delay, on the {@link Scheduler}'s thread
+     * pool.
+     *
+     * @param callable to run
+     * @param delay    before running the task
+     * @param unit     of the delay
+     * @return {@link Task}
+     * @throws IllegalStateException if this group was created without a
+     *                               {@link Scheduler}
+     */
+    public <T> Task<T> scheduleAsync(@NotNull Callable<T> callable, long delay, @NotNull TimeUnit unit) {
+        Scheduler scheduler = requireScheduler();
+        Task<T> task = track(callable, callable);
+        task.carrier = scheduler.scheduleThreaded(Executors.callable(task), delay, unit);
+        return task;
+    }
+
+    private Scheduler requireScheduler() {
+        if (scheduler == null) {
+            throw new IllegalStateException("Task group of " + owner + " has no scheduler");
+        }
+        return scheduler;
+    }
+
+    /**
+     * Cancel every task in this group which hasn't finished yet. The group can
+     * still be used afterwards.
+     *
+     * @param mayInterruptIfRunning whether running tasks should be interrupted
+     * @return The number of tasks that were cancelled
+     */
+    public int cancelAll(boolean mayInterruptIfRunning) {
+        int cancelled = 0;
+        for (Task<?> task : tasks) {
+            if (task.cancel(mayInterruptIfRunning)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel and interrupt every task in this group, and reject any further
+     * submissions.
+     *
+     * @return The tasks which were still running after being cancelled
+     */
+    public List<Task<?>> close() {
+        closed = true;
+        cancelAll(true);
+        return getLeaked();
+    }
+
+    /**
+     * Check if this group has been closed.
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the number of tasks in this group which haven't finished yet.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Get every task in this group which hasn't finished yet.
+     *
+     * @return {@link List}
+     */
+    public List<Task<?>> getAlive() {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Get the tasks in this group which have been cancelled, but are still
+     * running. These usually ignore interrupts, and may keep references to the
+     * owner alive after it has been disabled.
+     *
+     * @return {@link List}
+     */
+    public List<Task<?>> getLeaked() {
+        List<Task<?>> leaked = new ArrayList<>();
+        for (Task<?> task : tasks) {
+            if (task.isLeaked()) {
+                leaked.add(task);
+            }
+        }
+        return leaked;
+    }
+}
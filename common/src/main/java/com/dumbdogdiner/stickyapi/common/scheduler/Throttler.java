@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs a task for a key at most once per interval.
+ *
+ * <pre>
+ * // Save player X at most once every 5 seconds
+ * Throttler&lt;UUID&gt; saves = new Throttler&lt;&gt;(scheduler, 5, TimeUnit.SECONDS);
+ * saves.submit(player.getUniqueId(), () -&gt; save(player));
+ * </pre>
+ *
+ * Every task runs on the {@link Scheduler}'s synchronous thread. If a key is
+ * allowed to run, the task is queued for the next tick. Otherwise the most
+ * recently submitted task is kept and run once the interval has passed, so the
+ * last update is never lost. Submitting is lock-free, so it is safe to call
+ * directly from event handlers.
+ *
+ * @since 3.1
+ */
+public class Throttler<K> {
+    /**
+     * Marks a slot that has been purged, and must not be used any more.
+     */
+    private static final long DEAD = Long.MAX_VALUE;
+
+    private final Scheduler scheduler;
+    private final long intervalMillis;
+    private final ConcurrentHashMap<K, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge;
+
+    private static final class Slot {
+        final AtomicLong nextAllowed = new AtomicLong();
+        final AtomicReference<Runnable> trailing = new AtomicReference<>();
+    }
+
+    /**
+     * Create a new throttler.
+     *
+     * @param scheduler to run tasks on
+     * @param interval  between runs for the same key
+     * @param unit      of the interval
+     */
+    public Throttler(@NotNull Scheduler scheduler, long interval, @NotNull TimeUnit unit) {
+        this.scheduler = scheduler;
+        this.intervalMillis = unit.toMillis(interval);
+        this.lastPurge = new AtomicLong(scheduler.getClock().currentTimeMillis());
+    }
+
+    /**
+     * Submit a task for a key.
+     *
+     * @param key  to throttle on
+     * @param task to run
+     * @return True if the task was queued for the next tick, false if it was
+     *         deferred until the interval has passed
+     */
+    public boolean submit(@NotNull K key, @NotNull Runnable task) {
+        long now = scheduler.getClock().currentTimeMillis();
+        purgeIfDue(now);
+
+        while (true) {
+            Slot slot = slots.get(key);
+            if (slot == null) {
+                Slot created = new Slot();
+                slot = slots.putIfAbsent(key, created);
+                if (slot == null) {
+                    slot = created;
+                }
+            }
+
+            long next = slot.nextAllowed.get();
+            if (next == DEAD) {
+                slots.remove(key, slot);
+                continue;
+            }
+
+            if (now >= next) {
+                if (slot.nextAllowed.compareAndSet(next, now + intervalMillis)) {
+                    scheduler.scheduleSynchronous(Executors.callable(task));
+                    return true;
+                }
+                continue;
+            }
+
+            if (slot.trailing.getAndSet(task) == null) {
+                long delay = next - now;
+                Slot target = slot;
+                scheduler.scheduleSynchronous(Executors.callable(() -> fire(target)), delay, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Check if a key would be allowed to run right now.
+     *
+     * @param key to check
+     * @return {@link Boolean}
+     */
+    public boolean isAllowed(@NotNull K key) {
+        Slot slot = slots.get(key);
+        return slot == null || scheduler.getClock().currentTimeMillis() >= slot.nextAllowed.get();
+    }
+
+    /**
+     * Get the number of keys currently tracked.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    private void fire(Slot slot) {
+        Runnable task = slot.trailing.getAndSet(null);
+        if (task != null) {
+            slot.nextAllowed.set(scheduler.getClock().currentTimeMillis() + intervalMillis);
+            task.run();
+        }
+    }
+
+    /**
+     * Drop slots that have been idle for a whole interval, at most once per
+     * interval. A slot is only dropped if it can be atomically marked as dead, so
+     * a concurrent submit can never be lost.
+     */
+    private void purgeIfDue(long now) {
+        long last = lastPurge.get();
+        if (now - last < Math.max(intervalMillis, 1000L) || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        slots.forEach((key, slot) -> {
+            long next = slot.nextAllowed.get();
+            if (next != DEAD && now - next >= intervalMillis && slot.trailing.get() == null
+                    && slot.nextAllowed.compareAndSet(next, DEAD)) {
+                slots.remove(key, slot);
+            }
+        });
+    }
+}
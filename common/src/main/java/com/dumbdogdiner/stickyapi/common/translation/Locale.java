@@ -56,10 +56,11 @@ public class Locale {
      * @return {@link java.lang.String}
      */
     public String get(@NotNull String node) {
-        debug.reset().print("fetching node " + node);
-        debug.print("node value: " + localeConfig.getString(node));
+        debug.reset().print("fetching node %s", node);
+        String value = localeConfig.getString(node);
+        debug.print("node value: %s", value);
 
-        return localeConfig.getString(node);
+        return value;
     }
 
 }
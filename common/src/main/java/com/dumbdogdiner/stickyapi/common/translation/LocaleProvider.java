@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import com.dumbdogdiner.stickyapi.common.util.Debugger;
+import com.dumbdogdiner.stickyapi.common.util.Tracer;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -73,7 +74,7 @@ public class LocaleProvider {
      * @return {@link java.lang.Boolean}
      */
     public boolean loadLocale(@NotNull File file) {
-        debug.reset().print("Looking for localization in " + file.getName() + "...");
+        debug.reset().print("Looking for localization in %s...", file.getName());
 
         if (!file.exists() || file.isDirectory()) {
             debug.print("Could not find file - does not exist, or is directory");
@@ -81,7 +82,8 @@ public class LocaleProvider {
         }
 
         // Ensure the same locale isn't loaded twice.
-        if (loadedLocales.containsKey(file.getName().substring(0, file.getName().length() - 4))) {
+        String name = file.getName().substring(0, file.getName().length() - 4);
+        if (loadedLocales.containsKey(name)) {
             debug.print("Skipping loading locale - already loaded");
             return false;
         }
@@ -92,8 +94,8 @@ public class LocaleProvider {
             return false;
         }
 
-        loadedLocales.put(file.getName().substring(0, file.getName().length() - 4), locale);
-        debug.print("Successfully loaded locale '" + file.getName().substring(0, file.getName().length() - 4) + "'");
+        loadedLocales.put(name, locale);
+        debug.print("Successfully loaded locale '%s'", name);
 
         return true;
     }
@@ -116,7 +118,7 @@ public class LocaleProvider {
                 ++accumulator;
         }
 
-        debug.print("Loaded " + accumulator + " locales");
+        debug.print("Loaded %d locales", accumulator);
         return accumulator;
     }
 
@@ -143,7 +145,9 @@ public class LocaleProvider {
             return null;
         }
 
-        return Translation.translate(this, message, "&", vars);
+        try (Tracer.Span span = Tracer.span("translation", "translate", node)) {
+            return Translation.translate(this, message, "&", vars);
+        }
     }
 
     /**
@@ -164,7 +168,9 @@ public class LocaleProvider {
         if (message == null)
             return null;
 
-        return Translation.translateVariables(this, message, vars);
+        try (Tracer.Span span = Tracer.span("translation", "translateNoColor", node)) {
+            return Translation.translateVariables(this, message, vars);
+        }
     }
 
     /**
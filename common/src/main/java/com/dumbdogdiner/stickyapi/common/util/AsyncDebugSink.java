@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Writes {@link Debugger} messages from a background thread, so printing a
+ * debug message on the main thread only costs a queue insertion.
+ * <p>
+ * Messages are queued unformatted in a bounded, lock-free ring buffer, and
+ * formatted by the background thread. Arguments are only turned into strings
+ * once the message is written, so copy any argument which may change after it
+ * is printed, or build the message on the calling thread with
+ * {@link Debugger#print(java.util.function.Supplier)}. What happens when the
+ * buffer fills up is decided by the {@link OverflowPolicy}. The background
+ * thread sleeps while the buffer is empty, and is woken by the next message.
+ *
+ * <pre>
+ * Debugger.setSink(new AsyncDebugSink(8192, AsyncDebugSink.OverflowPolicy.SAMPLE, 100));
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class AsyncDebugSink implements AutoCloseable {
+    /**
+     * What to do with a message when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the message.
+         */
+        DROP,
+        /**
+         * Wait for the background thread to make room. Never loses messages, but can
+         * stall the caller.
+         */
+        BLOCK,
+        /**
+         * Once the buffer is half full, only accept one in every
+         * <code>sampleRate</code> messages, and drop messages when it is full. Keeps
+         * a representative trickle of messages under sustained load.
+         */
+        SAMPLE
+    }
+
+    /**
+     * A message waiting to be formatted and written.
+     */
+    static final class Record {
+        final Logger logger;
+        final String prefix;
+        final String format;
+        final Object[] args;
+        final String suffix;
+
+        Record(Logger logger, String prefix, String format, Object[] args, String suffix) {
+            this.logger = logger;
+            this.prefix = prefix;
+            this.format = format;
+            this.args = args;
+            this.suffix = suffix;
+        }
+
+        String format() {
+            String message = args == null || args.length == 0 ? format : String.format(format, args);
+            return prefix + message + suffix;
+        }
+    }
+
+    @Getter
+    private final int capacity;
+
+    @Getter
+    private final OverflowPolicy policy;
+
+    @Getter
+    private final int sampleRate;
+
+    private final int mask;
+    private final AtomicReferenceArray<Record> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueued = new AtomicLong();
+    private volatile long dequeued = 0;
+    /**
+     * The number of messages the writer has finished with, which lags
+     * {@link #dequeued} while a message is being written. Only the writer
+     * updates it.
+     */
+    private volatile long written = 0;
+
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean waiting = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Create a new sink and start its background thread.
+     *
+     * @param capacity   maximum number of queued messages, rounded up to a power of
+     *                   two
+     * @param policy     what to do when the buffer is full
+     * @param sampleRate for {@link OverflowPolicy#SAMPLE}, keep one in this many
+     *                   messages once the buffer is half full
+     */
+    public AsyncDebugSink(int capacity, @NotNull OverflowPolicy policy, int sampleRate) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+
+        this.writer = new Thread(this::drain, "StickyAPI-Debugger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Create a new sink which drops messages when its buffer is full.
+     *
+     * @param capacity maximum number of queued messages
+     */
+    public AsyncDebugSink(int capacity) {
+        this(capacity, OverflowPolicy.DROP, 1);
+    }
+
+    /**
+     * Queue a message.
+     *
+     * @param record to queue
+     * @return False if the message was dropped
+     */
+    boolean submit(Record record) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+
+        if (policy == OverflowPolicy.SAMPLE && size() >= capacity / 2
+                && overflowCount.getAndIncrement() % sampleRate != 0) {
+            dropped.increment();
+            return false;
+        }
+
+        while (!offer(record)) {
+            if (policy != OverflowPolicy.BLOCK || closed) {
+                dropped.increment();
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        // The writer publishes that it is waiting before checking the buffer again,
+        // so either it sees this record or we see that it needs waking
+        if (waiting) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Multi-producer insertion into the ring buffer. Each slot carries a sequence
+     * number which tells producers whether it is free for the position they claim.
+     */
+    private boolean offer(Record record) {
+        long position = enqueued.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueued.compareAndSet(position, position + 1)) {
+                    buffer.set(index, record);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = enqueued.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueued.get();
+            }
+        }
+    }
+
+    /**
+     * Single-consumer removal from the ring buffer. Only called by the writer
+     * thread.
+     */
+    private Record poll() {
+        long position = dequeued;
+        int index = (int) (position & mask);
+        if (!isReady(position)) {
+            return null;
+        }
+        Record record = buffer.get(index);
+        buffer.set(index, null);
+        sequences.set(index, position + capacity);
+        dequeued = position + 1;
+        return record;
+    }
+
+    private boolean isReady(long position) {
+        return sequences.get((int) (position & mask)) == position + 1;
+    }
+
+    private void drain() {
+        while (true) {
+            Record record = poll();
+            if (record == null) {
+                if (closed) {
+                    return;
+                }
+                waiting = true;
+                if (!isReady(dequeued) && !closed) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+                continue;
+            }
+
+            try {
+                record.logger.info(record.format());
+            } catch (RuntimeException e) {
+                // A bad format string or a broken handler must not kill the writer
+                dropped.increment();
+            }
+            written++;
+        }
+    }
+
+    /**
+     * Get the number of messages waiting to be written.
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return (int) Math.max(0, enqueued.get() - dequeued);
+    }
+
+    /**
+     * Get the number of messages dropped so far.
+     *
+     * @return {@link Long}
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Wait until every message queued so far has been written.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    of the timeout
+     * @return False if the timeout elapsed first
+     */
+    public boolean flush(long timeout, @NotNull TimeUnit unit) {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written < target) {
+            if (System.nanoTime() - deadline >= 0 || !writer.isAlive()) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting messages, and stop the background thread once everything
+     * already queued has been written. If this is the {@link Debugger}'s sink,
+     * the debugger goes back to writing messages itself.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Debugger.clearSink(this);
+        LockSupport.unpark(writer);
+    }
+}
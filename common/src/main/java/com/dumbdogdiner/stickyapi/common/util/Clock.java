@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A source of time. Components which deal with timeouts or expiry read the time
+ * from a clock instead of {@link System}, so that tests can control it with a
+ * {@link VirtualClock}.
+ *
+ * @since 3.1
+ */
+public interface Clock {
+    /**
+     * Get the current time in milliseconds since the unix epoch.
+     *
+     * @return {@link Long}
+     * @see System#currentTimeMillis()
+     */
+    long currentTimeMillis();
+
+    /**
+     * Get the current value of a high-resolution time source, in nanoseconds. Only
+     * meaningful when compared to other values returned by the same clock.
+     *
+     * @return {@link Long}
+     * @see System#nanoTime()
+     */
+    long nanoTime();
+
+    /**
+     * Get the clock backed by {@link System}.
+     *
+     * @return {@link Clock}
+     */
+    static @NotNull Clock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    /**
+     * The clock backed by {@link System}.
+     */
+    enum SystemClock implements Clock {
+        INSTANCE;
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    }
+}
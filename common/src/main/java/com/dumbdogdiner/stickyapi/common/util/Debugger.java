@@ -5,6 +5,11 @@
 package com.dumbdogdiner.stickyapi.common.util;
 
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import org.jetbrains.annotations.NotNull;
@@ -15,6 +20,16 @@ import lombok.Getter;
 
 /**
  * Utility class for debugging.
+ * <p>
+ * Debugging can be enabled globally, or for individual classes and packages.
+ * The most specific setting wins, so a noisy class can be silenced while the
+ * rest of its package is debugged:
+ *
+ * <pre>
+ * Debugger.setEnabled("com.dumbdogdiner.stickyapi.common.arguments", true);
+ * Debugger.setEnabled(Arguments.class, false);
+ * Debugger.setSampleRate(1000);
+ * </pre>
  */
 public class Debugger {
     /**
@@ -23,29 +38,126 @@ public class Debugger {
     @Setter
     private static Logger logger = Logger.getLogger("DEBUG");
 
-    @Setter
+    /**
+     * Whether debugging is enabled for classes without a more specific setting.
+     */
     @Getter
-    private static boolean enabled = false;
+    private static volatile boolean enabled = false;
 
     /**
-     * The time at which this debugger instance began logging.
+     * Print only one in every this many messages, chosen at random.
      * 
-     * @return {@link Long}
+     * @since 3.1
      */
     @Getter
-    private Long startTime = System.nanoTime();
+    private static volatile int sampleRate = 1;
 
     /**
-     * The current increment count of the log - equivalent to how many times
-     * <code>Debugger.print(Object message)</code> has been called.
+     * Per-class and per-package settings, keyed by class or package name.
+     */
+    private static final ConcurrentHashMap<String, Boolean> RULES = new ConcurrentHashMap<>();
+
+    /**
+     * Whether debugging is enabled for a class, worked out once and shared by
+     * every debugger of that class, so checking it is a single volatile read.
+     */
+    private static final class Switch {
+        final String className;
+        volatile boolean active;
+
+        Switch(String className) {
+            this.className = className;
+        }
+    }
+
+    private static final Set<Switch> ALL_SWITCHES = ConcurrentHashMap.newKeySet();
+
+    private static final ClassValue<Switch> SWITCHES = new ClassValue<>() {
+        @Override
+        protected Switch computeValue(Class<?> type) {
+            Switch state = new Switch(type.getName());
+            // Register before resolving, so a concurrent change can't be missed
+            ALL_SWITCHES.add(state);
+            state.active = resolve(state.className);
+            return state;
+        }
+    };
+
+    /**
+     * Whether to include the line number of the caller in each message. Finding
+     * it means walking the stack on every print, so turn this off to leave
+     * debugging enabled on a live server.
      * 
-     * @return {@link Integer}
+     * @since 3.1
+     */
+    @Setter
+    @Getter
+    private static boolean resolveCallers = true;
+
+    /**
+     * Where to send messages. If set, messages are queued and written from a
+     * background thread instead of the thread which printed them.
+     * 
+     * @since 3.1
      */
     @Getter
-    private int logCount = 0;
+    @Nullable
+    private static volatile AsyncDebugSink sink = null;
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /**
+     * A bytecode position within a method, identified by its name and descriptor
+     * so that overloads never share an entry.
+     */
+    private static final class CallSite {
+        final String method;
+        final String descriptor;
+        final int bytecodeIndex;
+
+        CallSite(StackWalker.StackFrame frame) {
+            this.method = frame.getMethodName();
+            this.descriptor = frame.getDescriptor();
+            this.bytecodeIndex = frame.getByteCodeIndex();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CallSite)) {
+                return false;
+            }
+            CallSite site = (CallSite) other;
+            return bytecodeIndex == site.bytecodeIndex && method.equals(site.method)
+                    && descriptor.equals(site.descriptor);
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + descriptor.hashCode()) * 31 + bytecodeIndex;
+        }
+    }
+
+    /**
+     * Line numbers of call sites within each class.
+     */
+    private static final ClassValue<ConcurrentHashMap<CallSite, Integer>> LINE_NUMBERS = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<CallSite, Integer> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The time at which this debugger instance began logging.
+     */
+    private volatile long startTime = System.nanoTime();
+
+    private final AtomicInteger logCount = new AtomicInteger();
 
     private final Class<?> clazz;
 
+    private final Switch state;
+
     private Random r = new Random();
     private final String ALPHABET = "3569abcde";
     private final String COLOR = "\u00A7" + ALPHABET.charAt(r.nextInt(ALPHABET.length()));
@@ -58,20 +170,271 @@ public class Debugger {
      */
     public Debugger(@NotNull Class<?> clazz) {
         this.clazz = clazz;
+        this.state = SWITCHES.get(clazz);
+    }
+
+    /**
+     * Enable or disable debugging for every class without a more specific
+     * setting.
+     * 
+     * @param enabled whether to enable debugging
+     */
+    public static void setEnabled(boolean enabled) {
+        Debugger.enabled = enabled;
+        refresh();
+    }
+
+    /**
+     * Enable or disable debugging for a single class, and the classes nested in
+     * it, regardless of the global setting.
+     * 
+     * @param clazz   to enable or disable debugging for
+     * @param enabled whether to enable debugging
+     * @since 3.1
+     */
+    public static void setEnabled(@NotNull Class<?> clazz, boolean enabled) {
+        setEnabled(clazz.getName(), enabled);
+    }
+
+    /**
+     * Enable or disable debugging for every class in a package, or for a single
+     * class given by its fully qualified name. Subpackages are included unless
+     * they have a setting of their own.
+     * 
+     * @param name    of the package or class
+     * @param enabled whether to enable debugging
+     * @since 3.1
+     */
+    public static void setEnabled(@NotNull String name, boolean enabled) {
+        RULES.put(name, enabled);
+        refresh();
+    }
+
+    /**
+     * Remove the setting for a class or package, so that it falls back to the
+     * setting of its enclosing package, or the global setting.
+     * 
+     * @param name of the package or class
+     * @since 3.1
+     */
+    public static void unsetEnabled(@NotNull String name) {
+        RULES.remove(name);
+        refresh();
+    }
+
+    /**
+     * Remove every per-class and per-package setting.
+     * 
+     * @since 3.1
+     */
+    public static void clearRules() {
+        RULES.clear();
+        refresh();
+    }
+
+    /**
+     * Check if debugging is enabled for a class.
+     * 
+     * @param clazz to check
+     * @return {@link Boolean}
+     * @since 3.1
+     */
+    public static boolean isEnabled(@NotNull Class<?> clazz) {
+        return SWITCHES.get(clazz).active;
+    }
+
+    /**
+     * Print only one in every <code>sampleRate</code> messages, chosen at random.
+     * Set to 1 to print every message.
+     * 
+     * @param sampleRate to print one in every this many messages
+     * @since 3.1
+     */
+    public static void setSampleRate(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        Debugger.sampleRate = sampleRate;
+    }
+
+    /**
+     * Send messages to a sink, which formats and writes them from a background
+     * thread, or write them from the thread which printed them if null. A sink is
+     * removed again when it is closed.
+     * 
+     * @param sink to send messages to
+     * @since 3.1
+     */
+    public static synchronized void setSink(@Nullable AsyncDebugSink sink) {
+        Debugger.sink = sink;
+    }
+
+    /**
+     * Stop sending messages to a sink, if it is the current one.
+     */
+    static synchronized void clearSink(@NotNull AsyncDebugSink sink) {
+        if (Debugger.sink == sink) {
+            Debugger.sink = null;
+        }
+    }
+
+    /**
+     * Find the most specific setting for a class: its own, then its enclosing
+     * classes', then each enclosing package's, then the global one.
+     */
+    private static boolean resolve(String name) {
+        while (true) {
+            Boolean rule = RULES.get(name);
+            if (rule != null) {
+                return rule;
+            }
+            int end = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+            if (end <= 0) {
+                return enabled;
+            }
+            name = name.substring(0, end);
+        }
+    }
+
+    private static synchronized void refresh() {
+        for (Switch state : ALL_SWITCHES) {
+            state.active = resolve(state.className);
+        }
+    }
+
+    /**
+     * The time at which this debugger instance began logging.
+     * 
+     * @return {@link Long}
+     */
+    public Long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * The current increment count of the log - equivalent to how many times
+     * <code>Debugger.print(Object message)</code> has been called.
+     * 
+     * @return {@link Integer}
+     */
+    public int getLogCount() {
+        return logCount.get();
     }
 
     /**
      * Print a debug message.
+     * <p>
+     * The message is only built when debugging is enabled for this debugger's
+     * class, but the arguments are still boxed into an array on every call.
+     * Prefer the fixed-arity overloads or {@link #print(Supplier)} on hot paths.
      * 
      * @param object to print.
      * @param args   to format the message with
      */
     public void print(@Nullable Object object, @Nullable Object... args) {
-        if (enabled) {
-            logger.info(String.format(COLOR + "[" + ++logCount + " | " + clazz.getSimpleName() + ".class: "
-                    + dddGetThisLineOfWhereverThisThingIsCalleduwu() + "] \u00A7r" + object + " | " // \u00A7 = section
-                                                                                                    // symbol
-                    + ((System.nanoTime() - startTime) / 1e3) + "μ", args));
+        if (state.active && sampled()) {
+            log(String.valueOf(object), args);
+        }
+    }
+
+    /**
+     * Print a debug message.
+     * 
+     * @param message to print
+     * @since 3.1
+     */
+    public void print(@Nullable Object message) {
+        if (state.active && sampled()) {
+            log(String.valueOf(message), null);
+        }
+    }
+
+    /**
+     * Print a debug message, formatted with {@link String#format} only if
+     * debugging is enabled.
+     * 
+     * @param format of the message
+     * @param arg    to format the message with
+     * @since 3.1
+     */
+    public void print(@Nullable Object format, @Nullable Object arg) {
+        if (state.active && sampled()) {
+            log(String.valueOf(format), new Object[] { arg });
+        }
+    }
+
+    /**
+     * Print a debug message, formatted with {@link String#format} only if
+     * debugging is enabled.
+     * 
+     * @param format of the message
+     * @param arg1   to format the message with
+     * @param arg2   to format the message with
+     * @since 3.1
+     */
+    public void print(@Nullable Object format, @Nullable Object arg1, @Nullable Object arg2) {
+        if (state.active && sampled()) {
+            log(String.valueOf(format), new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Print a debug message, formatted with {@link String#format} only if
+     * debugging is enabled.
+     * 
+     * @param format of the message
+     * @param arg1   to format the message with
+     * @param arg2   to format the message with
+     * @param arg3   to format the message with
+     * @since 3.1
+     */
+    public void print(@Nullable Object format, @Nullable Object arg1, @Nullable Object arg2,
+            @Nullable Object arg3) {
+        if (state.active && sampled()) {
+            log(String.valueOf(format), new Object[] { arg1, arg2, arg3 });
+        }
+    }
+
+    /**
+     * Print a debug message built by a supplier, which is only called if debugging
+     * is enabled. Use this when building the message is expensive. A null
+     * supplier prints {@code "null"}, as {@link #print(Object)} does.
+     * 
+     * @param message to print
+     * @since 3.1
+     */
+    public void print(@Nullable Supplier<?> message) {
+        if (state.active && sampled()) {
+            log(String.valueOf(message != null ? message.get() : null), null);
+        }
+    }
+
+    /**
+     * Decide whether to print a message, according to the sample rate. Checked
+     * before the message or its arguments are built.
+     */
+    private static boolean sampled() {
+        int rate = sampleRate;
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    /**
+     * Must only be called directly from a <code>print</code> method, so that the
+     * caller's line number can be found.
+     */
+    private void log(String format, Object[] args) {
+        // \u00A7 = section symbol
+        String prefix = COLOR + "[" + logCount.incrementAndGet() + " | " + clazz.getSimpleName() + ".class"
+                + (resolveCallers ? ": " + getCallerLine() : "") + "] \u00A7r";
+        String suffix = " | " + ((System.nanoTime() - startTime) / 1e3) + "μ";
+
+        // Formatting is left to the sink's thread, if there is one
+        AsyncDebugSink.Record record = new AsyncDebugSink.Record(logger, prefix, format, args, suffix);
+        AsyncDebugSink sink = Debugger.sink;
+        if (sink != null) {
+            sink.submit(record);
+        } else {
+            logger.info(record.format());
         }
     }
 
@@ -83,37 +446,24 @@ public class Debugger {
      */
     public Debugger reset() {
         startTime = System.nanoTime();
-        logCount = 0;
+        logCount.set(0);
         return this;
     }
 
     /**
-     * This methods name is ridiculous on purpose to prevent any other method names
-     * in the stack trace from potentially matching this one.
-     * 
-     * The line number of the code that called the method that called this
-     * method(Should only be called by getLineNumber()).
+     * Get the line number of the code that called a <code>print</code> method.
+     * Only the frames up to the caller are walked, and line numbers are cached per
+     * call site, since resolving them is the expensive part of a stack walk.
      * 
      * @return {@link java.lang.Integer}
-     * @author Brian_Entei
-     */
-    // Thanks Brian! https://stackoverflow.com/a/26410435/11988998
-    private int dddGetThisLineOfWhereverThisThingIsCalleduwu() {
-        boolean thisOne = false;
-        int thisOneCountDown = 1;
-        StackTraceElement[] elements = Thread.currentThread().getStackTrace();
-        for (StackTraceElement element : elements) {
-            String methodName = element.getMethodName();
-            int lineNum = element.getLineNumber();
-            if (thisOne && (thisOneCountDown == 0)) {
-                return lineNum;
-            } else if (thisOne) {
-                thisOneCountDown--;
-            }
-            if (methodName.equals("dddGetThisLineOfWhereverThisThingIsCalleduwu")) {
-                thisOne = true;
-            }
-        }
-        return -1;
+     */
+    private static int getCallerLine() {
+        // Skip this method, log() and print() to get to their caller
+        return WALKER.walk(frames -> frames.skip(3).findFirst()).map(Debugger::getLineNumber).orElse(-1);
+    }
+
+    private static int getLineNumber(StackWalker.StackFrame frame) {
+        return LINE_NUMBERS.get(frame.getDeclaringClass()).computeIfAbsent(new CallSite(frame),
+                k -> frame.getLineNumber());
     }
 }
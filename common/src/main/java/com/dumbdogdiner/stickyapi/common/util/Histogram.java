@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values, such as latencies in
+ * nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into 8
+ * buckets, so percentiles are accurate to within 12.5% while the whole
+ * histogram fits in a fixed array of 496 counters. Recording a value never
+ * allocates.
+ *
+ * @since 3.1
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     *
+     * @param value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return {@link Long}
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the sum of every value recorded.
+     *
+     * @return {@link Long}
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return {@link Long}
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of every value recorded.
+     *
+     * @return {@link Double}
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Get an estimate of a percentile of the recorded values. The result is the
+     * upper bound of the bucket the percentile falls in, capped at the largest
+     * value recorded.
+     *
+     * @param percentile between 0 and 100
+     * @return {@link Long}
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clear every recorded value. Values recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each. Above that, the
+     * magnitude picks a group of buckets and the next bits below the highest one
+     * pick the bucket within it.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.0f p50=%d p99=%d max=%d", getCount(), getMean(), getPercentile(50),
+                getPercentile(99), getMax());
+    }
+}
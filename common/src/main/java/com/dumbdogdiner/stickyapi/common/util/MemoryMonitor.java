@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.jetbrains.annotations.NotNull;
+
+import lombok.Getter;
+
+/**
+ * Watches heap usage and publishes a {@link Pressure} level, so that caches and
+ * background pools can give memory back before the garbage collector starts
+ * thrashing.
+ * <p>
+ * Once {@link #start() started}, the monitor sets usage thresholds on the heap
+ * pools which support them, and re-evaluates the pressure level whenever a
+ * threshold is crossed or a garbage collection finishes. The level is worked
+ * out from the usage left after the last collection where available, so
+ * garbage which is about to be collected doesn't count.
+ * <p>
+ * The pool thresholds are shared by the whole JVM, so only one monitor should
+ * be started at a time. Plugins should share
+ * {@link com.dumbdogdiner.stickyapi.StickyAPI#getMemoryMonitor()} rather than
+ * starting their own. The thresholds a pool had before {@link #start()} are
+ * put back by {@link #close()}.
+ *
+ * <pre>
+ * MemoryMonitor monitor = StickyAPI.getMemoryMonitor();
+ * monitor.start();
+ * cache.setMemoryMonitor(monitor);
+ * new PoolBuilder("stats").shedUnder(monitor, MemoryMonitor.Pressure.ELEVATED).register(StickyAPI.getExecutors());
+ * </pre>
+ *
+ * Usage can also be reported with {@link #update(long, long)}, which is how
+ * pressure is simulated in tests.
+ *
+ * @since 3.1
+ */
+public class MemoryMonitor implements AutoCloseable {
+    /**
+     * How close the heap is to running out.
+     */
+    public enum Pressure {
+        /**
+         * Usage is below the elevated threshold.
+         */
+        NORMAL,
+        /**
+         * Usage is above the elevated threshold. Caches should shrink and optional
+         * work should be skipped.
+         */
+        ELEVATED,
+        /**
+         * Usage is above the critical threshold. Anything which can be dropped should
+         * be.
+         */
+        CRITICAL
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called when the pressure level changes. This may be called on a JMX
+         * notification thread, so it should return quickly.
+         *
+         * @param previous The previous pressure level
+         * @param current  The new pressure level
+         */
+        void onPressureChange(Pressure previous, Pressure current);
+    }
+
+    /**
+     * How far usage must drop below a threshold before the pressure level drops,
+     * so that usage hovering around a threshold doesn't flap between levels.
+     */
+    private static final double HYSTERESIS = 0.05;
+
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private static final Logger LOGGER = Logger.getLogger("StickyAPI");
+
+    /**
+     * The fraction of the heap above which pressure is elevated.
+     */
+    @Getter
+    private final double elevatedThreshold;
+
+    /**
+     * The fraction of the heap above which pressure is critical.
+     */
+    @Getter
+    private final double criticalThreshold;
+
+    private volatile Pressure pressure = Pressure.NORMAL;
+
+    /**
+     * The fraction of the heap in use, as of the last evaluation.
+     */
+    @Getter
+    private volatile double usage = 0;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+    /**
+     * The usage and collection usage thresholds each watched pool had before it
+     * was started, in the same order as {@link #pools}.
+     */
+    private final List<long[]> previousThresholds = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener notificationListener = this::onNotification;
+    private boolean started = false;
+
+    /**
+     * Create a new monitor, with pressure elevated above 75% heap usage and
+     * critical above 90%.
+     */
+    public MemoryMonitor() {
+        this(0.75, 0.9);
+    }
+
+    /**
+     * Create a new monitor.
+     *
+     * @param elevatedThreshold fraction of the heap above which pressure is
+     *                          elevated
+     * @param criticalThreshold fraction of the heap above which pressure is
+     *                          critical
+     */
+    public MemoryMonitor(double elevatedThreshold, double criticalThreshold) {
+        if (elevatedThreshold <= 0 || criticalThreshold > 1 || elevatedThreshold >= criticalThreshold) {
+            throw new IllegalArgumentException("Thresholds must satisfy 0 < elevated < critical <= 1, got "
+                    + elevatedThreshold + " and " + criticalThreshold);
+        }
+        this.elevatedThreshold = elevatedThreshold;
+        this.criticalThreshold = criticalThreshold;
+    }
+
+    /**
+     * Start watching the heap. Calling this more than once has no effect.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || max <= 0) {
+                continue;
+            }
+            boolean collection = pool.isCollectionUsageThresholdSupported();
+            previousThresholds.add(new long[] { pool.getUsageThreshold(),
+                    collection ? pool.getCollectionUsageThreshold() : 0 });
+            pool.setUsageThreshold((long) (max * elevatedThreshold));
+            if (collection) {
+                pool.setCollectionUsageThreshold((long) (max * elevatedThreshold));
+            }
+            pools.add(pool);
+        }
+
+        listen(ManagementFactory.getMemoryMXBean());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            listen(collector);
+        }
+        evaluate();
+    }
+
+    private void listen(Object bean) {
+        if (bean instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) bean;
+            emitter.addNotificationListener(notificationListener, null, null);
+            emitters.add(emitter);
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (type.equals(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED)
+                || type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)
+                || type.equals(GC_NOTIFICATION)) {
+            evaluate();
+        }
+    }
+
+    /**
+     * Re-evaluate the pressure level from the current usage of the watched heap
+     * pools. Only the fullest pool counts, since that is the one which will run
+     * out first.
+     */
+    public void evaluate() {
+        long worstUsed = 0;
+        long worstMax = 0;
+        synchronized (this) {
+            for (MemoryPoolMXBean pool : pools) {
+                MemoryUsage collected = pool.getCollectionUsage();
+                MemoryUsage current = collected != null && collected.getMax() > 0 ? collected : pool.getUsage();
+                if (worstMax == 0 || (double) current.getUsed() / current.getMax() > (double) worstUsed / worstMax) {
+                    worstUsed = current.getUsed();
+                    worstMax = current.getMax();
+                }
+            }
+        }
+        if (worstMax > 0) {
+            update(worstUsed, worstMax);
+        }
+    }
+
+    /**
+     * Report heap usage, updating the pressure level and notifying listeners if
+     * it changed.
+     *
+     * @param used bytes in use
+     * @param max  bytes available
+     */
+    public void update(long used, long max) {
+        if (max <= 0) {
+            return;
+        }
+        double usage = (double) used / max;
+        this.usage = usage;
+
+        synchronized (listeners) {
+            Pressure previous = pressure;
+            Pressure current = levelOf(usage, previous);
+            if (current == previous) {
+                return;
+            }
+            pressure = current;
+            for (Listener listener : listeners) {
+                try {
+                    listener.onPressureChange(previous, current);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Memory pressure listener failed", e);
+                }
+            }
+        }
+    }
+
+    private Pressure levelOf(double usage, Pressure previous) {
+        // Levels are entered at their threshold, and only left once usage drops
+        // a little below it
+        double critical = previous == Pressure.CRITICAL ? criticalThreshold - HYSTERESIS : criticalThreshold;
+        double elevated = previous != Pressure.NORMAL ? elevatedThreshold - HYSTERESIS : elevatedThreshold;
+        if (usage >= critical) {
+            return Pressure.CRITICAL;
+        } else if (usage >= elevated) {
+            return Pressure.ELEVATED;
+        }
+        return Pressure.NORMAL;
+    }
+
+    /**
+     * Get the current pressure level.
+     *
+     * @return {@link Pressure}
+     */
+    public @NotNull Pressure getPressure() {
+        return pressure;
+    }
+
+    /**
+     * Check if pressure is at least at the given level.
+     *
+     * @param level to compare against
+     * @return {@link Boolean}
+     */
+    public boolean isAtLeast(@NotNull Pressure level) {
+        return pressure.compareTo(level) >= 0;
+    }
+
+    /**
+     * Add a listener which is notified whenever the pressure level changes.
+     *
+     * @param listener to add
+     */
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     *
+     * @param listener to remove
+     */
+    public void removeListener(@NotNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stop watching the heap and put back the thresholds the heap pools had
+     * before {@link #start()}.
+     * Listeners are kept, and can still be notified through
+     * {@link #update(long, long)}.
+     */
+    @Override
+    public synchronized void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(notificationListener);
+            } catch (ListenerNotFoundException e) {
+                // Already removed
+            }
+        }
+        emitters.clear();
+        for (int i = 0; i < pools.size(); i++) {
+            MemoryPoolMXBean pool = pools.get(i);
+            long[] previous = previousThresholds.get(i);
+            pool.setUsageThreshold(previous[0]);
+            if (pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold(previous[1]);
+            }
+        }
+        pools.clear();
+        previousThresholds.clear();
+        started = false;
+    }
+}
@@ -4,16 +4,37 @@
  */
 package com.dumbdogdiner.stickyapi.common.util;
 
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
-import com.dumbdogdiner.stickyapi.common.util.reflection.ReflectionUtil;
+import com.dumbdogdiner.stickyapi.common.util.reflection.UnsafeUtil;
+
+import org.jetbrains.annotations.Nullable;
+
+import sun.misc.Unsafe;
 
 /**
- * Provides a very crude method of measuring the memory consumption of Java
- * objects. This can never be 100% accurate, since the JVM creates some overhead
- * with each new object, but can be useful to measure the estimated size of an
- * object.
+ * Measures the memory retained by Java objects: the object itself, plus
+ * everything reachable from it which hasn't already been counted.
+ * <p>
+ * Object graphs are walked iteratively, so deep or cyclic graphs are safe, and
+ * each object is only counted once no matter how many references point to it.
+ * Field offsets, object headers and alignment are read from the running JVM
+ * where possible, so compressed oops and class pointers are accounted for.
+ * <p>
+ * Classes, class loaders, threads, enum constants and the referents of
+ * {@link Reference}s are never counted, since they are shared rather than
+ * owned. The result is still an estimate: objects reachable from the given
+ * object may also be reachable from elsewhere.
  */
 public final class MemoryUtil {
     private MemoryUtil() {
@@ -23,9 +44,54 @@ public final class MemoryUtil {
         BITS, BYTES, KILOBYTES, MEGABYTES
     }
 
+    private static final Unsafe UNSAFE = loadUnsafe();
+
+    private static final boolean IS_64_BIT = !"32".equals(System.getProperty("sun.arch.data.model"));
+
+    private static final int OBJECT_ALIGNMENT = vmOption("ObjectAlignmentInBytes", 8);
+
+    private static final int REFERENCE_SIZE = UNSAFE != null ? Unsafe.ARRAY_OBJECT_INDEX_SCALE
+            : IS_64_BIT && vmOption("UseCompressedOops", 1) == 1 ? 4 : IS_64_BIT ? 8 : 4;
+
+    private static final int HEADER_SIZE = headerSize();
+
+    private static final int ARRAY_HEADER_SIZE = UNSAFE != null ? Unsafe.ARRAY_OBJECT_BASE_OFFSET
+            : (int) align(HEADER_SIZE + 4, IS_64_BIT ? 8 : 4);
+
+    /**
+     * The instance layout of a class: its shallow size, and where its reference
+     * fields are.
+     */
+    private static final class Layout {
+        final long shallowSize;
+        final Field[] references;
+        final long[] offsets;
+
+        Layout(long shallowSize, Field[] references, long[] offsets) {
+            this.shallowSize = shallowSize;
+            this.references = references;
+            this.offsets = offsets;
+        }
+    }
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return layoutOf(type);
+        }
+    };
+
+    /**
+     * Used to find the size of an object header.
+     */
+    @SuppressWarnings("unused")
+    private static final class Probe {
+        byte field;
+    }
+
     /**
      * Get the size of an object, specifying in what units the method should return.
-     * 
+     *
      * @param object The object to get the size of
      * @param units  The unit to return the size in
      * @return {@link Double}
@@ -37,7 +103,7 @@ public final class MemoryUtil {
 
     /**
      * Format a number of bits into their unit equivalent.
-     * 
+     *
      * @param bits  The amount of bits to format
      * @param units The unit to format `bits` with
      * @return {@link Double}
@@ -58,65 +124,247 @@ public final class MemoryUtil {
     }
 
     /**
-     * Get the approximate size of the given object.
-     * 
+     * Get the approximate retained size of the given object, in bits. Sizes too
+     * large for an int are capped at {@link Integer#MAX_VALUE}; use
+     * {@link #getRetainedSize(Object)} for large object graphs.
+     *
      * @param object The object to get the size of
      * @return {@link Integer}
      */
     public static int getSizeOf(Object object) {
+        return (int) Math.min(Integer.MAX_VALUE, getRetainedSize(object) * 8);
+    }
+
+    /**
+     * Get the size of the given object alone, in bytes, without anything it
+     * references.
+     *
+     * @param object The object to get the size of
+     * @return {@link Long}
+     * @since 3.1
+     */
+    public static long getShallowSize(@Nullable Object object) {
         if (object == null) {
             return 0;
         }
-
         Class<?> clazz = object.getClass();
-        int accumulator = 0;
+        if (clazz.isArray()) {
+            return arraySize(clazz.getComponentType(), Array.getLength(object));
+        }
+        return LAYOUTS.get(clazz).shallowSize;
+    }
 
-        int size = getSizeOfBuiltin(object);
-        if (size != 0) {
-            return size;
+    /**
+     * Get the approximate retained size of the given object, in bytes: its own
+     * size, plus the size of every object reachable from it.
+     *
+     * @param object The object to get the size of
+     * @return {@link Long}
+     * @since 3.1
+     */
+    public static long getRetainedSize(@Nullable Object object) {
+        if (object == null || isShared(object)) {
+            return 0;
         }
 
-        for (Field field : clazz.getDeclaredFields()) {
-            if (Modifier.isStatic(field.getModifiers())) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        visited.add(object);
+        pending.push(object);
+
+        long total = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            Class<?> clazz = current.getClass();
+
+            if (clazz.isArray()) {
+                int length = Array.getLength(current);
+                total += arraySize(clazz.getComponentType(), length);
+                if (!clazz.getComponentType().isPrimitive()) {
+                    Object[] elements = (Object[]) current;
+                    for (Object element : elements) {
+                        visit(element, visited, pending);
+                    }
+                }
+                continue;
+            }
+
+            Layout layout = LAYOUTS.get(clazz);
+            total += layout.shallowSize;
+            if (current instanceof Reference) {
                 continue;
             }
-            accumulator += getFieldSize(object, field);
+            for (int i = 0; i < layout.references.length; i++) {
+                visit(read(current, layout.references[i], layout.offsets[i]), visited, pending);
+            }
+        }
+        return total;
+    }
+
+    private static void visit(Object object, Set<Object> visited, ArrayDeque<Object> pending) {
+        if (object != null && !isShared(object) && visited.add(object)) {
+            pending.push(object);
+        }
+    }
+
+    private static boolean isShared(Object object) {
+        return object instanceof Class || object instanceof ClassLoader || object instanceof Thread
+                || object instanceof Enum;
+    }
+
+    private static Object read(Object object, Field field, long offset) {
+        if (offset >= 0) {
+            return UNSAFE.getObject(object, offset);
         }
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
 
-        return accumulator;
+    /**
+     * Get the size of the object header, in bytes.
+     *
+     * @return {@link Integer}
+     * @since 3.1
+     */
+    public static int getHeaderSize() {
+        return HEADER_SIZE;
     }
 
     /**
-     * Get the size of a field on a given object.
+     * Get the size of a reference, in bytes. This is 4 on 64-bit JVMs using
+     * compressed oops.
+     *
+     * @return {@link Integer}
+     * @since 3.1
      */
-    private static int getFieldSize(Object object, Field field) {
+    public static int getReferenceSize() {
+        return REFERENCE_SIZE;
+    }
+
+    /**
+     * Get the alignment of objects on the heap, in bytes.
+     *
+     * @return {@link Integer}
+     * @since 3.1
+     */
+    public static int getObjectAlignment() {
+        return OBJECT_ALIGNMENT;
+    }
+
+    private static long arraySize(Class<?> componentType, int length) {
+        return align(ARRAY_HEADER_SIZE + (long) length * sizeOfType(componentType), OBJECT_ALIGNMENT);
+    }
+
+    private static long align(long size, int alignment) {
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    private static int sizeOfType(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    private static Layout layoutOf(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    fields.add(field);
+                }
+            }
+        }
+
+        // Prefer the real field offsets, which aren't available for records and
+        // hidden classes such as lambdas
+        long end = HEADER_SIZE;
+        long[] allOffsets = new long[fields.size()];
+        boolean exact = UNSAFE != null;
+        for (int i = 0; i < fields.size() && exact; i++) {
+            try {
+                allOffsets[i] = UNSAFE.objectFieldOffset(fields.get(i));
+                end = Math.max(end, allOffsets[i] + sizeOfType(fields.get(i).getType()));
+            } catch (RuntimeException e) {
+                exact = false;
+            }
+        }
+        if (!exact) {
+            end = HEADER_SIZE;
+            for (Field field : fields) {
+                end += sizeOfType(field.getType());
+            }
+        }
+
+        List<Field> references = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (field.getType().isPrimitive()) {
+                continue;
+            }
+            if (exact) {
+                references.add(field);
+                offsets.add(allOffsets[i]);
+            } else if (field.trySetAccessible()) {
+                references.add(field);
+                offsets.add(-1L);
+            }
+        }
+
+        long[] offsetArray = new long[offsets.size()];
+        for (int i = 0; i < offsetArray.length; i++) {
+            offsetArray[i] = offsets.get(i);
+        }
+        return new Layout(align(end, OBJECT_ALIGNMENT), references.toArray(new Field[0]), offsetArray);
+    }
+
+    private static Unsafe loadUnsafe() {
         try {
-            // Java complains about illegal reflective access... Too bad!
-            return getSizeOf(ReflectionUtil.getProtectedValue(object, field.getName()));
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-            return 0;
+            return UnsafeUtil.getUnsafe();
+        } catch (Exception e) {
+            return null;
         }
     }
 
-    private static int getSizeOfBuiltin(Object object) {
-        // We can't use a switch statement on an object, so we need to use an if-elseif
-        // chain.
-        // It may be Yandre Dev - like, but at least instanceof should be a little
-        // neater
-        if (object instanceof String)
-            return ((String) (object)).length() * 8;
-        else if (object instanceof Boolean)
-            return 1;
-        else if (object instanceof Byte)
+    private static int headerSize() {
+        if (UNSAFE != null) {
+            try {
+                return (int) UNSAFE.objectFieldOffset(Probe.class.getDeclaredField("field"));
+            } catch (NoSuchFieldException | RuntimeException e) {
+                // Fall through to the model below
+            }
+        }
+        if (!IS_64_BIT) {
             return 8;
-        else if (object instanceof Short || object instanceof Character)
-            return 16;
-        else if (object instanceof Long || object instanceof Double)
-            return 64;
-        else
-            // potential for stack overflow if a field is circular! (maybe, but I don't see
-            // how this could happen)
-            return 0;
+        }
+        return vmOption("UseCompressedClassPointers", 1) == 1 ? 12 : 16;
+    }
+
+    /**
+     * Read a numeric or boolean HotSpot option, if running on HotSpot.
+     */
+    private static int vmOption(String name, int fallback) {
+        try {
+            String value = ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class)
+                    .getVMOption(name).getValue();
+            if ("true".equals(value)) {
+                return 1;
+            } else if ("false".equals(value)) {
+                return 0;
+            }
+            return Integer.parseInt(value);
+        } catch (RuntimeException | LinkageError e) {
+            return fallback;
+        }
     }
 }
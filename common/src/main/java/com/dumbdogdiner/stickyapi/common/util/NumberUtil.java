@@ -151,6 +151,171 @@ public final class NumberUtil {
         }
     }
 
+    /**
+     * Parse a whole number, optionally signed, without throwing or allocating
+     * when the text isn't a number.
+     *
+     * <pre>
+     * NumberUtil.parseLong("123", 0)  = 123
+     * NumberUtil.parseLong("-42", 0)  = -42
+     * NumberUtil.parseLong("12.3", 0) = 0
+     * NumberUtil.parseLong("", -1)    = -1
+     * </pre>
+     *
+     * @param text     The text to parse
+     * @param fallback The value to return if the text isn't a number, or doesn't
+     *                 fit in a long
+     * @return {@link Long}
+     * @since 3.1
+     */
+    public static long parseLong(@NotNull CharSequence text, long fallback) {
+        return parseLong(text, 0, text.length(), fallback);
+    }
+
+    /**
+     * Parse a whole number from part of some text, without throwing or
+     * allocating when it isn't a number.
+     *
+     * @param text     The text to parse
+     * @param start    The index of the first character to parse
+     * @param end      The index after the last character to parse
+     * @param fallback The value to return if the text isn't a number, or doesn't
+     *                 fit in a long
+     * @return {@link Long}
+     * @since 3.1
+     */
+    public static long parseLong(@NotNull CharSequence text, int start, int end, long fallback) {
+        if (start >= end) {
+            return fallback;
+        }
+        boolean negative = false;
+        char first = text.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++start == end) {
+                return fallback;
+            }
+        }
+
+        // Accumulate negatively, since Long.MIN_VALUE has no positive counterpart
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                return fallback;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return fallback;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parse a whole number which fits in an int, without throwing or allocating
+     * when the text isn't one.
+     *
+     * @param text     The text to parse
+     * @param fallback The value to return if the text isn't a number, or doesn't
+     *                 fit in an int
+     * @return {@link Integer}
+     * @since 3.1
+     */
+    public static int parseInt(@NotNull CharSequence text, int fallback) {
+        // Long.MIN_VALUE can't be mistaken for a valid int
+        long value = parseLong(text, 0, text.length(), Long.MIN_VALUE);
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? fallback : (int) value;
+    }
+
+    /**
+     * Check if the text is a whole number which fits in a long, as accepted by
+     * {@link #parseLong(CharSequence, long)}.
+     *
+     * @param text The text to check
+     * @return {@link Boolean}
+     * @since 3.1
+     */
+    public static boolean isLong(@NotNull CharSequence text) {
+        return isLong(text, 0, text.length());
+    }
+
+    /**
+     * Check if part of some text is a whole number which fits in a long.
+     *
+     * @param text  The text to check
+     * @param start The index of the first character to check
+     * @param end   The index after the last character to check
+     * @return {@link Boolean}
+     * @since 3.1
+     */
+    public static boolean isLong(@NotNull CharSequence text, int start, int end) {
+        // A number parses to the same value whatever the fallback is
+        return parseLong(text, start, end, 0) != 0 || parseLong(text, start, end, 1) != 1;
+    }
+
+    /**
+     * Parse a decimal number, optionally signed and with an exponent, without
+     * throwing or allocating when the text isn't a number. Hexadecimal numbers,
+     * "NaN" and "Infinity" aren't accepted.
+     *
+     * <pre>
+     * NumberUtil.parseDouble("1.5", 0)    = 1.5
+     * NumberUtil.parseDouble("-2e3", 0)   = -2000
+     * NumberUtil.parseDouble("1.2.3", -1) = -1
+     * </pre>
+     *
+     * @param text     The text to parse
+     * @param fallback The value to return if the text isn't a number
+     * @return {@link Double}
+     * @since 3.1
+     */
+    public static double parseDouble(@NotNull CharSequence text, double fallback) {
+        int length = text.length();
+        int i = 0;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && isAsciiDigit(text.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            while (i < length && isAsciiDigit(text.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return fallback;
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int exponent = i;
+            while (i < length && isAsciiDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == exponent) {
+                return fallback;
+            }
+        }
+        if (i != length) {
+            return fallback;
+        }
+        // Only valid numbers get this far, so this can't throw
+        return Double.parseDouble(text.toString());
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
     /**
      * Formats a price into US currency format
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A case-insensitive set of words, which can list every word starting with a
+ * prefix in sorted order. Used for tab completion, where it replaces scanning
+ * and sorting every candidate on every keystroke.
+ * <p>
+ * Completing a prefix takes time proportional to the length of the prefix plus
+ * the number of results, regardless of how many words there are. Results are
+ * sorted as {@link String#CASE_INSENSITIVE_ORDER} would sort them, and keep the
+ * case they were added with. Words which only differ by case are treated as
+ * the same word.
+ * <p>
+ * Tries are safe to use from multiple threads.
+ *
+ * @since 3.1
+ */
+public class PrefixTrie {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        /**
+         * The (lower case) characters leading to each child, in sorted order.
+         */
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int count = 0;
+        /**
+         * The word ending at this node, if any.
+         */
+        String word;
+        /**
+         * The number of words ending at or below this node.
+         */
+        int words = 0;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, 0, count, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, count, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            if (count == keys.length) {
+                int capacity = Math.max(2, count * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            System.arraycopy(children, index, children, index + 1, count - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            count++;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, count, key);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            children[--count] = null;
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Create an empty trie.
+     */
+    public PrefixTrie() {
+    }
+
+    /**
+     * Create a trie containing the given words.
+     *
+     * @param words The words to add
+     */
+    public PrefixTrie(@NotNull Iterable<String> words) {
+        for (String word : words) {
+            add(word);
+        }
+    }
+
+    private static char key(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Add a word. If a word which only differs by case is already present, it is
+     * replaced.
+     *
+     * @param word The word to add
+     * @return {@link Boolean} true if the word wasn't already present
+     */
+    public synchronized boolean add(@NotNull String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.addChild(key(word.charAt(i)));
+        }
+        boolean added = node.word == null;
+        node.word = word;
+        if (added) {
+            node = root;
+            root.words++;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.child(key(word.charAt(i)));
+                node.words++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Remove a word, ignoring case.
+     *
+     * @param word The word to remove
+     * @return {@link Boolean} true if the word was present
+     */
+    public synchronized boolean remove(@NotNull CharSequence word) {
+        Node node = find(word);
+        if (node == null || node.word == null) {
+            return false;
+        }
+        node.word = null;
+
+        // Walk down again, dropping any branch which no longer leads to a word
+        node = root;
+        root.words--;
+        for (int i = 0; i < word.length(); i++) {
+            char key = key(word.charAt(i));
+            Node child = node.child(key);
+            if (--child.words == 0) {
+                node.removeChild(key);
+                break;
+            }
+            node = child;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a word is present, ignoring case.
+     *
+     * @param word The word to look for
+     * @return {@link Boolean}
+     */
+    public synchronized boolean contains(@NotNull CharSequence word) {
+        Node node = find(word);
+        return node != null && node.word != null;
+    }
+
+    /**
+     * Get a word as it was added, ignoring the case of the given word.
+     *
+     * @param word The word to look for
+     * @return {@link String}, or null if it isn't present
+     */
+    public synchronized String get(@NotNull CharSequence word) {
+        Node node = find(word);
+        return node == null ? null : node.word;
+    }
+
+    private Node find(CharSequence prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(key(prefix.charAt(i)));
+        }
+        return node;
+    }
+
+    /**
+     * Get the number of words.
+     *
+     * @return {@link Integer}
+     */
+    public synchronized int size() {
+        return root.words;
+    }
+
+    /**
+     * Remove every word.
+     */
+    public synchronized void clear() {
+        root.keys = NO_KEYS;
+        root.children = NO_CHILDREN;
+        root.count = 0;
+        root.word = null;
+        root.words = 0;
+    }
+
+    /**
+     * List the words starting with a prefix, ignoring case, in sorted order.
+     *
+     * @param prefix The prefix to complete
+     * @param limit  The maximum number of words to return
+     * @return {@link List}
+     */
+    public List<String> complete(@NotNull CharSequence prefix, int limit) {
+        List<String> results = new ArrayList<>(Math.max(0, Math.min(limit, 16)));
+        complete(prefix, limit, results);
+        return results;
+    }
+
+    /**
+     * Add the words starting with a prefix, ignoring case, to a collection in
+     * sorted order.
+     *
+     * @param prefix  The prefix to complete
+     * @param limit   The maximum number of words to add
+     * @param results The collection to add words to
+     * @return {@link Integer} the number of words added
+     */
+    public synchronized int complete(@NotNull CharSequence prefix, int limit,
+            @NotNull Collection<? super String> results) {
+        Node node = find(prefix);
+        if (node == null || limit <= 0) {
+            return 0;
+        }
+        return collect(node, limit, results);
+    }
+
+    private static int collect(Node node, int limit, Collection<? super String> results) {
+        int added = 0;
+        if (node.word != null) {
+            results.add(node.word);
+            added++;
+        }
+        for (int i = 0; i < node.count && added < limit; i++) {
+            added += collect(node.children[i], limit - added, results);
+        }
+        return added;
+    }
+}
@@ -15,6 +15,9 @@ import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import lombok.Getter;
+import lombok.Setter;
+
 /**
  * Utility methods for dealing with time and duration parsing.
  */
@@ -22,6 +25,17 @@ public final class TimeUtil {
     private TimeUtil() {
     }
 
+    /**
+     * The clock used to get the current time. Can be replaced with a
+     * {@link VirtualClock} in tests.
+     *
+     * @since 3.1
+     */
+    @Getter
+    @Setter
+    @NotNull
+    private static Clock clock = Clock.system();
+
     private static final SimpleDateFormat sdf = new SimpleDateFormat("EEE, MMM d yyyy HH:mm:ss");
 
     private static final HashMap<Character, Long> DURATION_CHARS = new HashMap<>();
@@ -50,8 +64,8 @@ public final class TimeUtil {
      */
     public static String significantDurationString(@NotNull final long time) {
         StringBuilder message = new StringBuilder();
-        double timeSince = (double) (System.currentTimeMillis() / 1000L)
-                - ((double) (System.currentTimeMillis() / 1000L) - (time / 1000L) + 0.0);
+        double timeSince = (double) (clock.currentTimeMillis() / 1000L)
+                - ((double) (clock.currentTimeMillis() / 1000L) - (time / 1000L) + 0.0);
         if ((timeSince /= 60.0) < 60.0) {
             message.append(new DecimalFormat("0.00").format(timeSince) + "/m");
         }
@@ -144,7 +158,7 @@ public final class TimeUtil {
     }
 
     private static String expTime(@NotNull long time, @NotNull boolean compact) {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
         if (time == 0)
             return "never expires";
         else if (time < currentTime)
@@ -206,7 +220,7 @@ public final class TimeUtil {
      * @since 2.0 - This can no longer take <code>null</code> as a value
      */
     public static String significantExpirationTime(@NotNull Timestamp timestamp) {
-        return significantExpirationTime(System.currentTimeMillis() - timestamp.getTime());
+        return significantExpirationTime(clock.currentTimeMillis() - timestamp.getTime());
     }
 
     /**
@@ -313,7 +327,7 @@ public final class TimeUtil {
      * @return Current number of seconds since Unix Epoch
      */
     public static long getUnixTime() {
-        return System.currentTimeMillis() / 1000L;
+        return clock.currentTimeMillis() / 1000L;
     }
 
     /**
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Records named, nested timing spans, and exports them in the Chrome trace
+ * event format, which can be opened in <code>chrome://tracing</code> or
+ * <a href="https://ui.perfetto.dev">Perfetto</a>.
+ *
+ * <pre>
+ * Tracer.start(100_000);
+ * try (Tracer.Span span = Tracer.span("command", "ban")) {
+ *     ...
+ * }
+ * Tracer.stop();
+ * Tracer.writeChromeTrace(writer);
+ * </pre>
+ *
+ * Spans opened on the same thread while another is open are nested inside it.
+ * While no capture is running, {@link #span(String, String)} returns a shared
+ * no-op span, so leaving spans in place costs a single volatile read.
+ *
+ * @since 3.1
+ */
+public final class Tracer {
+    private Tracer() {
+    }
+
+    /**
+     * The clock spans are timed with.
+     */
+    @Getter
+    @Setter
+    @NotNull
+    private static Clock clock = Clock.system();
+
+    private static volatile boolean enabled = false;
+    private static volatile Capture capture = new Capture(0, 0);
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Events recorded during a single capture.
+     */
+    private static final class Capture {
+        final long startNanos;
+        final AtomicReferenceArray<Event> events;
+        final AtomicInteger next = new AtomicInteger();
+        final LongAdder dropped = new LongAdder();
+
+        Capture(long startNanos, int capacity) {
+            this.startNanos = startNanos;
+            this.events = new AtomicReferenceArray<>(capacity);
+        }
+
+        void add(Event event) {
+            int index = next.getAndIncrement();
+            if (index < events.length()) {
+                events.set(index, event);
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * A finished span.
+     */
+    public static final class Event {
+        @Getter
+        private final String category;
+        @Getter
+        private final String name;
+        @Getter
+        @Nullable
+        private final String detail;
+        @Getter
+        private final long threadId;
+        @Getter
+        private final String threadName;
+        /**
+         * When the span was opened, in nanoseconds since the capture started.
+         */
+        @Getter
+        private final long startNanos;
+        @Getter
+        private final long durationNanos;
+        /**
+         * How many spans were open on the same thread when this one was opened.
+         */
+        @Getter
+        private final int depth;
+
+        Event(String category, String name, String detail, Thread thread, long startNanos, long durationNanos,
+                int depth) {
+            this.category = category;
+            this.name = name;
+            this.detail = detail;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.depth = depth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s/%s on %s: %.3fms", category, name, threadName, durationNanos / 1e6);
+        }
+    }
+
+    /**
+     * An open span. Close it, ideally with try-with-resources, to record it.
+     */
+    public static class Span implements AutoCloseable {
+        private final Capture capture;
+        private final String category;
+        private final String name;
+        private final String detail;
+        private final Span parent;
+        private final int depth;
+        private final long startNanos;
+        private boolean closed = false;
+
+        private Span() {
+            this(null, null, null, null, null, 0, 0);
+        }
+
+        private Span(Capture capture, String category, String name, String detail, Span parent, int depth,
+                long startNanos) {
+            this.capture = capture;
+            this.category = category;
+            this.name = name;
+            this.detail = detail;
+            this.parent = parent;
+            this.depth = depth;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Close this span, and any spans opened inside it which are still open.
+         * Closing a span more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed || capture == null) {
+                return;
+            }
+
+            long end = clock.nanoTime();
+            Span current = CURRENT.get();
+            while (current != null && current != this && current.depth > depth) {
+                current.finish(end);
+                current = current.parent;
+            }
+            finish(end);
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+
+        private void finish(long end) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!enabled || capture != Tracer.capture) {
+                return;
+            }
+            capture.add(new Event(category, name, detail, Thread.currentThread(), startNanos - capture.startNanos,
+                    end - startNanos, depth));
+        }
+    }
+
+    private static final Span NOOP = new Span();
+
+    /**
+     * Start a new capture, discarding the previous one.
+     *
+     * @param capacity maximum number of spans to record. Spans closed after this
+     *                 many have been recorded are counted as dropped.
+     */
+    public static void start(int capacity) {
+        capture = new Capture(clock.nanoTime(), capacity);
+        enabled = true;
+    }
+
+    /**
+     * Stop recording. Spans which are still open are not recorded.
+     */
+    public static void stop() {
+        enabled = false;
+    }
+
+    /**
+     * Check if a capture is running.
+     *
+     * @return {@link Boolean}
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open a span on the current thread.
+     *
+     * @param category of the span, such as "command" or "cache"
+     * @param name     of the span
+     * @return {@link Span}
+     */
+    public static Span span(@NotNull String category, @NotNull String name) {
+        return span(category, name, null);
+    }
+
+    /**
+     * Open a span on the current thread.
+     *
+     * @param category of the span, such as "command" or "cache"
+     * @param name     of the span
+     * @param detail   extra information shown with the span, such as arguments
+     * @return {@link Span}
+     */
+    public static Span span(@NotNull String category, @NotNull String name, @Nullable String detail) {
+        if (!enabled) {
+            return NOOP;
+        }
+
+        Span parent = CURRENT.get();
+        Capture capture = Tracer.capture;
+        // Ignore spans left open from a previous capture
+        if (parent != null && parent.capture != capture) {
+            parent = null;
+        }
+        Span span = new Span(capture, category, name, detail, parent, parent == null ? 0 : parent.depth + 1,
+                clock.nanoTime());
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Get every span recorded by the current or last capture, in the order they
+     * were closed.
+     *
+     * @return {@link List}
+     */
+    public static List<Event> getEvents() {
+        Capture capture = Tracer.capture;
+        int recorded = Math.min(capture.next.get(), capture.events.length());
+        List<Event> events = new ArrayList<>(recorded);
+        for (int i = 0; i < recorded; i++) {
+            Event event = capture.events.get(i);
+            // Still being written by another thread
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Get the number of spans which were not recorded because the capture was
+     * full.
+     *
+     * @return {@link Long}
+     */
+    public static long getDropped() {
+        return capture.dropped.sum();
+    }
+
+    /**
+     * Write every recorded span as Chrome trace event JSON.
+     *
+     * @param writer to write to
+     * @throws IOException if the writer fails
+     */
+    public static void writeChromeTrace(@NotNull Writer writer) throws IOException {
+        List<Event> events = getEvents();
+        Map<Long, String> threads = new LinkedHashMap<>();
+
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("displayTimeUnit").value("ms");
+        json.name("traceEvents").beginArray();
+        for (Event event : events) {
+            threads.putIfAbsent(event.threadId, event.threadName);
+            json.beginObject();
+            json.name("name").value(event.name);
+            json.name("cat").value(event.category);
+            json.name("ph").value("X");
+            // Timestamps are in microseconds
+            json.name("ts").value(event.startNanos / 1e3);
+            json.name("dur").value(event.durationNanos / 1e3);
+            json.name("pid").value(1);
+            json.name("tid").value(event.threadId);
+            if (event.detail != null) {
+                json.name("args").beginObject().name("detail").value(event.detail).endObject();
+            }
+            json.endObject();
+        }
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            json.beginObject();
+            json.name("name").value("thread_name");
+            json.name("ph").value("M");
+            json.name("pid").value(1);
+            json.name("tid").value(thread.getKey());
+            json.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Get every recorded span as Chrome trace event JSON.
+     *
+     * @return {@link String}
+     */
+    public static String toChromeTrace() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeChromeTrace(writer);
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link Clock} which only moves when it is told to. Used to test timeouts
+ * and expiry deterministically, without waiting for real time to pass.
+ *
+ * <pre>
+ * VirtualClock clock = new VirtualClock();
+ * cache.setClock(clock);
+ * clock.advance(31, TimeUnit.MINUTES);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class VirtualClock implements Clock {
+    private final long epochMillis;
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * Create a new virtual clock, starting at the current system time.
+     */
+    public VirtualClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Create a new virtual clock.
+     *
+     * @param epochMillis The time to start at, in milliseconds since the unix
+     *                    epoch
+     */
+    public VirtualClock(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return epochMillis + TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    /**
+     * Move this clock forward.
+     *
+     * @param amount of time to move forward by
+     * @param unit   of the amount
+     * @return The new value of {@link #nanoTime()}
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public long advance(long amount, @NotNull TimeUnit unit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Cannot move a clock backwards");
+        }
+        return nanos.addAndGet(unit.toNanos(amount));
+    }
+
+    /**
+     * Move this clock forward by a number of milliseconds.
+     *
+     * @param millis to move forward by
+     * @return The new value of {@link #nanoTime()}
+     */
+    public long advance(long millis) {
+        return advance(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.arguments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ArgumentSchemaTest {
+    private static final ArgumentSchema BAN = new ArgumentSchema()
+            .optionalFlag("silent", "-s")
+            .requiredString("player")
+            .optionalDuration("duration")
+            .optionalSentence("reason", "No reason given");
+
+    @Test
+    public void testParse() {
+        List<String> input = List.of("Notch", "-s", "1d", "being", "too", "cool");
+        Arguments args = BAN.parse(input);
+        assertTrue(args.valid());
+        assertEquals("Notch", args.getString("player"));
+        assertTrue(args.getFlag("silent"));
+        assertEquals(86400L, args.getDuration("duration"));
+        assertEquals("being too cool", args.getString("reason"));
+        assertEquals(input, args.getRawArgs());
+        assertTrue(args.getUnparsedArgs().isEmpty());
+    }
+
+    @Test
+    public void testFallbacks() {
+        Arguments args = BAN.parse(List.of("Notch", "griefing"));
+        assertTrue(args.valid());
+        assertFalse(args.getFlag("silent"));
+        // Not a duration, so it's left for the sentence
+        assertNull(args.getDuration("duration"));
+        assertEquals("griefing", args.getString("reason"));
+
+        args = BAN.parse(List.of("Notch"));
+        assertEquals("No reason given", args.getString("reason"));
+    }
+
+    @Test
+    public void testMissingRequired() {
+        Arguments args = BAN.parse(List.of("-s"));
+        assertFalse(args.valid());
+        assertEquals("player", args.getInvalidatedBy());
+        assertTrue(args.getFlag("silent"));
+    }
+
+    @Test
+    public void testTypedValues() {
+        ArgumentSchema schema = new ArgumentSchema()
+                .requiredInt("amount")
+                .optionalInt("page", 1)
+                .requiredTimeString("expires")
+                .requiredSentence("words", 2);
+        Arguments args = schema.parse(List.of("42", "1h", "a", "b", "c"));
+        assertTrue(args.valid());
+        assertEquals(42, args.getInt("amount"));
+        assertEquals(42L, args.getLong("amount"));
+        assertEquals(1, args.getInt("page"));
+        assertNotNull(args.getTimestamp("expires"));
+        assertTrue(args.getTimestamp("expires").getTime() > System.currentTimeMillis());
+        assertEquals("a b", args.getString("words"));
+        assertEquals(List.of("c"), args.getUnparsedArgs());
+
+        // Too large for an int, but still a whole number
+        args = schema.parse(List.of("99999999999", "1h", "a", "b"));
+        assertTrue(args.valid());
+        assertNull(args.getInt("amount"));
+        assertEquals(99999999999L, args.getLong("amount"));
+
+        args = schema.parse(List.of("99999999999999999999", "1h", "a", "b"));
+        assertFalse(args.valid());
+        assertEquals("amount", args.getInvalidatedBy());
+    }
+
+    @Test
+    public void testSentenceTooShort() {
+        ArgumentSchema schema = new ArgumentSchema().requiredSentence("words", 3);
+        assertFalse(schema.parse(List.of("a", "b")).valid());
+        assertTrue(schema.parse(List.of("a", "b", "c")).valid());
+    }
+
+    @Test
+    public void testDeclarations() {
+        ArgumentSchema schema = new ArgumentSchema().requiredString("a").optionalString("b");
+        assertEquals(2, schema.size());
+        assertEquals(1, schema.slot("b"));
+        assertEquals(-1, schema.slot("c"));
+        assertThrows(IllegalArgumentException.class, () -> schema.optionalInt("a"));
+
+        schema.compile();
+        assertThrows(IllegalStateException.class, () -> schema.optionalInt("c"));
+    }
+
+    @Test
+    public void testFurtherParsing() {
+        Arguments args = new ArgumentSchema().requiredString("player").parse(List.of("Notch", "5"));
+        args.requiredInt("amount");
+        assertTrue(args.valid());
+        assertEquals("Notch", args.getString("player"));
+        assertEquals(5, args.getInt("amount"));
+    }
+}
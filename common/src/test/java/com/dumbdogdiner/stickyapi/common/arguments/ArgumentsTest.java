@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.arguments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ArgumentsTest {
+    @Test
+    public void testTypedValues() {
+        Arguments args = new Arguments(List.of("12", "1h", "2d", "4.5", "hello"))
+                .requiredInt("amount")
+                .requiredTimeString("expires")
+                .requiredDuration("duration")
+                .requiredString("ratio")
+                .optionalInt("page", 3)
+                .optionalString("word");
+        assertTrue(args.valid());
+
+        assertEquals(12, args.getInt("amount"));
+        assertEquals(12L, args.getLong("amount"));
+        assertEquals(12.0, args.getDouble("amount"));
+
+        Timestamp expires = args.getTimestamp("expires");
+        assertTrue(expires.getTime() > System.currentTimeMillis());
+        assertEquals(String.valueOf(expires.getTime()), args.getString("expires"));
+        assertEquals(expires.getTime(), args.getLong("expires"));
+
+        assertEquals(172800L, args.getDuration("duration"));
+        assertEquals("2d", args.getString("duration"));
+        assertEquals(172800L, args.getLong("duration"));
+
+        assertEquals(4.5, args.getDouble("ratio"));
+        assertNull(args.getInt("ratio"));
+        assertNull(args.getTimestamp("ratio"));
+
+        // "hello" isn't an int, so the fallback is used and it's left for the string
+        assertEquals(3, args.getInt("page"));
+        assertEquals("hello", args.getString("word"));
+    }
+
+    @Test
+    public void testStringsParsedOnAccess() {
+        Arguments args = new Arguments(List.of("-7", "1d", "abc")).requiredString("number")
+                .requiredString("duration").requiredString("text");
+        assertEquals(-7, args.getInt("number"));
+        assertEquals(-7L, args.getLong("number"));
+        assertEquals(86400L, args.getDuration("duration"));
+        assertNull(args.getInt("text"));
+        assertNull(args.getLong("text"));
+        assertNull(args.getDouble("text"));
+        assertNull(args.getDuration("missing"));
+        assertNull(args.getDouble("missing"));
+    }
+
+    @Test
+    public void testTimestampFromMillis() {
+        Arguments args = new Arguments(List.of("1600000000000", "1600000000")).requiredString("string")
+                .requiredInt("int");
+        assertEquals(new Timestamp(1600000000000L), args.getTimestamp("string"));
+        assertEquals(new Timestamp(1600000000L), args.getTimestamp("int"));
+    }
+
+    @Test
+    public void testOptionalIntWithoutFallback() {
+        Arguments args = new Arguments(List.of()).optionalInt("page");
+        assertTrue(args.valid());
+        assertNull(args.getInt("page"));
+        assertFalse(args.exists("page"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.arguments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandLineTest {
+    @Test
+    public void testSplit() {
+        CommandLine line = CommandLine.parse("  ban  Notch \"being too cool\" 'single quoted' ");
+        assertEquals(List.of("ban", "Notch", "being too cool", "single quoted"), line);
+        assertTrue(line.isQuoted(2));
+        assertFalse(line.isQuoted(1));
+        assertEquals(13, line.getStart(2));
+        assertEquals(29, line.getEnd(2));
+        assertTrue(line.matches(1, "Notch"));
+        assertFalse(line.matches(1, "Notc"));
+        assertTrue(CommandLine.parse("").isEmpty());
+        assertTrue(CommandLine.parse("   ").isEmpty());
+    }
+
+    @Test
+    public void testEscapes() {
+        CommandLine line = CommandLine.parse("a\\ b \"say \\\"hi\\\"\" it\\'s \\\\ \"\" end\\");
+        assertEquals(List.of("a b", "say \"hi\"", "it's", "\\", "", "end\\"), line);
+        assertTrue(line.matches(1, "say \"hi\""));
+    }
+
+    @Test
+    public void testMixedQuotes() {
+        CommandLine line = CommandLine.parse("pre\"fix suf\"fix \"one\"two \"it's\"");
+        assertEquals(List.of("prefix suffix", "onetwo", "it's"), line);
+    }
+
+    @Test
+    public void testApostrophes() {
+        CommandLine line = CommandLine.parse("don't grief rock'n'roll 'quoted words' 'tis");
+        assertEquals(List.of("don't", "grief", "rock'n'roll", "quoted words", "'tis"), line);
+        assertFalse(line.isQuoted(0));
+        assertTrue(line.isQuoted(3));
+        assertFalse(line.isQuoted(4));
+    }
+
+    @Test
+    public void testUnterminatedQuote() {
+        CommandLine line = CommandLine.parse("say \"unterminated quote");
+        assertEquals(List.of("say", "\"unterminated", "quote"), line);
+        assertFalse(line.isQuoted(1));
+        line = CommandLine.parse("height=5\" tall");
+        assertEquals(List.of("height=5\"", "tall"), line);
+        assertEquals("5\"", line.value(0).toString());
+        assertEquals(List.of("'open", "end"), CommandLine.parse("'open end"));
+    }
+
+    @Test
+    public void testParseWords() {
+        List<String> words = List.of("Notch", "\"being", "", "too", "cool\"", "it's", "a=b");
+        CommandLine line = CommandLine.parseWords(words);
+        assertEquals(List.of("Notch", "being  too cool", "it's", "a=b"), line);
+        assertEquals(String.join(" ", words), line.getLine().toString());
+        assertEquals("being  too cool\" it's", line.rest(1).subSequence(1, 22).toString());
+        assertEquals("b", line.value(3).toString());
+        assertTrue(CommandLine.parseWords(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testKeyValue() {
+        CommandLine line = CommandLine.parse("reason=\"it's late\" -s a=b=c =x \"k=v\"");
+        assertTrue(line.isKeyValue(0));
+        assertEquals("reason", line.key(0).toString());
+        assertEquals("it's late", line.value(0).toString());
+        assertFalse(line.isKeyValue(1));
+        assertNull(line.key(1));
+        assertEquals("a", line.key(2).toString());
+        assertEquals("b=c", line.value(2).toString());
+        assertFalse(line.isKeyValue(3));
+        // Quoted, so not a key and value
+        assertFalse(line.isKeyValue(4));
+    }
+
+    @Test
+    public void testViews() {
+        String text = "broadcast the server   restarts soon";
+        CommandLine line = CommandLine.parse(text);
+        CharSequence token = line.token(1);
+        assertEquals(3, token.length());
+        assertEquals('h', token.charAt(1));
+        assertEquals("he", token.subSequence(1, 3).toString());
+        assertEquals("the server   restarts soon", line.rest(1).toString());
+        assertEquals("server   restarts", line.span(2, 3).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> line.token(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> token.charAt(3));
+    }
+
+    @Test
+    public void testManyArguments() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append(i % 10 == 0 ? "\\" : "").append(i).append(' ');
+        }
+        CommandLine line = CommandLine.parse(builder);
+        assertEquals(100, line.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.valueOf(i), line.get(i));
+        }
+    }
+
+    @Test
+    public void testSchema() {
+        ArgumentSchema schema = new ArgumentSchema()
+                .optionalFlag("silent", "-s")
+                .requiredString("player")
+                .requiredSentence("reason");
+        Arguments args = schema.parse(CommandLine.parse("\"Some Player\" -s being  too cool"));
+        assertTrue(args.valid());
+        assertTrue(args.getFlag("silent"));
+        assertEquals("Some Player", args.getString("player"));
+        assertEquals("being  too cool", args.getString("reason"));
+
+        // Falls back to joining words when a flag is in the middle
+        args = schema.parse(CommandLine.parse("Notch being -s \"too cool\""));
+        assertEquals("being too cool", args.getString("reason"));
+    }
+}
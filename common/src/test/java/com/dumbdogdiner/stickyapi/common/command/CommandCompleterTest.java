@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import com.dumbdogdiner.stickyapi.common.arguments.ArgumentSchema;
+import com.dumbdogdiner.stickyapi.common.util.PrefixTrie;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandCompleterTest {
+    private static class TestCommand extends CommandBuilder<TestCommand> {
+        TestCommand(String name) {
+            super(name);
+        }
+    }
+
+    private final PrefixTrie players = new PrefixTrie(List.of("Notch", "jeb_", "Dinnerbone"));
+
+    private CommandCompleter completer() {
+        TestCommand gamemode = new TestCommand("gamemode").alias("gm")
+                .arguments(new ArgumentSchema().optionalFlag("silent", "-s").requiredString("mode")
+                        .requiredString("player").suggest("mode", "survival", "creative", "spectator"));
+        TestCommand root = new TestCommand("admin")
+                .subCommand(gamemode)
+                .subCommand(new TestCommand("reload"))
+                .subCommand(new TestCommand("kick"));
+        return new CommandCompleter(root, players);
+    }
+
+    @Test
+    public void testSubCommands() {
+        CommandCompleter completer = completer();
+        assertEquals(List.of("gamemode", "gm", "kick", "reload"), completer.complete(List.of("")));
+        assertEquals(List.of("gamemode", "gm"), completer.complete(List.of("G")));
+        assertEquals(List.of("gamemode"), completer.complete(List.of("g"), 1));
+        assertTrue(completer.complete(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testArguments() {
+        CommandCompleter completer = completer();
+        assertEquals(List.of("creative"), completer.complete(List.of("gamemode", "c")));
+        assertEquals(List.of("spectator", "survival"), completer.complete(List.of("GM", "s")));
+        // Flags don't count towards the position
+        assertEquals(List.of("creative"), completer.complete(List.of("gm", "-s", "c")));
+        assertEquals(List.of("-s"), completer.complete(List.of("gm", "-")));
+        // Arguments without suggestions complete player names
+        assertEquals(List.of("Notch"), completer.complete(List.of("gm", "creative", "n")));
+        assertEquals(List.of("Dinnerbone", "jeb_", "Notch"), completer.complete(List.of("kick", "")));
+    }
+
+    @Test
+    public void testPlayerNamesUpdate() {
+        CommandCompleter completer = completer();
+        players.add("Notchy");
+        assertEquals(List.of("Notch", "Notchy"), completer.complete(List.of("kick", "no")));
+        players.remove("Notch");
+        assertEquals(List.of("Notchy"), completer.complete(List.of("kick", "no")));
+    }
+}
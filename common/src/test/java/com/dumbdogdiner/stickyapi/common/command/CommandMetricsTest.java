@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import com.dumbdogdiner.stickyapi.common.arguments.Arguments;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandMetricsTest {
+    @Test
+    public void testRecord() {
+        CommandMetrics metrics = new CommandMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.record("ban", 1000L, i * 1_000_000L, i % 10 == 0 ? ExitCode.EXIT_COOLDOWN : ExitCode.EXIT_SUCCESS);
+        }
+        metrics.record("help", 0L, 1000L, ExitCode.EXIT_INFO);
+
+        CommandMetrics.Snapshot ban = metrics.getMetric("ban").snapshot();
+        assertEquals(100, ban.getCount());
+        assertEquals(90, ban.getCount(ExitCode.EXIT_SUCCESS));
+        assertEquals(10, ban.getCount(ExitCode.EXIT_COOLDOWN));
+        assertEquals(0, ban.getCount(ExitCode.EXIT_ERROR));
+        assertEquals(Map.of(ExitCode.EXIT_SUCCESS, 90L, ExitCode.EXIT_COOLDOWN, 10L), ban.getExitCodes());
+        assertEquals(100_000_000L, ban.getLatencyMax());
+        // Histogram percentiles are accurate to within 12.5%
+        assertTrue(Math.abs(ban.getLatencyP50() - 50_000_000L) <= 50_000_000L / 8, "p50 " + ban.getLatencyP50());
+        assertTrue(Math.abs(ban.getLatencyP99() - 99_000_000L) <= 99_000_000L / 8, "p99 " + ban.getLatencyP99());
+        assertTrue(ban.toString().contains("EXIT_COOLDOWN 10"), ban.toString());
+    }
+
+    @Test
+    public void testSnapshots() {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.record("fast", 0L, 1000L, ExitCode.EXIT_SUCCESS);
+        metrics.record("slow", 0L, 1_000_000L, ExitCode.EXIT_SUCCESS);
+
+        List<CommandMetrics.Snapshot> snapshots = metrics.getSnapshots();
+        assertEquals(2, snapshots.size());
+        assertEquals("slow", snapshots.get(0).getName());
+        assertEquals("fast", snapshots.get(1).getName());
+
+        String dump = metrics.dump(1);
+        assertTrue(dump.contains("slow"), dump);
+        assertFalse(dump.contains("fast"), dump);
+    }
+
+    @Test
+    public void testReport() {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.record("fast", 0L, 1000L, ExitCode.EXIT_SUCCESS);
+        metrics.record("slow", 0L, 1_000_000L, ExitCode.EXIT_SUCCESS);
+
+        assertEquals(3, metrics.report(new Arguments(List.of())).length);
+        String[] lines = metrics.report(new Arguments(List.of("1")));
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("slow"), lines[1]);
+        // A limit too big for an int lists everything
+        assertEquals(3, metrics.report(new Arguments(List.of("99999999999"))).length);
+    }
+
+    @Test
+    public void testDisabled() {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.setEnabled(false);
+        metrics.record("ignored", 0L, 1000L, ExitCode.EXIT_SUCCESS);
+        assertNull(metrics.getMetric("ignored"));
+
+        metrics.setEnabled(true);
+        metrics.record("counted", 0L, 1000L, ExitCode.EXIT_SUCCESS);
+        metrics.reset();
+        assertTrue(metrics.getSnapshots().isEmpty());
+    }
+}
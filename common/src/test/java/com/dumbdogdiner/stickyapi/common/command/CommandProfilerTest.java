@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandProfilerTest {
+    private static volatile Object sink;
+
+    private static void allocate(int bytes) {
+        sink = new byte[bytes];
+    }
+
+    @Test
+    public void testReportSortedByBytesPerInvocation() {
+        CommandProfiler profiler = new CommandProfiler();
+        for (int i = 0; i < 10; i++) {
+            profiler.measure("light", () -> allocate(16));
+            profiler.measure("heavy", () -> allocate(64 * 1024));
+        }
+        profiler.measure("medium", () -> allocate(8 * 1024));
+
+        List<CommandProfiler.CommandStats> report = profiler.getReport();
+        assertEquals(3, report.size());
+        assertEquals("heavy", report.get(0).getName());
+        assertEquals("medium", report.get(1).getName());
+        assertEquals("light", report.get(2).getName());
+        assertEquals(10, report.get(0).getInvocations());
+
+        if (profiler.isAllocationSupported()) {
+            CommandProfiler.CommandStats heavy = profiler.getStats("heavy");
+            assertTrue(heavy.getBytesPerInvocation() >= 64 * 1024, heavy.toString());
+            assertTrue(heavy.getMaxAllocatedBytes() >= 64 * 1024, heavy.toString());
+        }
+        assertTrue(profiler.dump(2).contains("1. heavy"));
+        assertFalse(profiler.dump(2).contains("light"));
+    }
+
+    @Test
+    public void testFailingExecutionIsRecorded() {
+        CommandProfiler profiler = new CommandProfiler();
+        assertThrows(IllegalStateException.class, () -> profiler.measure("broken", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(1, profiler.getStats("broken").getInvocations());
+    }
+
+    @Test
+    public void testDisabled() {
+        CommandProfiler profiler = new CommandProfiler();
+        profiler.setEnabled(false);
+        int[] runs = { 0 };
+        profiler.measure("ignored", () -> runs[0]++);
+        assertEquals(1, runs[0]);
+        assertNull(profiler.getStats("ignored"));
+
+        profiler.setEnabled(true);
+        profiler.measure("counted", () -> runs[0]++);
+        profiler.reset();
+        assertTrue(profiler.getReport().isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandVariablesTest {
+    private static class TestCommand extends CommandBuilder<TestCommand> {
+        TestCommand(String name) {
+            super(name);
+        }
+    }
+
+    @Test
+    public void testValues() {
+        UUID uuid = UUID.randomUUID();
+        CommandVariables.Shared shared = new CommandVariables.Shared("ban", 5000L);
+        CommandVariables variables = new CommandVariables(shared, "Notch", uuid, "", 1234L);
+        assertEquals("ban", variables.getValue(CommandVariables.indexOf("command")));
+        assertEquals("Notch", variables.getValue(CommandVariables.indexOf("sender")));
+        assertEquals("Notch", variables.getValue(CommandVariables.indexOf("player")));
+        assertEquals(uuid.toString(), variables.getValue(CommandVariables.indexOf("uuid")));
+        assertEquals("5000", variables.getValue(CommandVariables.indexOf("cooldown")));
+        assertEquals("1234", variables.getValue(CommandVariables.indexOf("cooldown_remaining")));
+
+        variables = new CommandVariables(shared, "CONSOLE", null, "none", 0L);
+        assertEquals("none", variables.getValue(CommandVariables.indexOf("uuid")));
+    }
+
+    @Test
+    public void testNames() {
+        assertEquals(6, CommandVariables.SIZE);
+        for (int i = 0; i < CommandVariables.SIZE; i++) {
+            assertEquals(i, CommandVariables.indexOf(CommandVariables.getName(i)));
+        }
+        assertEquals(-1, CommandVariables.indexOf("unknown"));
+        assertEquals(-1, CommandVariables.indexOf(null));
+    }
+
+    @Test
+    public void testResolve() {
+        CommandVariables variables = new CommandVariables(new CommandVariables.Shared("ban", 5000L), "Notch", null,
+                "none", 1234L);
+        Map<String, String> map = new HashMap<>();
+        variables.resolve("sender", map::put);
+        variables.resolve("unknown", map::put);
+        assertEquals(Map.of("sender", "Notch"), map);
+
+        // Variables which were already put are left alone
+        map.put("sender", "jeb_");
+        map.remove("uuid");
+        variables.resolve("uuid", map::put);
+        map.remove("uuid");
+        variables.resolveAll(map::put);
+        assertEquals(5, map.size());
+        assertEquals("jeb_", map.get("sender"));
+        assertNull(map.get("uuid"));
+
+        variables = new CommandVariables(new CommandVariables.Shared("ban", 5000L), "Notch", null, "none", 1234L);
+        variables.discardAll();
+        map.clear();
+        variables.resolveAll(map::put);
+        variables.resolve("sender", map::put);
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testShared() {
+        TestCommand command = new TestCommand("ban").cooldown(5000L);
+        CommandVariables.Shared shared = command.getSharedVariables("ban");
+        assertTrue(shared.matches("ban", 5000L));
+        assertSame(shared, command.getSharedVariables("ban"));
+
+        command.cooldown(1000L);
+        CommandVariables.Shared changed = command.getSharedVariables("ban");
+        assertFalse(changed.matches("ban", 5000L));
+        assertTrue(changed.matches("ban", 1000L));
+    }
+}
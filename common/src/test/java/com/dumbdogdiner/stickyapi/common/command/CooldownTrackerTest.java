@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.common.util.VirtualClock;
+
+import org.junit.jupiter.api.Test;
+
+public class CooldownTrackerTest {
+    private final VirtualClock clock = new VirtualClock(1_000_000L);
+    private final UUID player = UUID.randomUUID();
+
+    @Test
+    public void testCooldown() {
+        CooldownTracker cooldowns = new CooldownTracker(clock);
+        assertEquals(0L, cooldowns.getRemaining(player));
+        assertTrue(cooldowns.tryAcquire(player, 5000L));
+        assertFalse(cooldowns.tryAcquire(player, 5000L));
+        assertTrue(cooldowns.tryAcquire(CooldownTracker.CONSOLE, 5000L));
+
+        clock.advance(2, TimeUnit.SECONDS);
+        assertEquals(3000L, cooldowns.getRemaining(player));
+        assertFalse(cooldowns.tryAcquire(player, 5000L));
+
+        clock.advance(3, TimeUnit.SECONDS);
+        assertEquals(0L, cooldowns.getRemaining(player));
+        assertTrue(cooldowns.tryAcquire(player, 5000L));
+        assertEquals(5000L, cooldowns.getRemaining(player));
+    }
+
+    @Test
+    public void testSenderKeys() {
+        UUID console = CooldownTracker.senderKey("ConsoleCommandSender", "CONSOLE");
+        UUID block = CooldownTracker.senderKey("BlockCommandSender", "world 0 64 0");
+        assertEquals(console, CooldownTracker.senderKey("ConsoleCommandSender", "CONSOLE"));
+        assertNotEquals(console, block);
+        assertNotEquals(block, CooldownTracker.senderKey("BlockCommandSender", "world 0 65 0"));
+        // Version 3 keys never collide with player UUIDs, which are version 4
+        assertEquals(3, console.version());
+
+        // A command block on a clock doesn't lock the console out
+        CooldownTracker cooldowns = new CooldownTracker(clock);
+        assertTrue(cooldowns.tryAcquire(block, 5000L));
+        assertFalse(cooldowns.tryAcquire(block, 5000L));
+        assertTrue(cooldowns.tryAcquire(console, 5000L));
+        assertEquals(0L, cooldowns.getRemaining(CooldownTracker.CONSOLE));
+    }
+
+    @Test
+    public void testReset() {
+        CooldownTracker cooldowns = new CooldownTracker(clock);
+        assertTrue(cooldowns.tryAcquire(player, 5000L));
+        cooldowns.reset(player);
+        assertTrue(cooldowns.tryAcquire(player, 5000L));
+    }
+
+    @Test
+    public void testExpiry() {
+        CooldownTracker cooldowns = new CooldownTracker(clock);
+        for (int i = 0; i < 100; i++) {
+            cooldowns.tryAcquire(UUID.randomUUID(), 1000L);
+        }
+        assertEquals(100, cooldowns.size());
+
+        clock.advance(2, TimeUnit.SECONDS);
+        assertTrue(cooldowns.tryAcquire(player, 1000L));
+        assertEquals(1, cooldowns.size());
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws InterruptedException {
+        CooldownTracker cooldowns = new CooldownTracker();
+        int[] acquired = new int[1];
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (cooldowns.tryAcquire(player, 60000L)) {
+                        synchronized (acquired) {
+                            acquired[0]++;
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, acquired[0]);
+    }
+}
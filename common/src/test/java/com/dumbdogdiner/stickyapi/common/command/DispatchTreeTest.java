@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DispatchTreeTest {
+    private static class TestCommand extends CommandBuilder<TestCommand> {
+        TestCommand(String name) {
+            super(name);
+        }
+    }
+
+    private final TestCommand mode = new TestCommand("mode");
+    private final TestCommand gamemode = new TestCommand("gamemode").alias("gm").pool("worker").subCommand(mode);
+    private final TestCommand reload = new TestCommand("reload").cooldown(5000L).requiresPlayer();
+    private final TestCommand admin = new TestCommand("admin").synchronous().subCommand(gamemode)
+            .subCommand(reload);
+
+    {
+        // Sub-commands take their parent's setting when added
+        gamemode.synchronous(false);
+        mode.synchronous(true);
+    }
+
+    @Test
+    public void testResolve() {
+        DispatchTree<TestCommand> tree = DispatchTree.compile(admin);
+        assertSame(admin, tree.resolve(new String[0]).getCommand());
+        assertSame(admin, tree.resolve(List.of("unknown", "reload")).getCommand());
+        assertSame(reload, tree.resolve(new String[] { "reload", "now" }).getCommand());
+        assertSame(mode, tree.resolve(List.of("gamemode", "mode")).getCommand());
+        // Sub-commands are only matched by their exact name, so these are arguments
+        assertSame(admin, tree.resolve(List.of("gm", "creative")).getCommand());
+        assertSame(gamemode, tree.resolve(List.of("gamemode", "MODE")).getCommand());
+    }
+
+    @Test
+    public void testArguments() {
+        DispatchTree<TestCommand> tree = DispatchTree.compile(admin);
+        List<String> args = List.of("gamemode", "mode", "creative", "Notch");
+        DispatchTree.Node<TestCommand> node = tree.resolve(args);
+        assertEquals(2, node.getDepth());
+        assertEquals("admin gamemode mode", node.getPath());
+        assertEquals(List.of("creative", "Notch"), node.arguments(args));
+        assertSame(args, tree.getRoot().arguments(args));
+    }
+
+    @Test
+    public void testMetadata() {
+        DispatchTree<TestCommand> tree = DispatchTree.compile(admin);
+        DispatchTree.Node<TestCommand> root = tree.getRoot();
+        assertFalse(root.isAsynchronous());
+        assertNull(root.getPoolName());
+
+        DispatchTree.Node<TestCommand> node = root.getChild("reload");
+        assertFalse(node.isAsynchronous());
+        assertTrue(node.isRequiresPlayer());
+        assertEquals(5000L, node.getCooldown());
+        assertFalse(node.isIllegal());
+
+        node = root.getChild("gamemode");
+        assertNull(root.getChild("gm"));
+        assertNull(root.getChild("Gamemode"));
+        assertTrue(node.isAsynchronous());
+        assertEquals("worker", node.getPoolName());
+        assertFalse(node.isIllegal());
+
+        // A synchronous command under an asynchronous one
+        node = node.getChild("mode");
+        assertTrue(node.isAsynchronous());
+        assertEquals("worker", node.getPoolName());
+        assertTrue(node.isIllegal());
+    }
+
+    @Test
+    public void testImmutable() {
+        DispatchTree<TestCommand> tree = DispatchTree.compile(admin);
+        admin.subCommand(new TestCommand("kick"));
+        assertSame(admin, tree.resolve(List.of("kick")).getCommand());
+        assertEquals(2, tree.getRoot().getChildren().size());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.common.util.VirtualClock;
+
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+    private static class TestCommand extends CommandBuilder<TestCommand> {
+        TestCommand(String name) {
+            super(name);
+        }
+    }
+
+    private final VirtualClock clock = new VirtualClock(1_000_000L);
+    private final UUID player = UUID.randomUUID();
+
+    @Test
+    public void testBurstAndRefill() {
+        RateLimiter limiter = new RateLimiter(3, 2.0, clock);
+        assertEquals(3, limiter.getAvailable(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertFalse(limiter.tryAcquire(player));
+        assertEquals(0, limiter.getAvailable(player));
+        // Other senders have their own bucket
+        assertTrue(limiter.tryAcquire(UUID.randomUUID()));
+
+        // One token every half a second
+        clock.advance(500, TimeUnit.MILLISECONDS);
+        assertEquals(1, limiter.getAvailable(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertFalse(limiter.tryAcquire(player));
+
+        // Never more than a full bucket
+        clock.advance(10, TimeUnit.SECONDS);
+        assertEquals(3, limiter.getAvailable(player));
+    }
+
+    @Test
+    public void testShared() {
+        RateLimiter limiter = new RateLimiter(2, 1.0, clock);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(0, limiter.getAvailable());
+        // The shared bucket is separate from each sender's
+        assertTrue(limiter.tryAcquire(player));
+
+        clock.advance(1, TimeUnit.SECONDS);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testExpiry() {
+        RateLimiter limiter = new RateLimiter(1, 1.0, clock);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(UUID.randomUUID());
+        }
+        assertEquals(100, limiter.size());
+
+        clock.advance(2, TimeUnit.SECONDS);
+        assertTrue(limiter.tryAcquire(player));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    public void testRelease() {
+        RateLimiter limiter = new RateLimiter(2, 1.0, clock);
+        assertTrue(limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player));
+        limiter.release(player);
+        assertEquals(1, limiter.getAvailable(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertFalse(limiter.tryAcquire(player));
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release();
+        assertEquals(2, limiter.getAvailable());
+        // Releasing a sender that was never seen does nothing
+        limiter.release(UUID.randomUUID());
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, Double.NaN));
+    }
+
+    @Test
+    public void testCommandLimits() {
+        TestCommand command = new TestCommand("spam").rateLimit(1, 0.001).commandRateLimit(2, 0.001);
+        UUID other = UUID.randomUUID();
+        assertTrue(command.tryAcquireRateLimits(player));
+        assertFalse(command.tryAcquireRateLimits(player));
+        assertTrue(command.tryAcquireRateLimits(other));
+        // The command's limit is used up, even for a new sender
+        assertFalse(command.tryAcquireRateLimits(UUID.randomUUID()));
+
+        try {
+            CommandBuilder.setGlobalRateLimit(new RateLimiter(1, 0.001));
+            TestCommand unlimited = new TestCommand("other");
+            assertTrue(unlimited.tryAcquireRateLimits(player));
+            assertFalse(unlimited.tryAcquireRateLimits(other));
+        } finally {
+            CommandBuilder.setGlobalRateLimit(null);
+        }
+    }
+
+    @Test
+    public void testRefusalKeepsOtherLimits() {
+        TestCommand command = new TestCommand("spam").rateLimit(1, 0.001).commandRateLimit(1, 0.001);
+        UUID other = UUID.randomUUID();
+        assertTrue(command.tryAcquireRateLimits(player));
+        // Refused by the command's limit, so the sender's own run isn't used up
+        assertFalse(command.tryAcquireRateLimits(other));
+        assertEquals(1, command.senderRateLimit.getAvailable(other));
+
+        try {
+            CommandBuilder.setGlobalRateLimit(new RateLimiter(1, 0.001));
+            TestCommand limited = new TestCommand("other").rateLimit(1, 0.001).commandRateLimit(2, 0.001);
+            assertTrue(limited.tryAcquireRateLimits(player));
+            // Refused by the global limit
+            assertFalse(limited.tryAcquireRateLimits(other));
+            assertEquals(1, limited.senderRateLimit.getAvailable(other));
+            assertEquals(1, limited.commandRateLimit.getAvailable());
+
+            // Refused by the sender's limit, so the global and command runs are given back
+            CommandBuilder.setGlobalRateLimit(new RateLimiter(1, 0.001));
+            assertFalse(limited.tryAcquireRateLimits(player));
+            assertEquals(1, CommandBuilder.getGlobalRateLimit().getAvailable());
+            assertEquals(1, limited.commandRateLimit.getAvailable());
+        } finally {
+            CommandBuilder.setGlobalRateLimit(null);
+        }
+    }
+
+    @Test
+    public void testDeniedSenderKeepsLimits() {
+        TestCommand command = new TestCommand("admin").commandRateLimit(1, 0.001);
+        CooldownTracker cooldowns = new CooldownTracker(clock);
+        UUID other = UUID.randomUUID();
+        try {
+            CommandBuilder.setGlobalRateLimit(new RateLimiter(1, 0.001));
+            for (int i = 0; i < 10; i++) {
+                assertEquals(ExitCode.EXIT_PERMISSION_DENIED,
+                        command.checkAccess(player, false, true, false, cooldowns, 1000L));
+                assertEquals(ExitCode.EXIT_MUST_BE_PLAYER,
+                        command.checkAccess(player, true, false, true, cooldowns, 1000L));
+            }
+            assertEquals(1, CommandBuilder.getGlobalRateLimit().getAvailable());
+            assertEquals(1, command.commandRateLimit.getAvailable());
+            assertEquals(0L, cooldowns.getRemaining(player));
+
+            // A sender on a cooldown gives back the runs they took
+            assertTrue(cooldowns.tryAcquire(other, 1000L));
+            assertEquals(ExitCode.EXIT_COOLDOWN, command.checkAccess(other, true, true, false, cooldowns, 1000L));
+            assertEquals(1, CommandBuilder.getGlobalRateLimit().getAvailable());
+            assertEquals(1, command.commandRateLimit.getAvailable());
+
+            assertNull(command.checkAccess(player, true, true, false, cooldowns, 1000L));
+            assertEquals(0, CommandBuilder.getGlobalRateLimit().getAvailable());
+            assertEquals(1000L, cooldowns.getRemaining(player));
+        } finally {
+            CommandBuilder.setGlobalRateLimit(null);
+        }
+    }
+}
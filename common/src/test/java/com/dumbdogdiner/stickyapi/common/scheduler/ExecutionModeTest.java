@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static com.dumbdogdiner.stickyapi_tests_common.TestsCommon.superficialEnumCodeCoverage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ExecutionModeTest {
+    @Test
+    public void enumExecutionMode() {
+        superficialEnumCodeCoverage(ExecutionMode.class);
+    }
+
+    @Test
+    public void testDefaultIsSupported() {
+        assertTrue(ExecutionMode.getDefault().isSupported());
+    }
+
+    @Test
+    public void testCreateExecutor() throws Exception {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            if (!mode.isSupported()) {
+                continue;
+            }
+            ExecutorService executor = mode.createExecutor();
+            int result = executor.submit(() -> 42).get(5, TimeUnit.SECONDS);
+            assertEquals(42, result);
+            executor.shutdown();
+        }
+    }
+}
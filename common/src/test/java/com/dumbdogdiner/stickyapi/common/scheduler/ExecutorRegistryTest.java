@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ExecutorRegistryTest {
+    @Test
+    public void testRegisterAndShutdownByOwner() {
+        ExecutorRegistry registry = new ExecutorRegistry();
+        InstrumentedExecutor a = new PoolBuilder("a").owner("PluginA").register(registry);
+        InstrumentedExecutor b = new PoolBuilder("b").owner("PluginB").register(registry);
+
+        assertSame(a, registry.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> new PoolBuilder("a").register(registry));
+
+        assertEquals(1, registry.shutdown("PluginA"));
+        assertTrue(a.isShutdown());
+        assertNull(registry.get("a"));
+        assertSame(b, registry.get("b"));
+
+        registry.shutdownAll();
+        assertTrue(b.isShutdown());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        InstrumentedExecutor executor = new PoolBuilder("metrics").threads(2).build();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        PoolMetrics metrics = executor.getMetrics();
+        assertEquals(10, metrics.getSubmittedTasks());
+        assertEquals(10, metrics.getCompletedTasks());
+        assertEquals(0, metrics.getRejectedTasks());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    public void testRejectionAndBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger backpressure = new AtomicInteger();
+        InstrumentedExecutor executor = new PoolBuilder("bounded").threads(1).queueCapacity(2)
+                .backpressure(2, (pool, depth) -> backpressure.incrementAndGet()).build();
+
+        // One running, two queued
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+        assertEquals(1, executor.getMetrics().getRejectedTasks());
+        assertEquals(1, backpressure.get());
+        assertTrue(executor.isSaturated());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCallerRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        InstrumentedExecutor executor = new PoolBuilder("caller").threads(1).queueCapacity(1)
+                .rejectionPolicy(RejectionPolicy.CALLER_RUNS).build();
+
+        // One running, one queued
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // The pool is full, so the task runs on this thread
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranOnCaller = new AtomicInteger();
+        executor.execute(() -> {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller.incrementAndGet();
+            }
+        });
+        assertEquals(1, ranOnCaller.get());
+        assertEquals(1, executor.getMetrics().getRejectedTasks());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyedTaskTest {
+    /**
+     * Run scheduler passes on this thread until the condition holds.
+     */
+    private static void tickUntil(Scheduler scheduler, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            scheduler.schedule();
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testDebounceRunsLatestOnce() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        Debouncer<String> debouncer = new Debouncer<>(scheduler, 50, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+        AtomicInteger value = new AtomicInteger();
+
+        for (int i = 1; i <= 10; i++) {
+            int v = i;
+            debouncer.submit("key", () -> {
+                ran.incrementAndGet();
+                value.set(v);
+            });
+        }
+        assertEquals(1, debouncer.pending());
+
+        tickUntil(scheduler, () -> ran.get() > 0);
+        assertEquals(1, ran.get());
+        assertEquals(10, value.get());
+        assertEquals(0, debouncer.pending());
+    }
+
+    @Test
+    public void testDebounceCancel() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        Debouncer<String> debouncer = new Debouncer<>(scheduler, 10, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+
+        debouncer.submit("key", ran::incrementAndGet);
+        assertTrue(debouncer.cancel("key"));
+
+        assertEquals(0, debouncer.pending());
+        Thread.sleep(20);
+        scheduler.schedule();
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void testThrottleLeadingAndTrailing() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        Throttler<String> throttler = new Throttler<>(scheduler, 50, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+        AtomicInteger value = new AtomicInteger();
+
+        assertTrue(throttler.submit("key", () -> value.set(1)));
+        assertEquals(0, value.get());
+        scheduler.schedule();
+        assertEquals(1, value.get());
+        for (int i = 2; i <= 10; i++) {
+            int v = i;
+            assertFalse(throttler.submit("key", () -> {
+                ran.incrementAndGet();
+                value.set(v);
+            }));
+        }
+        assertFalse(throttler.isAllowed("key"));
+        assertTrue(throttler.isAllowed("other"));
+
+        tickUntil(scheduler, () -> ran.get() > 0);
+        assertEquals(1, ran.get());
+        assertEquals(10, value.get());
+    }
+
+    @Test
+    public void testCoalesceWithinTick() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        Coalescer<String> coalescer = new Coalescer<>(scheduler);
+        AtomicInteger a = new AtomicInteger();
+        AtomicInteger b = new AtomicInteger();
+
+        for (int i = 0; i < 100; i++) {
+            coalescer.submit("a", a::incrementAndGet);
+            coalescer.submit("b", b::incrementAndGet);
+        }
+        assertEquals(2, coalescer.pending());
+
+        scheduler.schedule();
+        assertEquals(1, a.get());
+        assertEquals(1, b.get());
+        assertEquals(0, coalescer.pending());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class PipelineTest {
+    /**
+     * Run scheduler passes on this thread until the future completes.
+     */
+    private static void tickUntilDone(Scheduler scheduler, CompletableFuture<?> future) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!future.isDone() && System.currentTimeMillis() < deadline) {
+            scheduler.schedule();
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testStagesRunInOrderWithAffinity() throws Exception {
+        Scheduler scheduler = new Scheduler(2);
+        Thread main = Thread.currentThread();
+        AtomicReference<Thread> syncThread = new AtomicReference<>();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        Pipeline.Run run = new Pipeline("test", scheduler).stage("load", Pipeline.Affinity.ASYNC, r -> 20)
+                .stage("a", Pipeline.Affinity.ASYNC, r -> {
+                    bothRunning.countDown();
+                    // Only passes if "b" runs at the same time
+                    assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+                    return (int) r.getResult("load") + 1;
+                }, "load").stage("b", Pipeline.Affinity.ASYNC, r -> {
+                    bothRunning.countDown();
+                    assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+                    return 2;
+                }, "load").stage("apply", Pipeline.Affinity.SYNC, r -> {
+                    syncThread.set(Thread.currentThread());
+                    return (int) r.getResult("a") * (int) r.getResult("b");
+                }, "a", "b").run();
+
+        tickUntilDone(scheduler, run.toFuture());
+        run.toFuture().get(0, TimeUnit.SECONDS);
+        assertEquals(42, (int) run.getResult("apply"));
+        assertSame(main, syncThread.get());
+        for (Pipeline.StageTiming timing : run.getTimings()) {
+            assertEquals(Pipeline.State.SUCCEEDED, timing.getState());
+        }
+    }
+
+    @Test
+    public void testFailureSkipsDependents() throws Exception {
+        Scheduler scheduler = new Scheduler(2);
+        AtomicBoolean ranDependent = new AtomicBoolean();
+
+        Pipeline.Run run = new Pipeline("test", scheduler).stage("fail", Pipeline.Affinity.ASYNC, r -> {
+            throw new IllegalStateException("boom");
+        }).stage("after", Pipeline.Affinity.SYNC, () -> ranDependent.set(true), "fail").run();
+
+        tickUntilDone(scheduler, run.toFuture());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> run.toFuture().get(0, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertFalse(ranDependent.get());
+        assertEquals(Pipeline.State.FAILED, run.getTimings().get(0).getState());
+        assertEquals(Pipeline.State.CANCELLED, run.getTimings().get(1).getState());
+    }
+
+    @Test
+    public void testErrorFailsStage() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+
+        Pipeline.Run run = new Pipeline("test", scheduler).stage("error", Pipeline.Affinity.SYNC, r -> {
+            throw new AssertionError("boom");
+        }).run();
+
+        tickUntilDone(scheduler, run.toFuture());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> run.toFuture().get(0, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof AssertionError);
+        assertEquals(Pipeline.State.FAILED, run.getTimings().get(0).getState());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        Pipeline.Run run = new Pipeline("test", scheduler).stage("sync", Pipeline.Affinity.SYNC, () -> ran.set(true))
+                .run();
+        run.cancel();
+        scheduler.schedule();
+
+        assertTrue(run.toFuture().isCancelled());
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testDependencyMustExist() {
+        Pipeline pipeline = new Pipeline("test", new Scheduler(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> pipeline.stage("a", Pipeline.Affinity.ASYNC, () -> {
+                }, "missing"));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.common.util.VirtualClock;
+
+import org.junit.jupiter.api.Test;
+
+public class SchedulerProfilerTest {
+    @Test
+    public void testDisabledDoesNotWrap() {
+        Scheduler scheduler = new Scheduler(1);
+        Callable<Integer> task = () -> 1;
+        assertTrue(scheduler.getProfiler().wrap(task, 0) == task);
+
+        scheduler.scheduleSynchronous(task);
+        scheduler.schedule();
+        assertEquals(0, scheduler.getProfiler().getProfiles().size());
+        assertEquals(0, scheduler.getProfiler().getTickHistogram().getCount());
+    }
+
+    @Test
+    public void testTopOffenders() {
+        Scheduler scheduler = new Scheduler(1);
+        scheduler.getProfiler().setEnabled(true);
+
+        scheduler.scheduleSynchronous(SchedulerProfiler.named("slow", () -> {
+            Thread.sleep(20);
+            return null;
+        }));
+        for (int i = 0; i < 10; i++) {
+            scheduler.scheduleSynchronous(SchedulerProfiler.named("fast", () -> null));
+        }
+        // Untagged tasks are attributed to the class which submitted them
+        scheduler.getSynchronousExecutor().execute(() -> {
+        });
+        scheduler.schedule();
+
+        List<SchedulerProfiler.TaskProfile> top = scheduler.getProfiler().getTopOffenders(2);
+        assertEquals(2, top.size());
+        assertEquals("slow", top.get(0).getTag());
+        assertTrue(top.get(0).getRunHistogram().getMax() >= 20_000_000L);
+        assertEquals(3, scheduler.getProfiler().getProfiles().size());
+        assertTrue(scheduler.getProfiler().getProfiles().stream()
+                .anyMatch(p -> p.getTag().equals(SchedulerProfilerTest.class.getName())));
+        assertEquals(10, scheduler.getProfiler().getProfiles().stream().filter(p -> p.getTag().equals("fast"))
+                .findFirst().get().getRunHistogram().getCount());
+
+        assertEquals(1, scheduler.getProfiler().getTickHistogram().getCount());
+        assertTrue(scheduler.getProfiler().dump(5).contains("1. slow"));
+    }
+
+    @Test
+    public void testDelayedWaitMeasuredFromDueTime() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        scheduler.getProfiler().setEnabled(true);
+
+        scheduler.scheduleSynchronous(SchedulerProfiler.named("delayed", Executors.callable(() -> {
+        })), 0, java.util.concurrent.TimeUnit.MILLISECONDS);
+        scheduler.schedule();
+        SchedulerProfiler.TaskProfile profile = scheduler.getProfiler().getProfiles().get(0);
+        assertEquals("delayed", profile.getTag());
+        assertTrue(profile.getWaitHistogram().getMax() < 1_000_000_000L);
+    }
+
+    @Test
+    public void testTimesUseSchedulerClock() {
+        Scheduler scheduler = new Scheduler(1);
+        VirtualClock clock = new VirtualClock();
+        scheduler.setClock(clock);
+        scheduler.getProfiler().setEnabled(true);
+
+        scheduler.scheduleSynchronous(SchedulerProfiler.named("waiting", () -> null));
+        clock.advance(250, TimeUnit.MILLISECONDS);
+        scheduler.schedule();
+
+        SchedulerProfiler.TaskProfile profile = scheduler.getProfiler().getProfiles().get(0);
+        assertTrue(profile.getWaitHistogram().getMax() >= 250_000_000L);
+        assertEquals(0, profile.getRunHistogram().getMax());
+    }
+
+    @Test
+    public void testInlineTasksProfiled() {
+        Scheduler scheduler = new Scheduler(1);
+        scheduler.getProfiler().setEnabled(true);
+
+        scheduler.scheduleSynchronous(Executors.callable(() -> scheduler.getSynchronousExecutor()
+                .execute(SchedulerProfiler.named("inline", (Runnable) () -> {
+                }))));
+        scheduler.schedule();
+
+        assertTrue(scheduler.getProfiler().getProfiles().stream().anyMatch(p -> p.getTag().equals("inline")));
+    }
+
+    @Test
+    public void testTagBySubmitter() {
+        Scheduler scheduler = new Scheduler(1);
+        scheduler.getProfiler().setEnabled(true);
+
+        // Without walking the stack, wrapped tasks are tagged by the wrapper
+        scheduler.scheduleSynchronous(Executors.callable(() -> {
+        }));
+        scheduler.getProfiler().setTagBySubmitter(true);
+        scheduler.scheduleSynchronous(Executors.callable(() -> {
+        }));
+        scheduler.schedule();
+
+        List<SchedulerProfiler.TaskProfile> profiles = scheduler.getProfiler().getProfiles();
+        assertEquals(2, profiles.size());
+        assertTrue(profiles.stream().anyMatch(p -> p.getTag().equals(Executors.class.getName())));
+        assertTrue(profiles.stream().anyMatch(p -> p.getTag().equals(SchedulerProfilerTest.class.getName())));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dumbdogdiner.stickyapi.common.cache.Cache;
+import com.dumbdogdiner.stickyapi.common.cache.Cacheable;
+import com.dumbdogdiner.stickyapi.common.util.VirtualClock;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulatedTickDriverTest {
+    private static class Entry implements Cacheable {
+        private final String key;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+
+    @Test
+    public void testDelayedTaskRunsOnDueTick() {
+        Scheduler scheduler = new Scheduler(1);
+        SimulatedTickDriver driver = new SimulatedTickDriver(scheduler, new VirtualClock(0));
+        AtomicLong ranAt = new AtomicLong(-1);
+
+        scheduler.scheduleSynchronous(Executors.callable(() -> ranAt.set(driver.getTicks())), 1, TimeUnit.SECONDS);
+        driver.tick(19);
+        assertEquals(-1, ranAt.get());
+        driver.tick();
+        assertEquals(19, ranAt.get());
+    }
+
+    @Test
+    public void testDebouncerInVirtualTime() {
+        Scheduler scheduler = new Scheduler(1);
+        SimulatedTickDriver driver = new SimulatedTickDriver(scheduler, new VirtualClock(0));
+        Debouncer<String> debouncer = new Debouncer<>(scheduler, 500, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+
+        // Keep resubmitting for 5 seconds, then go quiet
+        for (int i = 0; i < 100; i++) {
+            debouncer.submit("key", ran::incrementAndGet);
+            driver.tick();
+        }
+        assertEquals(0, ran.get());
+        assertTrue(driver.runUntil(() -> ran.get() > 0, 20));
+        // Last submitted at 4950ms, so due at 5450ms
+        assertEquals(109, driver.getTicks());
+    }
+
+    @Test
+    public void testCacheExpiry() {
+        VirtualClock clock = new VirtualClock(0);
+        Cache<Entry> cache = new Cache<>(Entry.class);
+        cache.setClock(clock);
+        cache.setTtl(TimeUnit.MINUTES.toMillis(30));
+
+        cache.put(new Entry("a"));
+        clock.advance(20, TimeUnit.MINUTES);
+        cache.put(new Entry("b"));
+        assertEquals(0, cache.evictExpired());
+
+        clock.advance(11, TimeUnit.MINUTES);
+        assertEquals(1, cache.evictExpired());
+        assertEquals(1, cache.size());
+        assertEquals("b", cache.getOldestEntry().getKey());
+    }
+
+    @Test
+    public void testMillionTicks() {
+        Scheduler scheduler = new Scheduler(1);
+        SimulatedTickDriver driver = new SimulatedTickDriver(scheduler, new VirtualClock(0));
+        AtomicInteger ran = new AtomicInteger();
+
+        for (int i = 1; i <= 1000; i++) {
+            scheduler.scheduleSynchronous(() -> ran.incrementAndGet(), i, TimeUnit.SECONDS);
+        }
+        driver.tick(1_000_000);
+        assertEquals(1000, ran.get());
+        assertEquals(TimeUnit.SECONDS.toNanos(50_000), driver.getClock().nanoTime());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskChainTest {
+    /**
+     * Run scheduler passes on this thread until the future completes.
+     */
+    private static <T> T tickUntilDone(Scheduler scheduler, CompletableFuture<T> future) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!future.isDone() && System.currentTimeMillis() < deadline) {
+            scheduler.schedule();
+            Thread.sleep(1);
+        }
+        return future.get(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testAsyncToSyncAndBack() throws Exception {
+        Scheduler scheduler = new Scheduler(2);
+        Thread main = Thread.currentThread();
+        AtomicReference<Thread> syncThread = new AtomicReference<>();
+        AtomicReference<Thread> asyncThread = new AtomicReference<>();
+
+        CompletableFuture<Integer> future = scheduler.supplyAsync(() -> 20).thenSync(value -> {
+            syncThread.set(Thread.currentThread());
+            return value + 1;
+        }).thenAsync(value -> {
+            asyncThread.set(Thread.currentThread());
+            return value * 2;
+        }).toFuture();
+
+        assertEquals(42, (int) tickUntilDone(scheduler, future));
+        assertSame(main, syncThread.get());
+        assertFalse(asyncThread.get() == main);
+    }
+
+    @Test
+    public void testContinuationsBatchedIntoOnePass() throws Exception {
+        Scheduler scheduler = new Scheduler(2);
+        AtomicInteger ran = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[50];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = scheduler.supplyAsync(() -> 1).acceptSync(value -> ran.addAndGet(value)).toFuture();
+        }
+
+        // Wait for every async stage to complete before running a single pass
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getSynchronous().size() < futures.length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        scheduler.schedule();
+
+        assertEquals(futures.length, ran.get());
+        assertTrue(CompletableFuture.allOf(futures).isDone());
+    }
+
+    @Test
+    public void testExceptionallySync() throws Exception {
+        Scheduler scheduler = new Scheduler(1);
+        CompletableFuture<String> future = scheduler.<String>supplyAsync(() -> {
+            throw new IllegalStateException("nope");
+        }).exceptionallySync(error -> "recovered").toFuture();
+
+        assertEquals("recovered", tickUntilDone(scheduler, future));
+    }
+}
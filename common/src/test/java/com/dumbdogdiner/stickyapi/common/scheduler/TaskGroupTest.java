@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskGroupTest {
+    @Test
+    public void testFinishedTasksAreUntracked() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        TaskGroup group = new TaskGroup("test", null, pool);
+
+        assertEquals(42, (int) group.submit(() -> 42).get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+        assertEquals(0, group.size());
+    }
+
+    @Test
+    public void testCancelAllSyncTasks() {
+        Scheduler scheduler = new Scheduler(1);
+        TaskGroup group = new TaskGroup("test", scheduler);
+        AtomicInteger ran = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            group.submitSync(ran::incrementAndGet);
+            group.scheduleSync(ran::incrementAndGet, 1, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(20, group.size());
+        assertEquals(20, group.cancelAll(false));
+        assertEquals(0, group.size());
+
+        scheduler.schedule();
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void testCloseReportsLeaks() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        TaskGroup group = new TaskGroup("test", null, pool);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        group.submit(() -> {
+            started.countDown();
+            // Ignores interrupts, like a badly behaved task would
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // keep going
+                }
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+
+        List<TaskGroup.Task<?>> leaked = group.close();
+        assertEquals(1, leaked.size());
+        assertTrue(leaked.get(0).isLeaked());
+        assertThrows(RejectedExecutionException.class, () -> group.submit(() -> 1));
+
+        release.countDown();
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+        assertEquals(0, group.getLeaked().size());
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import com.dumbdogdiner.stickyapi.common.cache.Cache;
+import com.dumbdogdiner.stickyapi.common.cache.Cacheable;
+
+import org.junit.jupiter.api.Test;
+
+public class DebuggerTest {
+    private static class Entry implements Cacheable {
+        @Override
+        public String getKey() {
+            return "key";
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void printDisabled(Debugger debug, Cache<Entry> cache, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            debug.reset();
+            debug.print("Could not find flag");
+            debug.print("Looking for optional flag %s...", "name");
+            debug.print("Found flag at position %d - new args size = %d", 3, 4);
+            debug.print("Looking for sentence - start = %d, end = %d, length = %d", 1, 2, 3);
+            debug.print(() -> "expensive");
+            cache.get("key");
+        }
+    }
+
+    @Test
+    public void testDisabledPathDoesNotAllocate() {
+        Debugger.setEnabled(false);
+        Debugger debug = new Debugger(DebuggerTest.class);
+        Cache<Entry> cache = new Cache<>(Entry.class);
+        cache.put(new Entry());
+
+        printDisabled(debug, cache, 20_000);
+        // Warm up the measurement itself
+        allocatedBytes();
+        long before = allocatedBytes();
+        printDisabled(debug, cache, 100_000);
+        long allocated = allocatedBytes() - before;
+
+        // A single boxed array per call would be several megabytes here
+        assertTrue(allocated < 4096, "Disabled debugger allocated " + allocated + " bytes");
+    }
+
+    private static Logger capture(List<String> messages) {
+        Logger logger = Logger.getLogger("DebuggerTest");
+        logger.setUseParentHandlers(false);
+        for (Handler handler : logger.getHandlers()) {
+            logger.removeHandler(handler);
+        }
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+
+    @Test
+    public void testEnabledFormatsMessage() {
+        List<String> messages = new ArrayList<>();
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        try {
+            Debugger debug = new Debugger(DebuggerTest.class);
+            debug.print("found %d things", 42);
+            debug.print(() -> "lazy");
+            debug.print("100% literal");
+            // An explicit array is still spread over the format
+            Object[] args = { "a", "b" };
+            debug.print("%s and %s", args);
+            debug.print(null);
+        } finally {
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(5, messages.size());
+        assertTrue(messages.get(0).contains("found 42 things"));
+        assertTrue(messages.get(0).contains("DebuggerTest.class: "));
+        assertTrue(messages.get(1).contains("lazy"));
+        assertTrue(messages.get(2).contains("100% literal"));
+        assertTrue(messages.get(3).contains("a and b"), messages.get(3));
+        assertTrue(messages.get(4).contains("] \u00A7rnull |"), messages.get(4));
+    }
+
+    @Test
+    public void testCallerLine() {
+        List<String> messages = new ArrayList<>();
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        int line = 0;
+        try {
+            Debugger debug = new Debugger(DebuggerTest.class);
+            for (int i = 0; i < 2; i++) {
+                line = new Throwable().getStackTrace()[0].getLineNumber();
+                debug.print("first");
+                debug.print("second %s", "call site");
+            }
+
+            Debugger.setResolveCallers(false);
+            debug.print("no caller");
+        } finally {
+            Debugger.setResolveCallers(true);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(5, messages.size());
+        for (int i = 0; i < 4; i += 2) {
+            assertTrue(messages.get(i).contains("DebuggerTest.class: " + (line + 1) + "]"), messages.get(i));
+            assertTrue(messages.get(i + 1).contains("DebuggerTest.class: " + (line + 2) + "]"), messages.get(i + 1));
+        }
+        assertTrue(messages.get(4).contains("DebuggerTest.class]"), messages.get(4));
+    }
+
+    // Overloads which print from the same bytecode index on different lines
+    private static int printFrom(Debugger debug, int value) {
+        debug.print("int");
+        return new Throwable().getStackTrace()[0].getLineNumber() - 1;
+    }
+
+    private static int printFrom(Debugger debug, String value) {
+
+        debug.print("string");
+        return new Throwable().getStackTrace()[0].getLineNumber() - 1;
+    }
+
+    @Test
+    public void testCallerLineOfOverloads() {
+        List<String> messages = new ArrayList<>();
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        int intLine;
+        int stringLine;
+        try {
+            Debugger debug = new Debugger(DebuggerTest.class);
+            intLine = printFrom(debug, 1);
+            stringLine = printFrom(debug, "1");
+        } finally {
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).contains("DebuggerTest.class: " + intLine + "]"), messages.get(0));
+        assertTrue(messages.get(1).contains("DebuggerTest.class: " + stringLine + "]"), messages.get(1));
+    }
+
+    @Test
+    public void testAsyncSink() {
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        try (AsyncDebugSink sink = new AsyncDebugSink(16, AsyncDebugSink.OverflowPolicy.BLOCK, 1)) {
+            Debugger.setSink(sink);
+            Debugger debug = new Debugger(DebuggerTest.class);
+            for (int i = 0; i < 100; i++) {
+                debug.print("message %d", i);
+            }
+            assertTrue(sink.flush(5, TimeUnit.SECONDS));
+            assertEquals(0, sink.getDropped());
+        } finally {
+            Debugger.setSink(null);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(100, messages.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(messages.get(i).contains("message " + i + " | "), messages.get(i));
+        }
+    }
+
+    @Test
+    public void testClosedSinkIsRemoved() throws InterruptedException {
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        try {
+            AsyncDebugSink sink = new AsyncDebugSink(16);
+            Debugger.setSink(sink);
+            Debugger debug = new Debugger(DebuggerTest.class);
+            // Let the writer go to sleep on an empty buffer, then wake it
+            Thread.sleep(20);
+            debug.print("queued");
+            assertTrue(sink.flush(5, TimeUnit.SECONDS));
+
+            sink.close();
+            assertNull(Debugger.getSink());
+            debug.print("direct");
+            assertEquals(0, sink.getDropped());
+        } finally {
+            Debugger.setSink(null);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(1).contains("direct"));
+    }
+
+    @Test
+    public void testAsyncSinkDropsWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        Logger logger = capture(messages);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        Debugger.setLogger(logger);
+        Debugger.setEnabled(true);
+        try (AsyncDebugSink sink = new AsyncDebugSink(8)) {
+            Debugger.setSink(sink);
+            Debugger debug = new Debugger(DebuggerTest.class);
+            debug.print("first");
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            // The writer is stuck on the first message, so only 8 more fit
+            for (int i = 0; i < 20; i++) {
+                debug.print("message %d", i);
+            }
+            assertEquals(12, sink.getDropped());
+            assertFalse(sink.flush(10, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertTrue(sink.flush(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            Debugger.setSink(null);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(9, messages.size());
+    }
+
+    @Test
+    public void testConcurrentLogCount() throws InterruptedException {
+        Debugger.setLogger(capture(new ArrayList<>()));
+        Debugger.setEnabled(true);
+        Debugger debug = new Debugger(DebuggerTest.class);
+        try (AsyncDebugSink sink = new AsyncDebugSink(64, AsyncDebugSink.OverflowPolicy.SAMPLE, 10)) {
+            Debugger.setSink(sink);
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        debug.print("message %d", j);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(sink.flush(5, TimeUnit.SECONDS));
+        } finally {
+            Debugger.setSink(null);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(4000, debug.getLogCount());
+    }
+
+    @Test
+    public void testPerClassEnablement() {
+        List<String> messages = new ArrayList<>();
+        Debugger.setLogger(capture(messages));
+        try {
+            Debugger.setEnabled("com.dumbdogdiner.stickyapi.common.util", true);
+            Debugger.setEnabled(Entry.class, false);
+            Debugger util = new Debugger(DebuggerTest.class);
+            Debugger entry = new Debugger(Entry.class);
+            Debugger cache = new Debugger(Cache.class);
+
+            assertTrue(Debugger.isEnabled(DebuggerTest.class));
+            assertFalse(Debugger.isEnabled(Entry.class));
+            assertFalse(Debugger.isEnabled(Cache.class));
+            util.print("util");
+            entry.print("entry");
+            cache.print("cache");
+
+            // Existing debuggers pick up changes
+            Debugger.setEnabled(true);
+            Debugger.unsetEnabled(Entry.class.getName());
+            entry.print("entry again");
+            cache.print("cache again");
+
+            Debugger.clearRules();
+            Debugger.setEnabled(false);
+            util.print("util again");
+        } finally {
+            Debugger.clearRules();
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(0).contains("util"));
+        assertTrue(messages.get(1).contains("entry again"));
+        assertTrue(messages.get(2).contains("cache again"));
+    }
+
+    @Test
+    public void testSampling() {
+        List<String> messages = new ArrayList<>();
+        AtomicInteger built = new AtomicInteger();
+        Debugger.setLogger(capture(messages));
+        Debugger.setEnabled(true);
+        Debugger.setResolveCallers(false);
+        try {
+            Debugger.setSampleRate(100);
+            Debugger debug = new Debugger(DebuggerTest.class);
+            for (int i = 0; i < 100_000; i++) {
+                debug.print("sampled");
+            }
+            // Messages which are sampled out are never built
+            for (int i = 0; i < 100_000; i++) {
+                debug.print(() -> "built " + built.incrementAndGet());
+            }
+        } finally {
+            Debugger.setSampleRate(1);
+            Debugger.setResolveCallers(true);
+            Debugger.setEnabled(false);
+            Debugger.setLogger(Logger.getLogger("DEBUG"));
+        }
+
+        long sampled = messages.stream().filter(m -> m.contains("sampled")).count();
+        assertTrue(sampled > 700 && sampled < 1300, "Printed " + sampled + " messages");
+        assertEquals(messages.size() - sampled, built.get());
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.dumbdogdiner.stickyapi.common.cache.Cache;
+import com.dumbdogdiner.stickyapi.common.cache.Cacheable;
+import com.dumbdogdiner.stickyapi.common.scheduler.InstrumentedExecutor;
+import com.dumbdogdiner.stickyapi.common.scheduler.PoolBuilder;
+import com.dumbdogdiner.stickyapi.common.util.MemoryMonitor.Pressure;
+
+import org.junit.jupiter.api.Test;
+
+public class MemoryMonitorTest {
+    private static final long HEAP = 1000;
+
+    private static class Entry implements Cacheable {
+        private final String key;
+
+        Entry(int key) {
+            this.key = String.valueOf(key);
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+
+    @Test
+    public void testInvalidThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryMonitor(0.9, 0.75));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryMonitor(0, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryMonitor(0.5, 1.5));
+    }
+
+    @Test
+    public void testPressureLevels() {
+        MemoryMonitor monitor = new MemoryMonitor(0.75, 0.9);
+        List<String> changes = new ArrayList<>();
+        monitor.addListener((previous, current) -> changes.add(previous + "->" + current));
+
+        monitor.update(500, HEAP);
+        assertEquals(Pressure.NORMAL, monitor.getPressure());
+        monitor.update(800, HEAP);
+        assertEquals(Pressure.ELEVATED, monitor.getPressure());
+        assertTrue(monitor.isAtLeast(Pressure.ELEVATED));
+        assertFalse(monitor.isAtLeast(Pressure.CRITICAL));
+        monitor.update(950, HEAP);
+        assertEquals(Pressure.CRITICAL, monitor.getPressure());
+
+        // Just below a threshold isn't enough to leave its level
+        monitor.update(880, HEAP);
+        assertEquals(Pressure.CRITICAL, monitor.getPressure());
+        monitor.update(800, HEAP);
+        assertEquals(Pressure.ELEVATED, monitor.getPressure());
+        monitor.update(720, HEAP);
+        assertEquals(Pressure.ELEVATED, monitor.getPressure());
+        monitor.update(600, HEAP);
+        assertEquals(Pressure.NORMAL, monitor.getPressure());
+        assertEquals(0.6, monitor.getUsage());
+
+        assertEquals(List.of("NORMAL->ELEVATED", "ELEVATED->CRITICAL", "CRITICAL->ELEVATED", "ELEVATED->NORMAL"),
+                changes);
+    }
+
+    @Test
+    public void testFailingListener() {
+        MemoryMonitor monitor = new MemoryMonitor();
+        List<Pressure> seen = new ArrayList<>();
+        monitor.addListener((previous, current) -> {
+            throw new IllegalStateException("broken listener");
+        });
+        monitor.addListener((previous, current) -> seen.add(current));
+
+        monitor.update(990, HEAP);
+        assertEquals(List.of(Pressure.CRITICAL), seen);
+    }
+
+    @Test
+    public void testCacheShrinks() {
+        MemoryMonitor monitor = new MemoryMonitor();
+        Cache<Entry> cache = new Cache<>(Entry.class);
+        VirtualClock clock = new VirtualClock();
+        cache.setClock(clock);
+        cache.setMaxSize(100);
+        cache.setMemoryMonitor(monitor);
+        for (int i = 0; i < 100; i++) {
+            clock.advance(1);
+            cache.put(new Entry(i));
+        }
+
+        monitor.update(800, HEAP);
+        assertEquals(50, cache.size());
+        assertEquals(50, cache.getEffectiveMaxSize());
+        // The oldest entries go first
+        assertEquals(null, cache.get("0"));
+        assertEquals("99", cache.get("99").getKey());
+
+        monitor.update(950, HEAP);
+        assertEquals(25, cache.size());
+
+        // New entries replace old ones instead of growing the cache
+        clock.advance(1);
+        cache.put(new Entry(100));
+        assertEquals(25, cache.size());
+
+        monitor.update(500, HEAP);
+        assertEquals(100, cache.getEffectiveMaxSize());
+        cache.put(new Entry(101));
+        assertEquals(26, cache.size());
+
+        cache.setMemoryMonitor(null);
+        monitor.update(990, HEAP);
+        assertEquals(26, cache.size());
+    }
+
+    @Test
+    public void testSmallCacheKeepsFloor() {
+        MemoryMonitor monitor = new MemoryMonitor();
+        Cache<Entry> cache = new Cache<>(Entry.class);
+        cache.setMemoryMonitor(monitor);
+
+        // An empty cache must still be able to fill up again under pressure
+        monitor.update(950, HEAP);
+        assertEquals(16, cache.getEffectiveMaxSize());
+        for (int i = 0; i < 20; i++) {
+            cache.put(new Entry(i));
+        }
+        assertEquals(16, cache.size());
+    }
+
+    @Test
+    public void testMonitorDoesNotRetainCache() throws Exception {
+        MemoryMonitor monitor = new MemoryMonitor();
+        Cache<Entry> cache = new Cache<>(Entry.class);
+        cache.setMemoryMonitor(monitor);
+        WeakReference<Cache<Entry>> reference = new WeakReference<>(cache);
+        cache = null;
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reference.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        monitor.update(950, HEAP);
+    }
+
+    @Test
+    public void testPoolSheds() throws Exception {
+        MemoryMonitor monitor = new MemoryMonitor();
+        InstrumentedExecutor pool = new PoolBuilder("memory-monitor-test").threads(1)
+                .shedUnder(monitor, Pressure.CRITICAL).build();
+        try {
+            assertEquals("ok", pool.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+
+            monitor.update(800, HEAP);
+            assertFalse(pool.isShedding());
+            monitor.update(950, HEAP);
+            assertTrue(pool.isShedding());
+            Future<String> dropped = pool.submit(() -> "dropped");
+            assertTrue(dropped.isCancelled());
+            assertEquals(1, pool.getMetrics().getShedTasks());
+
+            monitor.update(100, HEAP);
+            assertFalse(pool.isShedding());
+            assertEquals("ok", pool.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStartAndClose() {
+        MemoryMonitor monitor = new MemoryMonitor();
+        monitor.start();
+        monitor.start();
+        System.gc();
+        monitor.evaluate();
+        assertTrue(monitor.getUsage() >= 0 && monitor.getUsage() <= 1);
+        monitor.close();
+    }
+
+    @Test
+    public void testCloseRestoresThresholds() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        List<Long> thresholds = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.getUsage().getMax() > 0) {
+                long threshold = pool.getUsage().getMax() / 3;
+                pool.setUsageThreshold(threshold);
+                pools.add(pool);
+                thresholds.add(threshold);
+            }
+        }
+        try {
+            MemoryMonitor monitor = new MemoryMonitor();
+            monitor.start();
+            monitor.close();
+            for (int i = 0; i < pools.size(); i++) {
+                assertEquals((long) thresholds.get(i), pools.get(i).getUsageThreshold(), pools.get(i).getName());
+            }
+        } finally {
+            for (MemoryPoolMXBean pool : pools) {
+                pool.setUsageThreshold(0);
+            }
+        }
+    }
+}
@@ -7,6 +7,12 @@ package com.dumbdogdiner.stickyapi.common.util;
 import static com.dumbdogdiner.stickyapi_tests_common.TestsCommon.superficialEnumCodeCoverage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -37,4 +43,85 @@ public class MemoryUtilTest {
     public void testFormatMegabytes() {
         assertEquals(MemoryUtil.formatBits(8000000, Unit.MEGABYTES), 1);
     }
+
+    private static class Node {
+        Node next;
+        long value;
+    }
+
+    private static long align(long size) {
+        int alignment = MemoryUtil.getObjectAlignment();
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    @Test
+    public void testShallowSize() {
+        assertEquals(align(MemoryUtil.getHeaderSize()), MemoryUtil.getShallowSize(new Object()));
+        assertEquals(align(MemoryUtil.getHeaderSize() + 4), MemoryUtil.getShallowSize(Integer.valueOf(1000)));
+        assertEquals(align(MemoryUtil.getHeaderSize() + MemoryUtil.getReferenceSize() + 8),
+                MemoryUtil.getShallowSize(new Node()));
+        assertEquals(0, MemoryUtil.getShallowSize(null));
+    }
+
+    @Test
+    public void testArraySize() {
+        long empty = MemoryUtil.getShallowSize(new long[0]);
+        assertTrue(empty >= MemoryUtil.getHeaderSize() + 4);
+        assertEquals(align(empty + 100 * 8), MemoryUtil.getShallowSize(new long[100]));
+        assertEquals(align(empty + 100 * MemoryUtil.getReferenceSize()), MemoryUtil.getShallowSize(new Object[100]));
+    }
+
+    @Test
+    public void testCycle() {
+        Node first = new Node();
+        Node second = new Node();
+        first.next = second;
+        second.next = first;
+
+        long node = MemoryUtil.getShallowSize(first);
+        assertEquals(2 * node, MemoryUtil.getRetainedSize(first));
+        assertEquals(2 * node * 8, MemoryUtil.getSizeOf(first));
+    }
+
+    @Test
+    public void testDeepGraph() {
+        // Deep enough to overflow the stack if walked recursively
+        Node head = new Node();
+        for (int i = 0; i < 1_000_000; i++) {
+            Node node = new Node();
+            node.next = head;
+            head = node;
+        }
+        assertEquals(1_000_001 * MemoryUtil.getShallowSize(head), MemoryUtil.getRetainedSize(head));
+    }
+
+    @Test
+    public void testSharedObjectsCountedOnce() {
+        Node shared = new Node();
+        Node[] array = { shared, shared, shared };
+        assertEquals(MemoryUtil.getShallowSize(array) + MemoryUtil.getShallowSize(shared),
+                MemoryUtil.getRetainedSize(array));
+    }
+
+    @Test
+    public void testCollections() {
+        List<String> list = new ArrayList<>();
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            list.add("value " + i);
+            map.put("key " + i, "value " + i);
+        }
+
+        long strings = 0;
+        for (String value : list) {
+            strings += MemoryUtil.getRetainedSize(value);
+        }
+        // The list's backing array and its strings
+        assertTrue(MemoryUtil.getRetainedSize(list) > strings + 100 * MemoryUtil.getReferenceSize());
+        // Twice as many strings, plus an entry per mapping
+        assertTrue(MemoryUtil.getRetainedSize(map) > 2 * strings + 100 * MemoryUtil.getHeaderSize());
+        // Enums and classes are shared, not retained
+        assertEquals(0, MemoryUtil.getRetainedSize(Unit.BITS));
+        assertEquals(0, MemoryUtil.getRetainedSize(String.class));
+    }
 }
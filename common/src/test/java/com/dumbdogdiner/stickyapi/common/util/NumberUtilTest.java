@@ -26,6 +26,53 @@ public class NumberUtilTest {
         assertFalse(NumberUtil.isNumeric("12.3"));
     }
 
+    @Test
+    public void testParseLong() {
+        assertEquals(123L, NumberUtil.parseLong("123", 0));
+        assertEquals(-42L, NumberUtil.parseLong("-42", 0));
+        assertEquals(7L, NumberUtil.parseLong("+7", 0));
+        assertEquals(Long.MAX_VALUE, NumberUtil.parseLong("9223372036854775807", 0));
+        assertEquals(Long.MIN_VALUE, NumberUtil.parseLong("-9223372036854775808", 0));
+        assertEquals(-1L, NumberUtil.parseLong("9223372036854775808", -1));
+        assertEquals(-1L, NumberUtil.parseLong("", -1));
+        assertEquals(-1L, NumberUtil.parseLong("-", -1));
+        assertEquals(-1L, NumberUtil.parseLong("12.3", -1));
+        assertEquals(-1L, NumberUtil.parseLong("\u0661", -1)); // Arabic-Indic digit one
+        assertEquals(34L, NumberUtil.parseLong("ab34cd", 2, 4, -1));
+    }
+
+    @Test
+    public void testParseInt() {
+        assertEquals(Integer.MAX_VALUE, NumberUtil.parseInt("2147483647", 0));
+        assertEquals(0, NumberUtil.parseInt("2147483648", 0));
+        assertEquals(Integer.MIN_VALUE, NumberUtil.parseInt("-2147483648", 0));
+        assertEquals(-1, NumberUtil.parseInt("-9223372036854775808", -1));
+    }
+
+    @Test
+    public void testIsLong() {
+        assertTrue(NumberUtil.isLong("0"));
+        assertTrue(NumberUtil.isLong("1"));
+        assertTrue(NumberUtil.isLong("-5"));
+        assertFalse(NumberUtil.isLong(""));
+        assertFalse(NumberUtil.isLong("1e3"));
+        assertFalse(NumberUtil.isLong("99999999999999999999"));
+    }
+
+    @Test
+    public void testParseDouble() {
+        assertEquals(1.5, NumberUtil.parseDouble("1.5", 0));
+        assertEquals(-2000.0, NumberUtil.parseDouble("-2e3", 0));
+        assertEquals(0.5, NumberUtil.parseDouble(".5", 0));
+        assertEquals(3.0, NumberUtil.parseDouble("3.", 0));
+        assertEquals(-1.0, NumberUtil.parseDouble("1.2.3", -1));
+        assertEquals(-1.0, NumberUtil.parseDouble(".", -1));
+        assertEquals(-1.0, NumberUtil.parseDouble("1e", -1));
+        assertEquals(-1.0, NumberUtil.parseDouble("NaN", -1));
+        assertEquals(-1.0, NumberUtil.parseDouble("0x10", -1));
+        assertEquals(-1.0, NumberUtil.parseDouble("", -1));
+    }
+
     @RepeatedTest(100)
     @SuppressWarnings("deprecation") // getRandomNumber is deprecated
     public void testGetRandomNumber() {
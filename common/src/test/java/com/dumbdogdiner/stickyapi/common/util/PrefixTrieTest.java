@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class PrefixTrieTest {
+    @Test
+    public void testComplete() {
+        PrefixTrie trie = new PrefixTrie(List.of("Notch", "jeb_", "Dinnerbone", "notchy", "Grumm", "dinner"));
+        assertEquals(6, trie.size());
+        assertEquals(List.of("Notch", "notchy"), trie.complete("NOT", 10));
+        assertEquals(List.of("dinner", "Dinnerbone"), trie.complete("d", 10));
+        assertEquals(List.of("dinner", "Dinnerbone", "Grumm", "jeb_", "Notch", "notchy"), trie.complete("", 10));
+        assertEquals(List.of("dinner", "Dinnerbone"), trie.complete("", 2));
+        assertTrue(trie.complete("x", 10).isEmpty());
+        assertTrue(trie.complete("", 0).isEmpty());
+        assertTrue(trie.complete("", -1).isEmpty());
+        assertEquals(0, trie.complete("", -1, new ArrayList<>()));
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        PrefixTrie trie = new PrefixTrie();
+        assertTrue(trie.add("Notch"));
+        assertFalse(trie.add("NOTCH"));
+        assertEquals(1, trie.size());
+        assertEquals("NOTCH", trie.get("notch"));
+        assertTrue(trie.contains("nOtCh"));
+        assertFalse(trie.contains("Not"));
+    }
+
+    @Test
+    public void testRemove() {
+        PrefixTrie trie = new PrefixTrie(List.of("a", "ab", "abc", "abd"));
+        assertTrue(trie.remove("AB"));
+        assertFalse(trie.remove("ab"));
+        assertFalse(trie.remove("abcd"));
+        assertEquals(List.of("a", "abc", "abd"), trie.complete("a", 10));
+        assertTrue(trie.remove("abc"));
+        assertTrue(trie.remove("abd"));
+        assertEquals(List.of("a"), trie.complete("a", 10));
+        assertTrue(trie.complete("ab", 10).isEmpty());
+        assertTrue(trie.remove("a"));
+        assertEquals(0, trie.size());
+        assertNull(trie.get("a"));
+
+        trie.add("x");
+        trie.clear();
+        assertEquals(0, trie.size());
+        assertTrue(trie.complete("", 10).isEmpty());
+    }
+
+    @Test
+    public void testMatchesSortedScan() {
+        Random random = new Random(42);
+        PrefixTrie trie = new PrefixTrie();
+        TreeSet<String> expected = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = 0; j < 3 + random.nextInt(6); j++) {
+                name.append("aBc_1Z".charAt(random.nextInt(6)));
+            }
+            if (random.nextInt(4) == 0) {
+                trie.remove(name);
+                expected.remove(name.toString());
+            } else {
+                trie.add(name.toString());
+                expected.remove(name.toString());
+                expected.add(name.toString());
+            }
+        }
+        assertEquals(expected.size(), trie.size());
+        for (String prefix : List.of("", "a", "AB", "c_", "z1")) {
+            List<String> scanned = new ArrayList<>();
+            for (String name : expected) {
+                if (name.toLowerCase().startsWith(prefix.toLowerCase())) {
+                    scanned.add(name);
+                }
+            }
+            assertEquals(scanned, trie.complete(prefix, Integer.MAX_VALUE));
+        }
+    }
+}
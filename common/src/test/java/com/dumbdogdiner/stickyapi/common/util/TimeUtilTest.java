@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.sql.Timestamp;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class TimeUtilTest {
 
@@ -89,4 +90,18 @@ public class TimeUtilTest {
         Timestamp ts = new Timestamp(0L);
         assertEquals(TimeUtil.expirationTime(ts), "never expires");
     }
+
+    @Test
+    public void testVirtualClock() {
+        VirtualClock clock = new VirtualClock(1_000_000L);
+        Clock previous = TimeUtil.getClock();
+        TimeUtil.setClock(clock);
+        try {
+            assertEquals(1000L, TimeUtil.getUnixTime());
+            clock.advance(90, TimeUnit.SECONDS);
+            assertEquals(1090L, TimeUtil.getUnixTime());
+        } finally {
+            TimeUtil.setClock(previous);
+        }
+    }
 }
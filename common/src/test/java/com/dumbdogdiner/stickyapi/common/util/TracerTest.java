@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020-2021 DumbDogDiner <dumbdogdiner.com>. All rights reserved.
+ * Licensed under the MIT license, see LICENSE for more information...
+ */
+package com.dumbdogdiner.stickyapi.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TracerTest {
+    private VirtualClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new VirtualClock();
+        Tracer.setClock(clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Tracer.stop();
+        Tracer.setClock(Clock.system());
+    }
+
+    @Test
+    public void testDisabled() {
+        assertFalse(Tracer.isEnabled());
+        Tracer.Span first = Tracer.span("command", "first");
+        Tracer.Span second = Tracer.span("command", "second");
+        assertSame(first, second);
+        first.close();
+    }
+
+    @Test
+    public void testNestedSpans() {
+        Tracer.start(16);
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        try (Tracer.Span command = Tracer.span("command", "ban", "ban Steve")) {
+            clock.advance(2, TimeUnit.MILLISECONDS);
+            try (Tracer.Span cache = Tracer.span("cache", "find", "Punishment")) {
+                clock.advance(3, TimeUnit.MILLISECONDS);
+            }
+            clock.advance(4, TimeUnit.MILLISECONDS);
+        }
+        Tracer.stop();
+
+        List<Tracer.Event> events = Tracer.getEvents();
+        assertEquals(2, events.size());
+        Tracer.Event cache = events.get(0);
+        assertEquals("find", cache.getName());
+        assertEquals(1, cache.getDepth());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), cache.getStartNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), cache.getDurationNanos());
+
+        Tracer.Event command = events.get(1);
+        assertEquals("ban", command.getName());
+        assertEquals("ban Steve", command.getDetail());
+        assertEquals(0, command.getDepth());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), command.getStartNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(9), command.getDurationNanos());
+    }
+
+    @Test
+    public void testParentClosesChildren() {
+        Tracer.start(16);
+        Tracer.Span parent = Tracer.span("test", "parent");
+        Tracer.span("test", "leaked");
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        parent.close();
+
+        // The leaked span no longer counts as a parent
+        try (Tracer.Span next = Tracer.span("test", "next")) {
+        }
+
+        List<Tracer.Event> events = Tracer.getEvents();
+        assertEquals(3, events.size());
+        assertEquals("leaked", events.get(0).getName());
+        assertEquals("parent", events.get(1).getName());
+        assertEquals("next", events.get(2).getName());
+        assertEquals(0, events.get(2).getDepth());
+    }
+
+    @Test
+    public void testCapacity() {
+        Tracer.start(2);
+        for (int i = 0; i < 5; i++) {
+            Tracer.span("test", "span").close();
+        }
+        assertEquals(2, Tracer.getEvents().size());
+        assertEquals(3, Tracer.getDropped());
+
+        // A new capture starts empty
+        Tracer.start(2);
+        assertEquals(0, Tracer.getEvents().size());
+        assertEquals(0, Tracer.getDropped());
+    }
+
+    @Test
+    public void testChromeTrace() {
+        Tracer.start(16);
+        try (Tracer.Span span = Tracer.span("translation", "translate", "quote \" node")) {
+            clock.advance(1500, TimeUnit.MICROSECONDS);
+        }
+        Tracer.stop();
+
+        JsonObject trace = JsonParser.parseString(Tracer.toChromeTrace()).getAsJsonObject();
+        JsonArray events = trace.getAsJsonArray("traceEvents");
+        assertEquals(2, events.size());
+
+        JsonObject span = events.get(0).getAsJsonObject();
+        assertEquals("translate", span.get("name").getAsString());
+        assertEquals("translation", span.get("cat").getAsString());
+        assertEquals("X", span.get("ph").getAsString());
+        assertEquals(0, span.get("ts").getAsDouble());
+        assertEquals(1500, span.get("dur").getAsDouble());
+        assertEquals(Thread.currentThread().getId(), span.get("tid").getAsLong());
+        assertEquals("quote \" node", span.getAsJsonObject("args").get("detail").getAsString());
+
+        JsonObject thread = events.get(1).getAsJsonObject();
+        assertEquals("M", thread.get("ph").getAsString());
+        assertTrue(thread.getAsJsonObject("args").has("name"));
+    }
+}